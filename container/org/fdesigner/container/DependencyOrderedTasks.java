@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.fdesigner.framework.framework.namespace.PackageNamespace;
+import org.fdesigner.framework.resource.Namespace;
+
+/**
+ * Runs a task for each module of a list of modules.  The task of a module is only
+ * run once the tasks of the modules it waits for completed.  Tasks which do not wait
+ * for each other may run concurrently.  Tasks which are ready to run are run in the
+ * order of the list.  If the remaining modules wait for each other then the first
+ * remaining module in the list is run to break the cycle.
+ * <p>
+ * This class is not thread safe.  The {@link #run(Executor, long)} method must
+ * only be called once.
+ */
+abstract class DependencyOrderedTasks {
+	private final Map<Module, Integer> order = new HashMap<>();
+	private final Map<Module, Integer> waitCounts = new HashMap<>();
+	private final Map<Module, List<Module>> waiters = new HashMap<>();
+	private final PriorityQueue<Module> ready;
+	private final Set<Module> waiting;
+
+	/**
+	 * Creates the tasks for the specified modules.
+	 * @param modules the modules in the order to run the tasks in
+	 * @param waitFor the modules each module must wait for.  Modules
+	 * which are not contained in the list of modules are ignored.
+	 */
+	DependencyOrderedTasks(List<Module> modules, Map<Module, ? extends Collection<Module>> waitFor) {
+		for (Module module : modules) {
+			order.put(module, order.size());
+		}
+		Comparator<Module> byOrder = new Comparator<Module>() {
+			@Override
+			public int compare(Module m1, Module m2) {
+				return order.get(m1).compareTo(order.get(m2));
+			}
+		};
+		ready = new PriorityQueue<>(Math.max(1, modules.size()), byOrder);
+		waiting = new TreeSet<>(byOrder);
+		for (Module module : modules) {
+			Collection<Module> moduleWaitFor = waitFor.get(module);
+			int count = 0;
+			if (moduleWaitFor != null) {
+				for (Module other : new HashSet<>(moduleWaitFor)) {
+					if (other != module && order.containsKey(other)) {
+						List<Module> otherWaiters = waiters.get(other);
+						if (otherWaiters == null) {
+							otherWaiters = new ArrayList<>();
+							waiters.put(other, otherWaiters);
+						}
+						otherWaiters.add(module);
+						count++;
+					}
+				}
+			}
+			waitCounts.put(module, count);
+			if (count == 0) {
+				ready.add(module);
+			} else {
+				waiting.add(module);
+			}
+		}
+	}
+
+	/**
+	 * Returns the wired providers of each of the specified modules which are also
+	 * contained in the specified modules.  Dynamic package imports are only included
+	 * if requested.  A wire resolved from a dynamic import is a real dependency when
+	 * stopping but it is not known before a module is started, so stop ordering
+	 * includes the dynamic wires while start ordering ignores them.
+	 * The caller must hold the module database lock.
+	 * @param modules the modules
+	 * @param includeDynamic true if the wires of dynamic package imports are included
+	 * @return the providers of each module
+	 */
+	static Map<Module, Set<Module>> getWiredProviders(Collection<Module> modules, boolean includeDynamic) {
+		Set<Module> contained = new HashSet<>(modules);
+		Map<Module, Set<Module>> result = new HashMap<>();
+		for (Module module : modules) {
+			ModuleRevision current = module.getCurrentRevision();
+			ModuleWiring wiring = current == null ? null : current.getWiring();
+			if (wiring == null) {
+				continue;
+			}
+			Set<Module> providers = new HashSet<>();
+			// No null check; we are holding the database lock here.
+			for (ModuleWire wire : wiring.getRequiredModuleWires(null)) {
+				ModuleRequirement req = wire.getRequirement();
+				if (!includeDynamic && PackageNamespace.PACKAGE_NAMESPACE.equals(req.getNamespace()) && PackageNamespace.RESOLUTION_DYNAMIC.equals(req.getDirectives().get(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+					continue;
+				}
+				Module provider = wire.getProvider().getRevisions().getModule();
+				if (provider != module && contained.contains(provider)) {
+					providers.add(provider);
+				}
+			}
+			result.put(module, providers);
+		}
+		return result;
+	}
+
+	/**
+	 * Inverts the specified map of the modules each module waits for.
+	 * @param waitFor the modules each module waits for
+	 * @return the modules waiting for each module
+	 */
+	static Map<Module, Set<Module>> invert(Map<Module, Set<Module>> waitFor) {
+		Map<Module, Set<Module>> result = new HashMap<>();
+		for (Map.Entry<Module, Set<Module>> entry : waitFor.entrySet()) {
+			for (Module other : entry.getValue()) {
+				Set<Module> inverted = result.get(other);
+				if (inverted == null) {
+					inverted = new HashSet<>();
+					result.put(other, inverted);
+				}
+				inverted.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the tasks and waits for them to complete.  Tasks of modules which are
+	 * {@link #isParallel(Module) parallel} are run with the specified executor, other
+	 * tasks are run by the calling thread.
+	 * @param executor the executor for parallel tasks
+	 * @param timeout the time in nanoseconds to wait for a task to complete before
+	 * the modules waiting for it are released; zero or less waits forever
+	 * @return false if the tasks got {@link #beforeTask(Module) aborted}
+	 * @throws InterruptedException if the calling thread got interrupted while waiting
+	 */
+	final boolean run(Executor executor, long timeout) throws InterruptedException {
+		final BlockingQueue<Module> done = new LinkedBlockingQueue<>();
+		// the modules being run and the time when to stop waiting for them
+		Map<Module, Long> deadlines = new HashMap<>();
+		boolean aborted = false;
+		while (!deadlines.isEmpty() || (!aborted && (!ready.isEmpty() || !waiting.isEmpty()))) {
+			while (!aborted && !ready.isEmpty()) {
+				final Module module = ready.poll();
+				if (!beforeTask(module)) {
+					aborted = true;
+					break;
+				}
+				deadlines.put(module, timeout > 0 ? System.nanoTime() + timeout : Long.MAX_VALUE);
+				Runnable task = new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task(module);
+						} finally {
+							done.add(module);
+						}
+					}
+				};
+				if (isParallel(module)) {
+					executor.execute(task);
+				} else {
+					task.run();
+				}
+			}
+			if (deadlines.isEmpty()) {
+				if (!aborted && !waiting.isEmpty()) {
+					// the remaining modules wait for each other; break the cycle
+					Module next = waiting.iterator().next();
+					waiting.remove(next);
+					ready.add(next);
+				}
+				continue;
+			}
+			long nextDeadline = Collections.min(deadlines.values());
+			Module completed = nextDeadline == Long.MAX_VALUE ? done.take() : done.poll(nextDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (completed != null) {
+				// ignore tasks which completed after timing out; their waiters are already released
+				if (deadlines.remove(completed) != null) {
+					afterTask(completed);
+					release(completed);
+				}
+				continue;
+			}
+			long now = System.nanoTime();
+			for (Iterator<Map.Entry<Module, Long>> iDeadlines = deadlines.entrySet().iterator(); iDeadlines.hasNext();) {
+				Map.Entry<Module, Long> deadline = iDeadlines.next();
+				if (deadline.getValue() - now <= 0) {
+					iDeadlines.remove();
+					timedOut(deadline.getKey());
+					afterTask(deadline.getKey());
+					release(deadline.getKey());
+				}
+			}
+		}
+		return !aborted;
+	}
+
+	private void release(Module completed) {
+		List<Module> completedWaiters = waiters.get(completed);
+		if (completedWaiters == null) {
+			return;
+		}
+		for (Module waiter : completedWaiters) {
+			int count = waitCounts.get(waiter) - 1;
+			waitCounts.put(waiter, count);
+			if (count == 0 && waiting.remove(waiter)) {
+				ready.add(waiter);
+			}
+		}
+	}
+
+	/**
+	 * Called by the thread calling {@link #run(Executor, long)} before the task of the
+	 * specified module is run.
+	 * @param module the module
+	 * @return false if no more tasks must be run
+	 */
+	boolean beforeTask(Module module) {
+		return true;
+	}
+
+	/**
+	 * Called by the thread calling {@link #run(Executor, long)} once the task of the
+	 * specified module completed or timed out, before the modules waiting for it are
+	 * released.
+	 * @param module the module
+	 */
+	void afterTask(Module module) {
+		// do nothing by default
+	}
+
+	/**
+	 * Returns true if the task of the specified module may run concurrently
+	 * with other tasks.
+	 * @param module the module
+	 * @return true if the task may run concurrently
+	 */
+	boolean isParallel(Module module) {
+		return true;
+	}
+
+	/**
+	 * Called by the thread calling {@link #run(Executor, long)} when the task of the
+	 * specified module did not complete within the timeout.
+	 * @param module the module
+	 */
+	void timedOut(Module module) {
+		// do nothing by default
+	}
+
+	/**
+	 * Runs the task for the specified module.
+	 * @param module the module
+	 */
+	abstract void task(Module module);
+}
@@ -174,6 +174,8 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 	private final ModuleRevisions revisions;
 	final EquinoxReentrantLock stateChangeLock = new EquinoxReentrantLock();
 	private final EnumSet<ModuleEvent> stateTransitionEvents = EnumSet.noneOf(ModuleEvent.class);
+	/* the thread the current thread acts on behalf of for the state change locks held by that thread */
+	private static final ThreadLocal<Thread> stateChangeDelegator = new ThreadLocal<>();
 	private final EnumSet<Settings> settings;
 	final AtomicInteger inStart = new AtomicInteger(0);
 	private volatile State state = State.INSTALLED;
@@ -276,6 +278,11 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 		this.startlevel = newStartLevel;
 	}
 
+	final void storeSettings(EnumSet<Settings> newSettings) {
+		settings.clear();
+		settings.addAll(newSettings);
+	}
+
 	/**
 	 * Returns the time when this module was last modified.  A module is considered
 	 * to be modified when it is installed, updated or uninstalled.
@@ -304,33 +311,25 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 	 * @throws BundleException
 	 */
 	protected final void lockStateChange(ModuleEvent transitionEvent) throws BundleException {
+		if (isStateChangeDelegate()) {
+			// the lock is held by the thread the current thread acts on behalf of
+			Set<ModuleEvent> currentTransition;
+			synchronized (stateTransitionEvents) {
+				if (isValidTransition(transitionEvent)) {
+					stateTransitionEvents.add(transitionEvent);
+					return;
+				}
+				currentTransition = EnumSet.copyOf(stateTransitionEvents);
+			}
+			throw new BundleException(Msg.Module_LockError + toString() + ' ' + transitionEvent + ' ' + currentTransition, BundleException.STATECHANGE_ERROR, new IllegalStateException(NLS.bind(Msg.Module_LockStateError, transitionEvent, currentTransition)));
+		}
 		boolean previousInterruption = Thread.interrupted();
 		boolean invalid = false;
 		try {
 			boolean acquired = stateChangeLock.tryLock(revisions.getContainer().getModuleLockTimeout(), TimeUnit.SECONDS);
 			Set<ModuleEvent> currentTransition = Collections.emptySet();
 			if (acquired) {
-				boolean isValidTransition = true;
-				switch (transitionEvent) {
-					case STARTED :
-					case UPDATED :
-					case UNINSTALLED :
-					case UNRESOLVED :
-						// These states must be initiating transition states
-						// no other transition state is allowed when these are kicked off
-						isValidTransition = stateTransitionEvents.isEmpty();
-						break;
-					case RESOLVED :
-						isValidTransition = VALID_RESOLVED_TRANSITION.containsAll(stateTransitionEvents);
-						break;
-					case STOPPED :
-						isValidTransition = VALID_STOPPED_TRANSITION.containsAll(stateTransitionEvents);
-						break;
-					default :
-						isValidTransition = false;
-						break;
-				}
-				if (!isValidTransition) {
+				if (!isValidTransition(transitionEvent)) {
 					currentTransition = EnumSet.copyOf(stateTransitionEvents);
 					invalid = true;
 					stateChangeLock.unlock();
@@ -359,11 +358,59 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 		}
 	}
 
+	private boolean isValidTransition(ModuleEvent transitionEvent) {
+		switch (transitionEvent) {
+			case STARTED :
+			case UPDATED :
+			case UNINSTALLED :
+			case UNRESOLVED :
+				// These states must be initiating transition states
+				// no other transition state is allowed when these are kicked off
+				return stateTransitionEvents.isEmpty();
+			case RESOLVED :
+				return VALID_RESOLVED_TRANSITION.containsAll(stateTransitionEvents);
+			case STOPPED :
+				return VALID_STOPPED_TRANSITION.containsAll(stateTransitionEvents);
+			default :
+				return false;
+		}
+	}
+
+	/**
+	 * Lets the current thread act on behalf of the specified thread for the state change
+	 * locks held by that thread.  While acting on behalf of the owner the current thread
+	 * may nest valid transitions within the transitions of the owner.  Invalid transitions
+	 * fail immediately like they would for the owner instead of waiting for the lock.
+	 * The owner must not change the state of the modules it holds the locks for until the
+	 * current thread stops acting on behalf of it.
+	 * @param owner the thread holding the state change locks or {@code null} to stop acting
+	 * on behalf of another thread
+	 */
+	static void delegateStateChangeLocks(Thread owner) {
+		if (owner == null) {
+			stateChangeDelegator.remove();
+		} else {
+			stateChangeDelegator.set(owner);
+		}
+	}
+
+	private boolean isStateChangeDelegate() {
+		Thread delegator = stateChangeDelegator.get();
+		return delegator != null && delegator != Thread.currentThread() && stateChangeLock.getOwner() == delegator;
+	}
+
 	/**
 	 * Releases the lock for state changes for the specified transition event.
 	 * @param transitionEvent
 	 */
 	protected final void unlockStateChange(ModuleEvent transitionEvent) {
+		if (isStateChangeDelegate()) {
+			synchronized (stateTransitionEvents) {
+				if (!stateTransitionEvents.remove(transitionEvent))
+					throw new IllegalMonitorStateException("Current thread does not hold the state change lock for: " + transitionEvent); //$NON-NLS-1$
+			}
+			return;
+		}
 		if (stateChangeLock.getHoldCount() == 0 || !stateTransitionEvents.contains(transitionEvent))
 			throw new IllegalMonitorStateException("Current thread does not hold the state change lock for: " + transitionEvent); //$NON-NLS-1$
 		stateTransitionEvents.remove(transitionEvent);
@@ -376,7 +423,7 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 	 * @return true if the current thread holds the state change lock for the specified transition event.
 	 */
 	public final boolean holdsTransitionEventLock(ModuleEvent transitionEvent) {
-		return stateChangeLock.getHoldCount() > 0 && stateTransitionEvents.contains(transitionEvent);
+		return (stateChangeLock.getHoldCount() > 0 || isStateChangeDelegate()) && stateTransitionEvents.contains(transitionEvent);
 	}
 
 	/**
@@ -426,7 +473,7 @@ public abstract class Module implements BundleReference, BundleStartLevel, Compa
 			}
 			checkFragment();
 			persistStartOptions(options);
-			if (getStartLevel() > container.getStartLevel()) {
+			if (!container.isStartLevelMet(this)) {
 				if (StartOptions.TRANSIENT.isContained(options)) {
 					// it is an error to attempt to transient start a bundle without its start level met
 					throw new BundleException(Msg.Module_Transient_StartError, BundleException.START_TRANSIENT_ERROR);
@@ -17,18 +17,27 @@ import java.io.Closeable;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -134,6 +143,14 @@ public final class ModuleContainer implements DebugOptionsListener {
 
 	final boolean restrictParallelStart;
 
+	final boolean startLevelDependencyOrder;
+
+	final boolean startLevelParallelStop;
+
+	private final long startLevelStopTimeout;
+
+	private final boolean refreshInParallel;
+
 	boolean DEBUG_MONITOR_LAZY = false;
 	boolean DEBUG_BUNDLE_START_TIME = false;
 
@@ -173,6 +190,20 @@ public final class ModuleContainer implements DebugOptionsListener {
 		}
 		this.autoStartOnResolve = Boolean.parseBoolean(autoStartOnResolveProp);
 		this.restrictParallelStart = Boolean.parseBoolean(adaptor.getProperty(EquinoxConfiguration.PROP_EQUINOX_START_LEVEL_RESTRICT_PARALLEL));
+		this.startLevelDependencyOrder = Boolean.parseBoolean(adaptor.getProperty(EquinoxConfiguration.PROP_EQUINOX_START_LEVEL_DEPENDENCY_ORDER));
+		this.startLevelParallelStop = Boolean.parseBoolean(adaptor.getProperty(EquinoxConfiguration.PROP_EQUINOX_START_LEVEL_PARALLEL_STOP));
+		long tempStopTimeout = 30;
+		String stopTimeoutProp = adaptor.getProperty(EquinoxConfiguration.PROP_EQUINOX_START_LEVEL_STOP_TIMEOUT);
+		if (stopTimeoutProp != null) {
+			try {
+				// zero or less waits forever
+				tempStopTimeout = Long.parseLong(stopTimeoutProp);
+			} catch (NumberFormatException e) {
+				// will default to 30
+			}
+		}
+		this.startLevelStopTimeout = tempStopTimeout;
+		this.refreshInParallel = Boolean.parseBoolean(adaptor.getProperty(EquinoxConfiguration.PROP_EQUINOX_REFRESH_PARALLEL));
 	}
 
 	/**
@@ -211,6 +242,40 @@ public final class ModuleContainer implements DebugOptionsListener {
 		return moduleDatabase.getModule(location);
 	}
 
+	/**
+	 * Returns the current revisions timestamp of the module database without
+	 * acquiring the database lock.  The value may be stale by the time it is
+	 * used and is only intended for validating caches which are derived
+	 * from the installed revisions and their wirings.  A cache must be
+	 * discarded when the returned value differs from the one it was
+	 * populated with.
+	 * @return the current revisions timestamp
+	 * @see ModuleDatabase#getRevisionsTimestamp()
+	 */
+	public long getRevisionsTimestamp() {
+		return moduleDatabase.revisionsTimeStamp.get();
+	}
+
+	/**
+	 * Returns the metrics collected for the last resolve operation of this container.
+	 * The metrics describe how much work the resolver had to do and may be used to
+	 * find the requirements which make resolving expensive.  Resolve operations for
+	 * dynamic imports are not included, see {@link #getDynamicResolutionMetrics()}.
+	 * @return the metrics of the last resolve operation
+	 */
+	public ModuleResolutionMetrics getResolutionMetrics() {
+		return moduleResolver.getLastMetrics();
+	}
+
+	/**
+	 * Returns the metrics collected for the last resolve operation of this container
+	 * which resolved a dynamic import.
+	 * @return the metrics of the last dynamic resolve operation
+	 */
+	public ModuleResolutionMetrics getDynamicResolutionMetrics() {
+		return moduleResolver.getLastDynamicMetrics();
+	}
+
 	/**
 	 * Creates a synthetic requirement that is not associated with any module revision.
 	 * This is useful for calling {@link FrameworkWiring#findProviders(Requirement)}.
@@ -324,6 +389,177 @@ public final class ModuleContainer implements DebugOptionsListener {
 		}
 	}
 
+	/**
+	 * Installs new modules using the specified locations.  This is the same as
+	 * calling {@link #install(Module, String, ModuleRevisionBuilder, Object)} for
+	 * each location except that all the new modules are added to the database
+	 * in one operation which only updates the database timestamps once.
+	 * <p>
+	 * If a module already exists with a specified location then the existing
+	 * module is returned for that location and its builder is not used.  If a location
+	 * is specified more than once then only the first builder for the location is used.
+	 * If any of the modules fails to install then none of the modules are installed.
+	 * <p>
+	 * The {@link ModuleCollisionHook collision hook} can only filter modules which are
+	 * already installed.  Modules of the same batch with the same symbolic name and version
+	 * therefore always collide; such modules must be installed one at a time with
+	 * {@link #install(Module, String, ModuleRevisionBuilder, Object)}.
+	 * @param origin the module performing the install, may be {@code null}.
+	 * @param locations The location identifiers of the modules to install.
+	 * @param builders the builders used to create the revisions to install.
+	 * @param revisionInfos the revision infos for the new revisions, an element may be {@code null}.
+	 * @return the new or existing modules in the order of the specified locations
+	 * @throws BundleException if some error occurs installing the modules
+	 */
+	public List<Module> install(Module origin, List<String> locations, List<ModuleRevisionBuilder> builders, List<Object> revisionInfos) throws BundleException {
+		int size = locations.size();
+		if (builders.size() != size || revisionInfos.size() != size) {
+			throw new IllegalArgumentException("The number of locations, builders and revision infos must be the same."); //$NON-NLS-1$
+		}
+		builders = new ArrayList<>(builders);
+		for (int i = 0; i < size; i++) {
+			ModuleRevisionBuilder builder = builders.get(i);
+			long id = builder.getId();
+			ModuleRevisionBuilder adaptBuilder = getAdaptor().adaptModuleRevisionBuilder(ModuleEvent.INSTALLED, origin, builder, revisionInfos.get(i));
+			if (adaptBuilder != null) {
+				// be sure to restore the id from the original builder
+				adaptBuilder.setInternalId(id);
+				builders.set(i, adaptBuilder);
+			}
+		}
+		// lock in a consistent order to avoid blocking on other batch installs
+		Set<String> locationsToLock = new TreeSet<>(locations);
+		Set<String> namesToLock = new TreeSet<>();
+		for (ModuleRevisionBuilder builder : builders) {
+			if (builder.getSymbolicName() != null) {
+				namesToLock.add(builder.getSymbolicName());
+			}
+		}
+		List<String> lockedLocations = new ArrayList<>(locationsToLock.size());
+		List<String> lockedNames = new ArrayList<>(namesToLock.size());
+		try {
+			// Attempt to lock the locations and names
+			try {
+				for (String location : locationsToLock) {
+					if (!locationLocks.tryLock(location, 5, TimeUnit.SECONDS)) {
+						throw new BundleException("Failed to obtain location lock for installation: " + location, BundleException.STATECHANGE_ERROR, new ThreadInfoReport(locationLocks.getLockInfo(location))); //$NON-NLS-1$
+					}
+					lockedLocations.add(location);
+				}
+				for (String name : namesToLock) {
+					if (!nameLocks.tryLock(name, 5, TimeUnit.SECONDS)) {
+						throw new BundleException("Failed to obtain symbolic name lock for installation: " + name, BundleException.STATECHANGE_ERROR, new ThreadInfoReport(nameLocks.getLockInfo(name))); //$NON-NLS-1$
+					}
+					lockedNames.add(name);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BundleException("Failed to obtain id locks for installation.", BundleException.STATECHANGE_ERROR, e); //$NON-NLS-1$
+			}
+
+			Module[] results = new Module[size];
+			Map<String, Integer> firstIndexes = new HashMap<>();
+			List<Integer> toInstall = new ArrayList<>(size);
+			List<Collection<Module>> collisionCandidates = new ArrayList<>(size);
+			moduleDatabase.readLock();
+			try {
+				for (int i = 0; i < size; i++) {
+					String location = locations.get(i);
+					if (firstIndexes.containsKey(location)) {
+						continue; // installed by the first builder for the location
+					}
+					firstIndexes.put(location, i);
+					results[i] = moduleDatabase.getModule(location);
+					if (results[i] != null) {
+						continue;
+					}
+					ModuleRevisionBuilder builder = builders.get(i);
+					// Collect existing current revisions with the same name and version as the revision we want to install
+					// This is to perform the collision check below
+					Collection<Module> candidates = new ArrayList<>(1);
+					for (ModuleCapability identity : moduleDatabase.findCapabilities(getIdentityRequirement(builder.getSymbolicName(), builder.getVersion()))) {
+						ModuleRevision equinoxRevision = identity.getRevision();
+						if (!equinoxRevision.isCurrent())
+							continue; // only pay attention to current revisions
+						// need to prevent duplicates here; this is in case a revisions object contains multiple revision objects.
+						if (!candidates.contains(equinoxRevision.getRevisions().getModule()))
+							candidates.add(equinoxRevision.getRevisions().getModule());
+					}
+					toInstall.add(i);
+					collisionCandidates.add(candidates);
+				}
+			} finally {
+				moduleDatabase.readUnlock();
+			}
+
+			List<String> installLocations = new ArrayList<>(toInstall.size());
+			List<ModuleRevisionBuilder> installBuilders = new ArrayList<>(toInstall.size());
+			List<Object> installInfos = new ArrayList<>(toInstall.size());
+			for (int i = 0; i < size; i++) {
+				Module existingLocation = results[i];
+				// Check that the existing location is visible from the origin module
+				if (existingLocation != null && origin != null) {
+					Bundle bundle = origin.getBundle();
+					BundleContext context = bundle == null ? null : bundle.getBundleContext();
+					if (context != null && context.getBundle(existingLocation.getId()) == null) {
+						Bundle b = existingLocation.getBundle();
+						throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation, new Object[] {b.getSymbolicName(), b.getVersion(), locations.get(i)}), BundleException.REJECTED_BY_HOOK);
+					}
+				}
+			}
+			for (int i = 0; i < toInstall.size(); i++) {
+				int index = toInstall.get(i).intValue();
+				ModuleRevisionBuilder builder = builders.get(index);
+				Collection<Module> candidates = collisionCandidates.get(i);
+				// Check that the bundle does not collide with other bundles with the same name and version
+				// This is from the perspective of the origin bundle
+				if (origin != null && !candidates.isEmpty()) {
+					adaptor.getModuleCollisionHook().filterCollisions(ModuleCollisionHook.INSTALLING, origin, candidates);
+				}
+				if (!candidates.isEmpty() || collides(builder, installBuilders)) {
+					throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollision, builder.getSymbolicName(), builder.getVersion()), BundleException.DUPLICATE_BUNDLE_ERROR);
+				}
+				installLocations.add(locations.get(index));
+				installBuilders.add(builder);
+				installInfos.add(revisionInfos.get(index));
+			}
+
+			List<Module> installed = moduleDatabase.install(installLocations, installBuilders, installInfos);
+			for (int i = 0; i < toInstall.size(); i++) {
+				results[toInstall.get(i).intValue()] = installed.get(i);
+			}
+			for (int i = 0; i < size; i++) {
+				if (results[i] == null) {
+					results[i] = results[firstIndexes.get(locations.get(i)).intValue()];
+				}
+			}
+
+			for (Module result : installed) {
+				adaptor.publishModuleEvent(ModuleEvent.INSTALLED, result, origin);
+			}
+
+			return Arrays.asList(results);
+		} finally {
+			for (String location : lockedLocations)
+				locationLocks.unlock(location);
+			for (String name : lockedNames)
+				nameLocks.unlock(name);
+		}
+	}
+
+	private static boolean collides(ModuleRevisionBuilder builder, List<ModuleRevisionBuilder> others) {
+		String name = builder.getSymbolicName();
+		if (name == null) {
+			return false;
+		}
+		for (ModuleRevisionBuilder other : others) {
+			if (name.equals(other.getSymbolicName()) && builder.getVersion().equals(other.getVersion())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Updates the specified module with a new revision.  The specified
 	 * builder is used to create a new {@link ModuleRevision revision} 
@@ -858,9 +1094,13 @@ public final class ModuleContainer implements DebugOptionsListener {
 		// If there are any triggers re-start them now if requested
 		Set<Module> triggerSet = restartTriggers ? new HashSet<>(triggers) : Collections.<Module> emptySet();
 		if (restartTriggers) {
-			for (Module module : triggers) {
-				if (module.getId() != 0 && Module.RESOLVED_SET.contains(module.getState())) {
-					start(module, StartOptions.TRANSIENT_RESUME);
+			if (refreshInParallel) {
+				startInParallel(triggers);
+			} else {
+				for (Module module : triggers) {
+					if (module.getId() != 0 && Module.RESOLVED_SET.contains(module.getState())) {
+						start(module, StartOptions.TRANSIENT_RESUME);
+					}
 				}
 			}
 		}
@@ -881,6 +1121,101 @@ public final class ModuleContainer implements DebugOptionsListener {
 		return true;
 	}
 
+	/*
+	 * Starts the resolved modules concurrently.  A module is started once the
+	 * modules which provide its required wires are started.
+	 */
+	private void startInParallel(Collection<Module> modules) {
+		List<Module> toStart = new ArrayList<>(modules.size());
+		for (Module module : modules) {
+			if (module.getId() != 0 && Module.RESOLVED_SET.contains(module.getState())) {
+				toStart.add(module);
+			}
+		}
+		if (toStart.isEmpty()) {
+			return;
+		}
+		Map<Module, Set<Module>> providers;
+		moduleDatabase.readLock();
+		try {
+			providers = DependencyOrderedTasks.getWiredProviders(toStart, false);
+		} finally {
+			moduleDatabase.readUnlock();
+		}
+		DependencyOrderedTasks tasks = new DependencyOrderedTasks(toStart, providers) {
+			@Override
+			boolean isParallel(Module module) {
+				return !restrictParallelStart || module.isParallelActivated();
+			}
+
+			@Override
+			void task(Module module) {
+				start(module, StartOptions.TRANSIENT_RESUME);
+			}
+		};
+		try {
+			tasks.run(adaptor.getStartLevelExecutor(), 0);
+		} catch (InterruptedException e) {
+			adaptor.publishContainerEvent(ContainerEvent.ERROR, moduleDatabase.getModule(0), e);
+		}
+	}
+
+	/*
+	 * Stops the active modules concurrently while the calling thread holds their state
+	 * change locks for the unresolved transition.  A module is stopped once the modules
+	 * which are wired to it are stopped.  The threads stopping the modules act on behalf
+	 * of the calling thread for the state change locks it holds, so a module is stopped
+	 * under the unresolved transition of the refresh and a state change of another module
+	 * of the refresh fails immediately like it does when stopped by the calling thread.
+	 * The stopped modules are added to the stopped set.
+	 */
+	private void stopInParallel(List<Module> modules, final Set<Module> stopped) {
+		List<Module> toStop = new ArrayList<>(modules.size());
+		for (ListIterator<Module> iModules = modules.listIterator(modules.size()); iModules.hasPrevious();) {
+			Module module = iModules.previous();
+			if (Module.ACTIVE_SET.contains(module.getState())) {
+				toStop.add(module);
+			}
+		}
+		if (toStop.isEmpty()) {
+			return;
+		}
+		Map<Module, Set<Module>> requirers;
+		moduleDatabase.readLock();
+		try {
+			requirers = DependencyOrderedTasks.invert(DependencyOrderedTasks.getWiredProviders(toStop, true));
+		} finally {
+			moduleDatabase.readUnlock();
+		}
+		final Thread refreshThread = Thread.currentThread();
+		DependencyOrderedTasks tasks = new DependencyOrderedTasks(toStop, requirers) {
+			@Override
+			void task(Module module) {
+				if (module.getStateChangeOwner() != refreshThread) {
+					throw new IllegalStateException("The refresh does not hold the state change lock: " + module); //$NON-NLS-1$
+				}
+				Module.delegateStateChangeLocks(refreshThread);
+				try {
+					if (Module.ACTIVE_SET.contains(module.getState())) {
+						module.stop(StopOptions.TRANSIENT);
+						stopped.add(module);
+					}
+				} catch (BundleException e) {
+					adaptor.publishContainerEvent(ContainerEvent.ERROR, module, e);
+				} catch (IllegalStateException e) {
+					// been uninstalled
+				} finally {
+					Module.delegateStateChangeLocks(null);
+				}
+			}
+		};
+		try {
+			tasks.run(adaptor.getStartLevelExecutor(), 0);
+		} catch (InterruptedException e) {
+			adaptor.publishContainerEvent(ContainerEvent.ERROR, moduleDatabase.getModule(0), e);
+		}
+	}
+
 	private void start(Module module, StartOptions... options) {
 		try {
 			secureAction.start(module, options);
@@ -934,13 +1269,15 @@ public final class ModuleContainer implements DebugOptionsListener {
 
 	private Collection<Module> unresolve(Collection<Module> initial) {
 		Collection<Module> refreshTriggers = null;
+		// the active modules which got stopped in parallel; these must be restarted
+		Set<Module> stopped = Collections.synchronizedSet(new HashSet<Module>());
 		while (refreshTriggers == null) {
-			refreshTriggers = unresolve0(initial);
+			refreshTriggers = unresolve0(initial, stopped);
 		}
 		return refreshTriggers;
 	}
 
-	private Collection<Module> unresolve0(Collection<Module> initial) {
+	private Collection<Module> unresolve0(Collection<Module> initial, Set<Module> stopped) {
 		Map<ModuleRevision, ModuleWiring> wiringCopy;
 		List<Module> refreshTriggers;
 		Collection<ModuleRevision> toRemoveRevisions;
@@ -1015,6 +1352,11 @@ public final class ModuleContainer implements DebugOptionsListener {
 			} finally {
 				_bundleStateLock.unlock();
 			}
+			if (refreshInParallel) {
+				// Stop the active modules concurrently on behalf of this thread while
+				// holding their state change locks
+				stopInParallel(refreshTriggers, stopped);
+			}
 			// Must not hold the module database lock while stopping bundles
 			// Stop any active bundles and remove non-active modules from the refreshTriggers
 			for (ListIterator<Module> iTriggers = refreshTriggers.listIterator(refreshTriggers.size()); iTriggers.hasPrevious();) {
@@ -1026,7 +1368,7 @@ public final class ModuleContainer implements DebugOptionsListener {
 					} catch (BundleException e) {
 						adaptor.publishContainerEvent(ContainerEvent.ERROR, refreshModule, e);
 					}
-				} else {
+				} else if (!stopped.contains(refreshModule)) {
 					iTriggers.remove();
 				}
 			}
@@ -1176,6 +1518,18 @@ public final class ModuleContainer implements DebugOptionsListener {
 		return frameworkStartLevel.getStartLevel();
 	}
 
+	/**
+	 * Returns true if the start level of the specified module is met.  The start
+	 * level of a module is met if it is less than or equal to the active start level
+	 * or if the module is resumed by the dependency ordered start level engine ahead
+	 * of its start level.
+	 * @param module the module
+	 * @return true if the start level of the module is met
+	 */
+	boolean isStartLevelMet(Module module) {
+		return frameworkStartLevel.isStartLevelMet(module);
+	}
+
 	void setStartLevel(Module module, int startlevel) {
 		frameworkStartLevel.setStartLevel(module, startlevel);
 	}
@@ -1568,9 +1922,13 @@ public final class ModuleContainer implements DebugOptionsListener {
 		private static final int FRAMEWORK_STARTLEVEL = 1;
 		private static final int MODULE_STARTLEVEL = 2;
 		private final AtomicInteger activeStartLevel = new AtomicInteger(0);
+		/* the modules resumed ahead of the active start level by the dependency ordered start */
+		private final Set<Module> resumedAhead = Collections.newSetFromMap(new ConcurrentHashMap<Module, Boolean>());
 		private final Object eventManagerLock = new Object();
 		private EventManager startLevelThread = null;
 		private final Object frameworkStartLevelLock = new Object();
+		/* @GuardedBy("frameworkStartLevelLock") */
+		private ThreadPoolExecutor stopExecutor = null;
 		boolean debugStartLevel = false;
 		{
 			setDebugOptions();
@@ -1591,6 +1949,10 @@ public final class ModuleContainer implements DebugOptionsListener {
 			return activeStartLevel.get();
 		}
 
+		boolean isStartLevelMet(Module module) {
+			return module.getStartLevel() <= activeStartLevel.get() || resumedAhead.contains(module);
+		}
+
 		void setStartLevel(Module module, int startlevel) {
 			checkAdminPermission(module.getBundle(), AdminPermission.EXECUTE);
 			if (module.getId() == 0) {
@@ -1715,7 +2077,9 @@ public final class ModuleContainer implements DebugOptionsListener {
 					// but only do this if the module database has changed!!
 					List<Module> sorted = null;
 					long currentTimestamp = Long.MIN_VALUE;
-					if (newStartLevel > currentSL) {
+					if (newStartLevel > currentSL && startLevelDependencyOrder) {
+						incStartLevelByDependency(currentSL, newStartLevel);
+					} else if (newStartLevel > currentSL) {
 						List<Module> lazyStart = null;
 						List<Module> lazyStartParallel = null;
 						List<Module> eagerStart = null;
@@ -1743,6 +2107,8 @@ public final class ModuleContainer implements DebugOptionsListener {
 							incStartLevel(toStartLevel, lazyStart, lazyStartParallel, eagerStart, eagerStartParallel);
 						}
 					} else {
+						Map<Module, Long> stopTimes = startLevelParallelStop ? new ConcurrentHashMap<Module, Long>() : null;
+						Set<Module> timedOut = startLevelParallelStop ? new LinkedHashSet<Module>() : null;
 						for (int i = currentSL; i > newStartLevel; i--) {
 							int toStartLevel = i - 1;
 							activeStartLevel.set(toStartLevel);
@@ -1758,7 +2124,14 @@ public final class ModuleContainer implements DebugOptionsListener {
 									moduleDatabase.readUnlock();
 								}
 							}
-							decStartLevel(toStartLevel, sorted);
+							if (stopTimes != null) {
+								decStartLevelInParallel(toStartLevel, sorted, stopTimes, timedOut);
+							} else {
+								decStartLevel(toStartLevel, sorted);
+							}
+						}
+						if (stopTimes != null) {
+							reportSlowestStops(stopTimes, timedOut);
 						}
 					}
 					if (currentSL > 0 && newStartLevel > 0) {
@@ -1861,6 +2234,173 @@ public final class ModuleContainer implements DebugOptionsListener {
 			}
 		}
 
+		/*
+		 * Starts the modules with a start level greater than currentSL up to newStartLevel
+		 * without waiting for all modules of a start level to be started before starting
+		 * the modules of the next start level.  The persistently started modules are
+		 * resolved first, then a module is started as soon as the modules which provide
+		 * its required wires are started.  Only providers with a start level less than or
+		 * equal to the start level of the module are waited for.  A module which has no
+		 * wiring waits for all modules of lower start levels.  Modules which are ready to
+		 * start are started in start level order.  The active start level is only
+		 * incremented once all modules of the lower start levels are started; a module
+		 * started ahead of the active start level is resumed ahead of its start level.
+		 */
+		private void incStartLevelByDependency(int currentSL, int newStartLevel) {
+			final Set<Module> attempted = new HashSet<>();
+			long currentTimestamp;
+			try {
+				do {
+					final List<Module> sorted = new ArrayList<>();
+					final Map<Module, Integer> startLevels = new HashMap<>();
+					List<Module> toResolve = new ArrayList<>();
+					moduleDatabase.readLock();
+					try {
+						currentTimestamp = moduleDatabase.getTimestamp();
+						List<Module> lazyStart = new ArrayList<>();
+						List<Module> lazyStartParallel = new ArrayList<>();
+						List<Module> eagerStart = new ArrayList<>();
+						List<Module> eagerStartParallel = new ArrayList<>();
+						separateModulesByActivationPolicy(moduleDatabase.getSortedModules(Sort.BY_START_LEVEL), lazyStart, lazyStartParallel, eagerStart, eagerStartParallel);
+						// keep the order of a single start level; lazy activated and parallel modules first
+						for (List<Module> modules : Arrays.asList(lazyStartParallel, lazyStart, eagerStartParallel, eagerStart)) {
+							for (Module module : modules) {
+								try {
+									int moduleStartLevel = module.getStartLevel();
+									if (moduleStartLevel > currentSL && moduleStartLevel <= newStartLevel && !attempted.contains(module)) {
+										sorted.add(module);
+										startLevels.put(module, moduleStartLevel);
+										if (State.INSTALLED.equals(module.getState()) && module.isPersistentlyStarted()) {
+											toResolve.add(module);
+										}
+									}
+								} catch (IllegalStateException e) {
+									// been uninstalled
+								}
+							}
+						}
+					} finally {
+						moduleDatabase.readUnlock();
+					}
+					if (sorted.isEmpty()) {
+						continue;
+					}
+					// stable sort by start level only
+					Collections.sort(sorted, new Comparator<Module>() {
+						@Override
+						public int compare(Module m1, Module m2) {
+							return startLevels.get(m1).compareTo(startLevels.get(m2));
+						}
+					});
+					// resolve up front to know the wires to order the modules by
+					if (!toResolve.isEmpty()) {
+						if (isRefreshingSystemModule()) {
+							return;
+						}
+						resolve(toResolve, false);
+					}
+					Map<Module, Collection<Module>> waitFor = new HashMap<>();
+					moduleDatabase.readLock();
+					try {
+						waitFor.putAll(DependencyOrderedTasks.getWiredProviders(sorted, false));
+					} finally {
+						moduleDatabase.readUnlock();
+					}
+					// the number of modules left to start for each start level
+					final TreeMap<Integer, Integer> remaining = new TreeMap<>();
+					int lowerEnd = 0;
+					for (int i = 0; i < sorted.size(); i++) {
+						Module module = sorted.get(i);
+						int moduleStartLevel = startLevels.get(module);
+						if (i > 0 && startLevels.get(sorted.get(i - 1)) < moduleStartLevel) {
+							lowerEnd = i;
+						}
+						Integer count = remaining.get(moduleStartLevel);
+						remaining.put(moduleStartLevel, count == null ? 1 : count + 1);
+						Collection<Module> providers = waitFor.get(module);
+						if (providers == null) {
+							// no wires to order by; wait for all modules of lower start levels
+							waitFor.put(module, sorted.subList(0, lowerEnd));
+						} else {
+							// only wait for providers which are started before the module without this scheduler
+							for (Iterator<Module> iProviders = providers.iterator(); iProviders.hasNext();) {
+								if (startLevels.get(iProviders.next()) > moduleStartLevel) {
+									iProviders.remove();
+								}
+							}
+						}
+					}
+					incActiveStartLevel(Math.min(remaining.firstKey(), newStartLevel));
+					DependencyOrderedTasks tasks = new DependencyOrderedTasks(sorted, waitFor) {
+						@Override
+						boolean beforeTask(Module module) {
+							if (isRefreshingSystemModule()) {
+								return false;
+							}
+							attempted.add(module);
+							if (startLevels.get(module) > activeStartLevel.get()) {
+								resumedAhead.add(module);
+							}
+							return true;
+						}
+
+						@Override
+						void afterTask(Module module) {
+							int moduleStartLevel = startLevels.get(module);
+							int count = remaining.get(moduleStartLevel) - 1;
+							if (count == 0) {
+								remaining.remove(moduleStartLevel);
+							} else {
+								remaining.put(moduleStartLevel, count);
+							}
+							// the lowest start level with modules left to start is the active start level
+							incActiveStartLevel(remaining.isEmpty() ? newStartLevel : Math.min(remaining.firstKey(), newStartLevel));
+						}
+
+						@Override
+						boolean isParallel(Module module) {
+							return !restrictParallelStart || module.isParallelActivated();
+						}
+
+						@Override
+						void task(Module module) {
+							try {
+								if (debugStartLevel) {
+									Debug.println("StartLevel: resuming bundle; " + ContainerStartLevel.this.toString(module) + "; with startLevel=" + startLevels.get(module)); //$NON-NLS-1$ //$NON-NLS-2$
+								}
+								module.start(StartOptions.TRANSIENT_IF_AUTO_START, StartOptions.TRANSIENT_RESUME);
+							} catch (BundleException e) {
+								adaptor.publishContainerEvent(ContainerEvent.ERROR, module, e);
+							} catch (IllegalStateException e) {
+								// been uninstalled
+							}
+						}
+					};
+					try {
+						if (!tasks.run(adaptor.getStartLevelExecutor(), 0)) {
+							return;
+						}
+					} catch (InterruptedException e) {
+						adaptor.publishContainerEvent(ContainerEvent.ERROR, moduleDatabase.getModule(0), e);
+						return;
+					}
+					// start any modules installed or resolved while starting
+				} while (currentTimestamp != moduleDatabase.getTimestamp());
+				incActiveStartLevel(newStartLevel);
+			} finally {
+				resumedAhead.clear();
+			}
+		}
+
+		private void incActiveStartLevel(int toStartLevel) {
+			if (activeStartLevel.get() < toStartLevel) {
+				activeStartLevel.set(toStartLevel);
+				if (debugStartLevel) {
+					Debug.println("StartLevel: incremented active start level to; " + toStartLevel); //$NON-NLS-1$
+				}
+			}
+		}
+
 		private void decStartLevel(int toStartLevel, List<Module> sortedModules) {
 			ListIterator<Module> iModules = sortedModules.listIterator(sortedModules.size());
 			while (iModules.hasPrevious()) {
@@ -1895,6 +2435,137 @@ public final class ModuleContainer implements DebugOptionsListener {
 			}
 		}
 
+		/*
+		 * Stops the modules of the start level toStartLevel + 1 concurrently.  A module is
+		 * stopped once the modules of the same start level which are wired to it are stopped.
+		 * A module which does not stop within the stop timeout is reported, added to timedOut
+		 * and no longer waited for.  The time it took to stop each module is recorded in
+		 * stopTimes.  The modules are stopped with the stop executor, never by the calling
+		 * thread, so that the timeout also applies when the start level executor is
+		 * synchronous.
+		 */
+		private void decStartLevelInParallel(int toStartLevel, List<Module> sortedModules, final Map<Module, Long> stopTimes, final Set<Module> timedOut) {
+			List<Module> toStop = new ArrayList<>();
+			ListIterator<Module> iModules = sortedModules.listIterator(sortedModules.size());
+			while (iModules.hasPrevious()) {
+				Module module = iModules.previous();
+				try {
+					int moduleStartLevel = module.getStartLevel();
+					if (moduleStartLevel > toStartLevel + 1) {
+						// skip modules who should have already been stopped
+						continue;
+					} else if (moduleStartLevel <= toStartLevel) {
+						// found all modules we are going to stop for this start level
+						break;
+					}
+					toStop.add(module);
+				} catch (IllegalStateException e) {
+					// been uninstalled
+					continue;
+				}
+			}
+			if (toStop.isEmpty()) {
+				return;
+			}
+			Map<Module, Set<Module>> requirers;
+			moduleDatabase.readLock();
+			try {
+				requirers = DependencyOrderedTasks.invert(DependencyOrderedTasks.getWiredProviders(toStop, true));
+			} finally {
+				moduleDatabase.readUnlock();
+			}
+			DependencyOrderedTasks tasks = new DependencyOrderedTasks(toStop, requirers) {
+				@Override
+				void task(Module module) {
+					if (!Module.ACTIVE_SET.contains(module.getState())) {
+						return;
+					}
+					long start = System.nanoTime();
+					try {
+						if (debugStartLevel) {
+							Debug.println("StartLevel: stopping bundle; " + ContainerStartLevel.this.toString(module) + "; with startLevel=" + module.getStartLevel()); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+						// Note that we don't need to hold the state change lock
+						// here when checking the active status because no other
+						// thread will successfully be able to start this bundle
+						// since the start-level is no longer met.
+						module.stop(StopOptions.TRANSIENT);
+					} catch (BundleException e) {
+						adaptor.publishContainerEvent(ContainerEvent.ERROR, module, e);
+					} catch (IllegalStateException e) {
+						// been uninstalled
+					} finally {
+						stopTimes.put(module, System.nanoTime() - start);
+					}
+				}
+
+				@Override
+				void timedOut(Module module) {
+					timedOut.add(module);
+					adaptor.publishContainerEvent(ContainerEvent.WARNING, module, new BundleException(NLS.bind(Msg.ModuleContainer_StopTimeout, startLevelStopTimeout, ContainerStartLevel.this.toString(module))));
+				}
+			};
+			try {
+				tasks.run(getStopExecutor(), startLevelStopTimeout > 0 ? TimeUnit.SECONDS.toNanos(startLevelStopTimeout) : 0);
+			} catch (InterruptedException e) {
+				adaptor.publishContainerEvent(ContainerEvent.ERROR, moduleDatabase.getModule(0), e);
+			}
+		}
+
+		private static final int SLOWEST_STOPS = 10;
+
+		/*
+		 * Returns the executor used to stop modules in parallel.  A thread is used for each
+		 * module stopping concurrently; a stop which does not return only blocks its own thread.
+		 */
+		private Executor getStopExecutor() {
+			synchronized (frameworkStartLevelLock) {
+				if (stopExecutor == null) {
+					ThreadFactory threadFactory = new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "Equinox start level stop thread - " + adaptor.toString()); //$NON-NLS-1$
+							t.setDaemon(true);
+							return t;
+						}
+					};
+					// idle timeout; make it short to get rid of threads quickly after use
+					stopExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory);
+				}
+				return stopExecutor;
+			}
+		}
+
+		private void reportSlowestStops(Map<Module, Long> stopTimes, Set<Module> timedOut) {
+			if (stopTimes.isEmpty() && timedOut.isEmpty()) {
+				return;
+			}
+			List<Map.Entry<Module, Long>> slowest = new ArrayList<>(stopTimes.entrySet());
+			Collections.sort(slowest, new Comparator<Map.Entry<Module, Long>>() {
+				@Override
+				public int compare(Map.Entry<Module, Long> e1, Map.Entry<Module, Long> e2) {
+					return e2.getValue().compareTo(e1.getValue());
+				}
+			});
+			StringBuilder report = new StringBuilder();
+			if (!timedOut.isEmpty()) {
+				report.append(NLS.bind(Msg.ModuleContainer_StopTimedOut, startLevelStopTimeout));
+				for (Module module : timedOut) {
+					report.append(ModuleResolver.SEPARATOR).append("  ").append(toString(module)); //$NON-NLS-1$
+				}
+				report.append(ModuleResolver.SEPARATOR);
+			}
+			report.append(Msg.ModuleContainer_SlowestStops);
+			for (Map.Entry<Module, Long> entry : slowest.subList(0, Math.min(SLOWEST_STOPS, slowest.size()))) {
+				report.append(ModuleResolver.SEPARATOR).append("  ").append(toString(entry.getKey())) //$NON-NLS-1$
+						.append(": ").append(TimeUnit.NANOSECONDS.toMillis(entry.getValue())).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if (debugStartLevel) {
+				Debug.println("StartLevel: " + report); //$NON-NLS-1$
+			}
+			adaptor.publishContainerEvent(ContainerEvent.INFO, moduleDatabase.getModule(0), new BundleException(report.toString()));
+		}
+
 		private EventManager getManager() {
 			synchronized (eventManagerLock) {
 				if (startLevelThread == null) {
@@ -19,6 +19,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import org.fdesigner.container.Module.Settings;
 import org.fdesigner.framework.framework.FrameworkListener;
+import org.fdesigner.framework.framework.hooks.resolver.ResolverHook;
 import org.fdesigner.framework.framework.hooks.resolver.ResolverHookFactory;
 import org.fdesigner.supplement.service.debug.DebugOptions;
 
@@ -157,6 +158,18 @@ public abstract class ModuleContainerAdaptor {
 	 */
 	public abstract ResolverHookFactory getResolverHookFactory();
 
+	/**
+	 * Returns the cache of resolution results to use for a resolve operation which
+	 * got the specified resolver hook from the {@link #getResolverHookFactory() resolver hook factory}.
+	 * A cache must only be returned if the resolver hook does not influence the resolution.
+	 * The default implementation returns {@code null}.
+	 * @param hook the resolver hook of the resolve operation
+	 * @return the resolution cache or {@code null} if resolution results must not be cached
+	 */
+	public ModuleResolutionCache getResolutionCache(ResolverHook hook) {
+		return null;
+	}
+
 	/**
 	 * Publishes the specified container event.
 	 * No locks are held by the container when this method is called
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.fdesigner.container;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -93,9 +95,11 @@ public class ModuleDatabase {
 	private final Map<Long, Module> modulesById;
 
 	/**
-	 * A map of revision wiring objects.
+	 * A map of revision wiring objects.  The map is only changed while holding the
+	 * {@link #writeLock() write} lock; materializing the {@link #lazyWirings lazy wirings}
+	 * replaces it with a complete map.
 	 */
-	final Map<ModuleRevision, ModuleWiring> wirings;
+	volatile Map<ModuleRevision, ModuleWiring> wirings;
 
 	/**
 	 * Holds the next id to be assigned to a module when it is installed
@@ -132,6 +136,18 @@ public class ModuleDatabase {
 	 */
 	private int initialModuleStartLevel = 1;
 
+	/**
+	 * The state of this database when it was last persisted or loaded.
+	 * Used to compute the changes written by {@link #storeDelta(DataOutputStream)}.
+	 */
+	private volatile PersistentState persistentState;
+
+	/**
+	 * The persistent wirings which have not been materialized yet or <code>null</code>
+	 * if the {@link #wirings} are complete.
+	 */
+	private volatile LazyWirings lazyWirings;
+
 	/**
 	 * Monitors read and write access to this database
 	 */
@@ -217,19 +233,8 @@ public class ModuleDatabase {
 	final Module install(String location, ModuleRevisionBuilder builder, Object revisionInfo) {
 		writeLock();
 		try {
-			int startlevel = Constants.SYSTEM_BUNDLE_LOCATION.equals(location) ? 0 : getInitialModuleStartLevel();
-			long id = Constants.SYSTEM_BUNDLE_LOCATION.equals(location) ? 0 : builder.getId();
-			if (id == -1) {
-				// the id is not set by the builder; get and increment the next ID
-				id = getAndIncrementNextId();
-			}
-			if (getModule(id) != null) {
-				throw new IllegalStateException("Duplicate module id: " + id + " used by module: " + getModule(id)); //$NON-NLS-1$//$NON-NLS-2$
-			}
-			EnumSet<Settings> settings = getActivationPolicySettings(builder);
-			Module module = load(location, builder, revisionInfo, id, settings, startlevel);
 			long currentTime = System.currentTimeMillis();
-			module.setlastModified(currentTime);
+			Module module = install0(location, builder, revisionInfo, currentTime);
 			setSystemLastModified(currentTime);
 			incrementTimestamps(true);
 			return module;
@@ -238,6 +243,53 @@ public class ModuleDatabase {
 		}
 	}
 
+	/**
+	 * Installs new revisions using the specified builders, locations and modules.
+	 * All the revisions are installed while holding the write lock once and the
+	 * timestamps of this database are only incremented once for all the revisions.
+	 * <p>
+	 * A write operation protected by the {@link #writeLock() write} lock.
+	 * @param locations the locations to use for the installations
+	 * @param builders the builders to use to create the new revisions
+	 * @param revisionInfos the revision infos for the new revisions, an element may be {@code null}.
+	 * @return the installed modules in the order of the specified locations
+	 */
+	final List<Module> install(List<String> locations, List<ModuleRevisionBuilder> builders, List<Object> revisionInfos) {
+		writeLock();
+		try {
+			long currentTime = System.currentTimeMillis();
+			List<Module> modules = new ArrayList<>(locations.size());
+			for (int i = 0; i < locations.size(); i++) {
+				modules.add(install0(locations.get(i), builders.get(i), revisionInfos.get(i), currentTime));
+			}
+			if (!modules.isEmpty()) {
+				setSystemLastModified(currentTime);
+				incrementTimestamps(true);
+			}
+			return modules;
+		} finally {
+			writeUnlock();
+		}
+	}
+
+	private Module install0(String location, ModuleRevisionBuilder builder, Object revisionInfo, long currentTime) {
+		// sanity check
+		checkWrite();
+		int startlevel = Constants.SYSTEM_BUNDLE_LOCATION.equals(location) ? 0 : getInitialModuleStartLevel();
+		long id = Constants.SYSTEM_BUNDLE_LOCATION.equals(location) ? 0 : builder.getId();
+		if (id == -1) {
+			// the id is not set by the builder; get and increment the next ID
+			id = getAndIncrementNextId();
+		}
+		if (getModule(id) != null) {
+			throw new IllegalStateException("Duplicate module id: " + id + " used by module: " + getModule(id)); //$NON-NLS-1$//$NON-NLS-2$
+		}
+		EnumSet<Settings> settings = getActivationPolicySettings(builder);
+		Module module = load(location, builder, revisionInfo, id, settings, startlevel);
+		module.setlastModified(currentTime);
+		return module;
+	}
+
 	private EnumSet<Settings> getActivationPolicySettings(ModuleRevisionBuilder builder) {
 		// do not do this for fragment bundles
 		if ((builder.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
@@ -295,6 +347,7 @@ public class ModuleDatabase {
 	final void uninstall(Module module) {
 		writeLock();
 		try {
+			materializeWirings();
 			ModuleRevisions uninstalling = module.getRevisions();
 			// mark the revisions as uninstalled before removing the revisions
 			uninstalling.uninstall();
@@ -336,6 +389,7 @@ public class ModuleDatabase {
 	final void update(Module module, ModuleRevisionBuilder builder, Object revisionInfo) {
 		writeLock();
 		try {
+			materializeWirings();
 			ModuleRevision oldRevision = module.getCurrentRevision();
 			ModuleRevision newRevision = builder.addRevision(module, revisionInfo);
 			addCapabilities(newRevision);
@@ -367,6 +421,7 @@ public class ModuleDatabase {
 	void cleanupRemovalPending() {
 		// sanity check
 		checkWrite();
+		materializeWirings();
 		Collection<ModuleRevision> removalPending = getRemovalPending();
 		for (ModuleRevision removed : removalPending) {
 			if (wirings.get(removed) == null)
@@ -432,6 +487,7 @@ public class ModuleDatabase {
 		Collection<ModuleRevision> removalPending = new ArrayList<>();
 		readLock();
 		try {
+			materializeWirings();
 			for (ModuleWiring wiring : wirings.values()) {
 				if (!wiring.isCurrent())
 					removalPending.add(wiring.getRevision());
@@ -453,6 +509,7 @@ public class ModuleDatabase {
 	final ModuleWiring getWiring(ModuleRevision revision) {
 		readLock();
 		try {
+			materializeWirings();
 			return wirings.get(revision);
 		} finally {
 			readUnlock();
@@ -469,6 +526,7 @@ public class ModuleDatabase {
 	final Map<ModuleRevision, ModuleWiring> getWiringsCopy() {
 		readLock();
 		try {
+			materializeWirings();
 			return new HashMap<>(wirings);
 		} finally {
 			readUnlock();
@@ -497,6 +555,7 @@ public class ModuleDatabase {
 	final Map<ModuleRevision, ModuleWiring> getWiringsClone() {
 		readLock();
 		try {
+			materializeWirings();
 			Map<ModuleRevision, ModuleWiring> clonedWirings = new HashMap<>();
 			for (Map.Entry<ModuleRevision, ModuleWiring> entry : wirings.entrySet()) {
 				ModuleWiring wiring = new ModuleWiring(entry.getKey(), entry.getValue().getModuleCapabilities(null), entry.getValue().getModuleRequirements(null), entry.getValue().getProvidedModuleWires(null), entry.getValue().getRequiredModuleWires(null), entry.getValue().getSubstitutedNames());
@@ -518,6 +577,8 @@ public class ModuleDatabase {
 	final void setWiring(Map<ModuleRevision, ModuleWiring> newWiring) {
 		writeLock();
 		try {
+			// the lazy wirings get replaced
+			lazyWirings = null;
 			wirings.clear();
 			wirings.putAll(newWiring);
 			incrementTimestamps(true);
@@ -537,6 +598,7 @@ public class ModuleDatabase {
 	final void mergeWiring(Map<ModuleRevision, ModuleWiring> deltaWiring) {
 		writeLock();
 		try {
+			materializeWirings();
 			wirings.putAll(deltaWiring);
 			incrementTimestamps(true);
 		} finally {
@@ -819,7 +881,8 @@ public class ModuleDatabase {
 	final void addCapabilities(ModuleRevision revision) {
 		checkWrite();
 		Collection<String> packageNames = capabilities.addCapabilities(revision);
-		// Clear the dynamic miss caches for all the package names added
+		// Clear the dynamic miss caches for all the package names added;
+		// wirings which are not materialized yet have no dynamic misses
 		for (ModuleWiring wiring : wirings.values()) {
 			wiring.removeDynamicPackageMisses(packageNames);
 		}
@@ -879,6 +942,7 @@ public class ModuleDatabase {
 	public final void store(DataOutputStream out, boolean persistWirings) throws IOException {
 		readLock();
 		try {
+			materializeWirings();
 			Persistence.store(this, out, persistWirings);
 		} finally {
 			readUnlock();
@@ -906,11 +970,235 @@ public class ModuleDatabase {
 			if (allTimeStamp.get() != constructionTime)
 				throw new IllegalStateException("Can only load into a empty database."); //$NON-NLS-1$
 			Persistence.load(this, in);
+			persistentState = new PersistentState(this);
+		} finally {
+			writeUnlock();
+		}
+	}
+
+	/**
+	 * Writes the changes made to this database since the state recorded by the last call
+	 * to {@link #markPersisted()}, {@link #load(DataInputStream)} or {@link #loadDelta(DataInputStream)}.
+	 * The changes may be applied to a database holding the recorded state with the
+	 * {@link #loadDelta(DataInputStream)} method.  Changes can only be written
+	 * if a state has been recorded and there are no {@link #getRemovalPending()
+	 * removal pending} revisions.  If changes cannot be written then 
+	 * <code>false</code> is returned and the complete database must be
+	 * {@link #store(DataOutputStream, boolean) stored} instead.  In this case
+	 * the content written to the output stream must be discarded.
+	 * <p>
+	 * This method acquires the {@link #readLock() read} lock while writing the
+	 * changes.
+	 * @param out the data output steam.
+	 * @return true if the changes got written
+	 * @throws IOException if writing to the specified output stream throws an IOException
+	 */
+	public final boolean storeDelta(DataOutputStream out) throws IOException {
+		readLock();
+		try {
+			materializeWirings();
+			PersistentState current = persistentState;
+			if (current == null || !getRemovalPending().isEmpty()) {
+				return false;
+			}
+			Persistence.storeDelta(this, current, out);
+			return true;
+		} finally {
+			readUnlock();
+		}
+	}
+
+	/**
+	 * Records the current state of this database as the persistent state.
+	 * This method must be called after the output of {@link #store(DataOutputStream, boolean)}
+	 * or {@link #storeDelta(DataOutputStream)} has been successfully persisted.  The
+	 * caller must hold the {@link #readLock() read} lock since the output got written
+	 * to ensure the recorded state is the state that got written.
+	 */
+	public final void markPersisted() {
+		readLock();
+		try {
+			persistentState = getRemovalPending().isEmpty() ? new PersistentState(this) : null;
+		} finally {
+			readUnlock();
+		}
+	}
+
+	/**
+	 * Applies the changes written by {@link #storeDelta(DataOutputStream)} to this database.
+	 * This database must hold the state the changes were computed against.  This
+	 * method is intended to be used while loading a database, before the database is
+	 * in use by a container.
+	 * <p>
+	 * Since this method modifies this database it is considered a write operation.
+	 * This method acquires the {@link #writeLock() write} lock while applying the changes.
+	 * @param in the data input stream.
+	 * @throws IOException if an error occurred when reading from the input stream.
+	 */
+	public final void loadDelta(DataInputStream in) throws IOException {
+		writeLock();
+		try {
+			materializeWirings();
+			Persistence.loadDelta(this, in);
+			persistentState = new PersistentState(this);
 		} finally {
 			writeUnlock();
 		}
 	}
 
+	/**
+	 * Removes a module and all its revisions and wirings without any of the
+	 * bookkeeping done by {@link #uninstall(Module)}.  Used while loading
+	 * changes into this database.
+	 */
+	final void removeForLoad(long id) {
+		checkWrite();
+		Module module = modulesById.remove(id);
+		if (module == null) {
+			return;
+		}
+		materializeWirings();
+		modulesByLocations.remove(module.getLocation());
+		moduleSettings.remove(id);
+		for (ModuleRevision revision : module.getRevisions().getModuleRevisions()) {
+			wirings.remove(revision);
+			removeCapabilities(revision);
+			module.getRevisions().removeRevision(revision);
+		}
+	}
+
+	/**
+	 * Materializes the {@link #lazyWirings lazy wirings} into the {@link #wirings}.
+	 * Must be called while holding the {@link #readLock() read} or {@link #writeLock() write}
+	 * lock before accessing the wirings.  Multiple readers may call this method
+	 * concurrently; the wirings are only materialized once and are complete for
+	 * all callers when this method returns.  Since readers may hold the read lock
+	 * only, the wirings are not changed in place; a complete map is published
+	 * instead.  If the wirings fail to load they stay lazy and loading them is
+	 * tried again by the next access.
+	 */
+	private void materializeWirings() {
+		LazyWirings lazy = lazyWirings;
+		if (lazy == null) {
+			return;
+		}
+		synchronized (lazy) {
+			if (lazyWirings == null) {
+				return;
+			}
+			Map<ModuleRevision, ModuleWiring> loaded;
+			try {
+				loaded = lazy.load();
+			} catch (IOException e) {
+				throw new IllegalStateException("Error loading the persistent wirings.", e); //$NON-NLS-1$
+			}
+			Map<ModuleRevision, ModuleWiring> materialized = new HashMap<>(wirings);
+			materialized.putAll(loaded);
+			PersistentState state = persistentState;
+			if (state != null) {
+				// the state got recorded while the wirings were not materialized
+				persistentState = new PersistentState(state, loaded.values());
+			}
+			wirings = materialized;
+			lazyWirings = null;
+		}
+	}
+
+	/**
+	 * The persistent wirings of a database which are read from the persistent
+	 * data when the wirings are first accessed.  Most wirings are not looked at
+	 * while launching a framework so reading them up front only delays the launch.
+	 */
+	static final class LazyWirings {
+		private final List<Object> objectTable;
+		private final int numWirings;
+		private final byte[] data;
+
+		LazyWirings(List<Object> objectTable, int numWirings, byte[] data) {
+			this.objectTable = objectTable;
+			this.numWirings = numWirings;
+			this.data = data;
+		}
+
+		Map<ModuleRevision, ModuleWiring> load() throws IOException {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			try {
+				// reading the wirings adds the wires to the table; keep the table intact for a retry
+				return Persistence.readWirings(in, new ArrayList<>(objectTable), numWirings);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * A snapshot of the persistent parts of a database used to compute
+	 * the changes made to a database since it was last persisted.
+	 */
+	static final class PersistentState {
+		final Map<Long, ModuleState> modules = new HashMap<>();
+		final Map<ModuleRevision, WiringState> wirings = new HashMap<>();
+
+		PersistentState(ModuleDatabase moduleDatabase) {
+			for (Module module : moduleDatabase.modulesById.values()) {
+				ModuleRevision current = module.getCurrentRevision();
+				if (current != null) {
+					modules.put(module.getId(), new ModuleState(module, current, moduleDatabase.moduleSettings.get(module.getId())));
+				}
+			}
+			for (ModuleWiring wiring : moduleDatabase.wirings.values()) {
+				wirings.put(wiring.getRevision(), new WiringState(wiring));
+			}
+		}
+
+		PersistentState(PersistentState state, Collection<ModuleWiring> added) {
+			modules.putAll(state.modules);
+			wirings.putAll(state.wirings);
+			for (ModuleWiring wiring : added) {
+				wirings.put(wiring.getRevision(), new WiringState(wiring));
+			}
+		}
+	}
+
+	static final class ModuleState {
+		final ModuleRevision revision;
+		final EnumSet<Settings> settings;
+		final int startlevel;
+		final long lastModified;
+
+		ModuleState(Module module, ModuleRevision revision, EnumSet<Settings> settings) {
+			this.revision = revision;
+			this.settings = settings == null ? EnumSet.noneOf(Settings.class) : EnumSet.copyOf(settings);
+			this.startlevel = module.getStartLevel();
+			this.lastModified = module.getLastModified();
+		}
+
+		boolean isUnchanged(Module module, EnumSet<Settings> currentSettings) {
+			return startlevel == module.getStartLevel() && lastModified == module.getLastModified() && settings.equals(currentSettings == null ? EnumSet.noneOf(Settings.class) : currentSettings);
+		}
+	}
+
+	static final class WiringState {
+		final List<ModuleCapability> capabilities;
+		final List<ModuleRequirement> requirements;
+		final List<ModuleWire> providedWires;
+		final List<ModuleWire> requiredWires;
+		final Collection<String> substituted;
+
+		WiringState(ModuleWiring wiring) {
+			this.capabilities = wiring.getModuleCapabilities(null);
+			this.requirements = wiring.getPersistentRequirements();
+			this.providedWires = wiring.getPersistentProvidedWires();
+			this.requiredWires = wiring.getPersistentRequiredWires();
+			this.substituted = new ArrayList<>(wiring.getSubstitutedNames());
+		}
+
+		boolean isUnchanged(ModuleWiring wiring) {
+			// all the elements use identity for equals
+			return capabilities.equals(wiring.getModuleCapabilities(null)) && requirements.equals(wiring.getPersistentRequirements()) && providedWires.equals(wiring.getPersistentProvidedWires()) && requiredWires.equals(wiring.getPersistentRequiredWires()) && substituted.equals(new ArrayList<>(wiring.getSubstitutedNames()));
+		}
+	}
+
 	final void persistSettings(EnumSet<Settings> settings, Module module) {
 		writeLock();
 		try {
@@ -955,7 +1243,9 @@ public class ModuleDatabase {
 	}
 
 	private static class Persistence {
-		private static final int VERSION = 3;
+		private static final int VERSION = 4;
+		// the first version which writes the wirings as a separate section which is loaded lazily
+		private static final int LAZY_WIRINGS_VERSION = 4;
 		private static final byte NULL = 0;
 		private static final byte OBJECT = 1;
 		private static final byte INDEX = 2;
@@ -1003,19 +1293,378 @@ public class ModuleDatabase {
 			out.writeLong(moduleDatabase.getNextId());
 			out.writeInt(moduleDatabase.getInitialModuleStartLevel());
 
+			List<Module> modules = moduleDatabase.getModules();
+			Map<ModuleRevision, ModuleWiring> wirings = moduleDatabase.wirings;
 			// prime the object table with all the strings, versions and maps
+			Map<Object, Integer> objectTable = writeObjectTable(modules, wirings.values(), moduleDatabase, out);
+
+			// Followed by modules which reference the strings, versions, and maps
+			out.writeInt(modules.size());
+			for (Module module : modules) {
+				writeModule(module, moduleDatabase, out, objectTable);
+			}
+
+			Collection<ModuleRevision> removalPendings = moduleDatabase.getRemovalPending();
+			// only persist wirings if there are no removals pending
+			persistWirings &= removalPendings.isEmpty();
+			out.writeBoolean(persistWirings);
+			if (!persistWirings) {
+				return;
+			}
+
+			// write the resolved revisions so the module states are known without reading the wirings
+			out.writeInt(wirings.size());
+			for (ModuleWiring wiring : wirings.values()) {
+				Integer revisionIndex = objectTable.get(wiring.getRevision());
+				if (revisionIndex == null)
+					throw new NullPointerException("Could not find revision for wiring."); //$NON-NLS-1$
+				out.writeInt(revisionIndex);
+			}
+
+			// write the wirings as a separate section with its length so it can be loaded lazily
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream wiringsOut = new DataOutputStream(bytes);
+			try {
+				writeWirings(wirings.values(), wiringsOut, objectTable);
+			} finally {
+				wiringsOut.close();
+			}
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+
+			out.flush();
+		}
+
+		private static void writeWirings(Collection<ModuleWiring> wirings, DataOutputStream out, Map<Object, Integer> objectTable) throws IOException {
+			// prime the object table with all the required wires which reference the modules
+			for (ModuleWiring wiring : wirings) {
+				List<ModuleWire> requiredWires = wiring.getPersistentRequiredWires();
+				out.writeInt(requiredWires.size());
+				for (ModuleWire wire : requiredWires) {
+					writeWire(wire, out, objectTable);
+				}
+			}
+
+			// now write all the info about each wiring using only indexes from the objectTable
+			for (ModuleWiring wiring : wirings) {
+				writeWiring(wiring, out, objectTable);
+			}
+		}
+
+		static Map<ModuleRevision, ModuleWiring> readWirings(DataInputStream in, List<Object> objectTable, int numWirings) throws IOException {
+			// prime the table with all the required wires
+			for (int i = 0; i < numWirings; i++) {
+				int numWires = in.readInt();
+				for (int j = 0; j < numWires; j++) {
+					readWire(in, objectTable);
+				}
+			}
+
+			// now read all the info about each wiring using only indexes
+			Map<ModuleRevision, ModuleWiring> wirings = new HashMap<>();
+			for (int i = 0; i < numWirings; i++) {
+				ModuleWiring wiring = readWiring(in, objectTable);
+				wirings.put(wiring.getRevision(), wiring);
+			}
+			return wirings;
+		}
+
+		public static void storeDelta(ModuleDatabase moduleDatabase, PersistentState persistentState, DataOutputStream out) throws IOException {
+			out.writeInt(VERSION);
+			out.writeLong(moduleDatabase.getRevisionsTimestamp());
+			out.writeLong(moduleDatabase.getTimestamp());
+			out.writeLong(moduleDatabase.getNextId());
+			out.writeInt(moduleDatabase.getInitialModuleStartLevel());
+
+			// find the modules that got added, replaced by an update, removed or had their settings changed
+			List<Module> added = new ArrayList<>();
+			List<Module> changed = new ArrayList<>();
+			List<Long> removed = new ArrayList<>();
+			Set<Long> currentIds = new HashSet<>();
+			for (Module module : moduleDatabase.getModules()) {
+				ModuleRevision current = module.getCurrentRevision();
+				if (current == null) {
+					continue;
+				}
+				currentIds.add(module.getId());
+				ModuleState state = persistentState.modules.get(module.getId());
+				if (state == null || state.revision != current) {
+					if (state != null) {
+						// the module got updated; replace the module
+						removed.add(module.getId());
+					}
+					added.add(module);
+				} else if (!state.isUnchanged(module, moduleDatabase.moduleSettings.get(module.getId()))) {
+					changed.add(module);
+				}
+			}
+			for (Long id : persistentState.modules.keySet()) {
+				if (!currentIds.contains(id)) {
+					removed.add(id);
+				}
+			}
+
+			out.writeInt(removed.size());
+			for (Long id : removed) {
+				out.writeLong(id);
+			}
+
+			// the added modules use their own object table
+			Map<Object, Integer> objectTable = writeObjectTable(added, Collections.<ModuleWiring> emptyList(), moduleDatabase, out);
+			out.writeInt(added.size());
+			for (Module module : added) {
+				writeModule(module, moduleDatabase, out, objectTable);
+			}
+
+			out.writeInt(changed.size());
+			for (Module module : changed) {
+				out.writeLong(module.getId());
+				EnumSet<Settings> settings = moduleDatabase.moduleSettings.get(module.getId());
+				out.writeInt(settings == null ? 0 : settings.size());
+				if (settings != null) {
+					for (Settings setting : settings) {
+						out.writeUTF(setting.name());
+					}
+				}
+				out.writeInt(module.getStartLevel());
+				out.writeLong(module.getLastModified());
+			}
+
+			// find the wirings that got removed from revisions that are still current and the wirings that changed
+			Map<ModuleRevision, ModuleWiring> wirings = moduleDatabase.wirings;
+			List<Long> unresolved = new ArrayList<>();
+			for (ModuleRevision revision : persistentState.wirings.keySet()) {
+				if (revision.isCurrent() && !wirings.containsKey(revision)) {
+					unresolved.add(revision.getRevisions().getModule().getId());
+				}
+			}
+			List<ModuleWiring> changedWirings = new ArrayList<>();
+			for (ModuleWiring wiring : wirings.values()) {
+				WiringState state = persistentState.wirings.get(wiring.getRevision());
+				if (state == null || !state.isUnchanged(wiring)) {
+					changedWirings.add(wiring);
+				}
+			}
+
+			out.writeInt(unresolved.size());
+			for (Long id : unresolved) {
+				out.writeLong(id);
+			}
+
+			// the changed wirings reference revisions by module id and capabilities and requirements
+			// by their index in the declaring revision since they may belong to modules not written
+			Map<ModuleRevision, Map<Object, Integer>> indexes = new HashMap<>();
+			out.writeInt(changedWirings.size());
+			for (ModuleWiring wiring : changedWirings) {
+				writeRevisionRef(wiring.getRevision(), out);
+				List<ModuleCapability> capabilities = wiring.getModuleCapabilities(null);
+				out.writeInt(capabilities.size());
+				for (ModuleCapability capability : capabilities) {
+					writeDeclarationRef(capability, capability.getRevision(), out, indexes);
+				}
+				List<ModuleRequirement> requirements = wiring.getPersistentRequirements();
+				out.writeInt(requirements.size());
+				for (ModuleRequirement requirement : requirements) {
+					writeDeclarationRef(requirement, requirement.getRevision(), out, indexes);
+				}
+				List<ModuleWire> providedWires = wiring.getPersistentProvidedWires();
+				out.writeInt(providedWires.size());
+				for (ModuleWire wire : providedWires) {
+					writeWireRef(wire, out, indexes);
+				}
+				List<ModuleWire> requiredWires = wiring.getPersistentRequiredWires();
+				out.writeInt(requiredWires.size());
+				for (ModuleWire wire : requiredWires) {
+					writeWireRef(wire, out, indexes);
+				}
+				Collection<String> substituted = wiring.getSubstitutedNames();
+				out.writeInt(substituted.size());
+				for (String pkgName : substituted) {
+					writeString(pkgName, out, objectTable);
+				}
+			}
+
+			out.flush();
+		}
+
+		private static void writeRevisionRef(ModuleRevision revision, DataOutputStream out) throws IOException {
+			if (!revision.isCurrent())
+				throw new IllegalStateException("Can only reference current revisions: " + revision); //$NON-NLS-1$
+			out.writeLong(revision.getRevisions().getModule().getId());
+		}
+
+		private static void writeDeclarationRef(Object declaration, ModuleRevision declaringRevision, DataOutputStream out, Map<ModuleRevision, Map<Object, Integer>> indexes) throws IOException {
+			Map<Object, Integer> revisionIndexes = indexes.get(declaringRevision);
+			if (revisionIndexes == null) {
+				revisionIndexes = new HashMap<>();
+				List<ModuleCapability> capabilities = declaringRevision.getModuleCapabilities(null);
+				for (int i = 0; i < capabilities.size(); i++) {
+					revisionIndexes.put(capabilities.get(i), Integer.valueOf(i));
+				}
+				List<ModuleRequirement> requirements = declaringRevision.getModuleRequirements(null);
+				for (int i = 0; i < requirements.size(); i++) {
+					revisionIndexes.put(requirements.get(i), Integer.valueOf(i));
+				}
+				indexes.put(declaringRevision, revisionIndexes);
+			}
+			Integer index = revisionIndexes.get(declaration);
+			if (index == null)
+				throw new NullPointerException("Could not find the expected indexes"); //$NON-NLS-1$
+			writeRevisionRef(declaringRevision, out);
+			out.writeInt(index);
+		}
+
+		private static void writeWireRef(ModuleWire wire, DataOutputStream out, Map<ModuleRevision, Map<Object, Integer>> indexes) throws IOException {
+			writeDeclarationRef(wire.getCapability(), wire.getCapability().getRevision(), out, indexes);
+			writeRevisionRef(wire.getProvider(), out);
+			writeDeclarationRef(wire.getRequirement(), wire.getRequirement().getRevision(), out, indexes);
+			writeRevisionRef(wire.getRequirer(), out);
+		}
+
+		public static void loadDelta(ModuleDatabase moduleDatabase, DataInputStream in) throws IOException {
+			int version = in.readInt();
+			if (version > VERSION || VERSION / 1000 != version / 1000)
+				throw new IllegalArgumentException("The version of the persistent framework data is not compatible: " + version + " expecting: " + VERSION); //$NON-NLS-1$ //$NON-NLS-2$
+			long revisionsTimeStamp = in.readLong();
+			long allTimeStamp = in.readLong();
+			moduleDatabase.nextId.set(in.readLong());
+			moduleDatabase.setInitialModuleStartLevel(in.readInt());
+
+			int numRemoved = in.readInt();
+			for (int i = 0; i < numRemoved; i++) {
+				moduleDatabase.removeForLoad(in.readLong());
+			}
+
+			List<Object> objectTable = new ArrayList<>();
+			readObjectTable(in, objectTable);
+			int numAdded = in.readInt();
+			ModuleRevisionBuilder builder = new ModuleRevisionBuilder();
+			for (int i = 0; i < numAdded; i++) {
+				readModule(builder, moduleDatabase, in, objectTable, version);
+			}
+
+			int numChanged = in.readInt();
+			for (int i = 0; i < numChanged; i++) {
+				Module module = getModuleRef(moduleDatabase, in.readLong());
+				EnumSet<Settings> settings = EnumSet.noneOf(Settings.class);
+				int numSettings = in.readInt();
+				for (int j = 0; j < numSettings; j++) {
+					settings.add(Settings.valueOf(in.readUTF()));
+				}
+				if (settings.isEmpty()) {
+					moduleDatabase.moduleSettings.remove(module.getId());
+				} else {
+					moduleDatabase.moduleSettings.put(module.getId(), settings);
+				}
+				module.storeSettings(settings);
+				module.storeStartLevel(in.readInt());
+				module.setlastModified(in.readLong());
+			}
+
+			Map<ModuleRevision, ModuleWiring> wirings = moduleDatabase.wirings;
+			int numUnresolved = in.readInt();
+			for (int i = 0; i < numUnresolved; i++) {
+				ModuleRevision revision = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+				wirings.remove(revision);
+				revision.getRevisions().getModule().setState(State.INSTALLED);
+			}
+
+			// wires are shared between the provider and requirer wirings; reuse the existing
+			// wires for wirings which did not change
+			Map<List<Object>, ModuleWire> existingWires = new HashMap<>();
+			for (ModuleWiring wiring : wirings.values()) {
+				for (ModuleWire wire : wiring.getPersistentRequiredWires()) {
+					existingWires.put(getWireKey(wire.getCapability(), wire.getProvider(), wire.getRequirement(), wire.getRequirer()), wire);
+				}
+			}
+			int numWirings = in.readInt();
+			Map<ModuleRevision, ModuleWiring> changedWirings = new HashMap<>(numWirings);
+			for (int i = 0; i < numWirings; i++) {
+				ModuleRevision revision = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+				int numCapabilities = in.readInt();
+				List<ModuleCapability> capabilities = new ArrayList<>(numCapabilities);
+				for (int j = 0; j < numCapabilities; j++) {
+					capabilities.add(readCapabilityRef(moduleDatabase, in));
+				}
+				int numRequirements = in.readInt();
+				List<ModuleRequirement> requirements = new ArrayList<>(numRequirements);
+				for (int j = 0; j < numRequirements; j++) {
+					requirements.add(readRequirementRef(moduleDatabase, in));
+				}
+				int numProvidedWires = in.readInt();
+				List<ModuleWire> providedWires = new ArrayList<>(numProvidedWires);
+				for (int j = 0; j < numProvidedWires; j++) {
+					providedWires.add(readWireRef(moduleDatabase, in, existingWires));
+				}
+				int numRequiredWires = in.readInt();
+				List<ModuleWire> requiredWires = new ArrayList<>(numRequiredWires);
+				for (int j = 0; j < numRequiredWires; j++) {
+					requiredWires.add(readWireRef(moduleDatabase, in, existingWires));
+				}
+				int numSubstitutedNames = in.readInt();
+				Collection<String> substituted = new ArrayList<>(numSubstitutedNames);
+				for (int j = 0; j < numSubstitutedNames; j++) {
+					substituted.add(readString(in, objectTable));
+				}
+				changedWirings.put(revision, new ModuleWiring(revision, capabilities, requirements, providedWires, requiredWires, substituted));
+			}
+			wirings.putAll(changedWirings);
+			for (ModuleWiring wiring : changedWirings.values()) {
+				wiring.getRevision().getRevisions().getModule().setState(State.RESOLVED);
+			}
+
+			// Setting the timestamp at the end since some operations increment it
+			moduleDatabase.revisionsTimeStamp.set(revisionsTimeStamp);
+			moduleDatabase.allTimeStamp.set(allTimeStamp);
+		}
+
+		private static Module getModuleRef(ModuleDatabase moduleDatabase, long id) throws IOException {
+			Module module = moduleDatabase.modulesById.get(id);
+			if (module == null)
+				throw new IOException("Could not find the module with id: " + id); //$NON-NLS-1$
+			return module;
+		}
+
+		private static ModuleCapability readCapabilityRef(ModuleDatabase moduleDatabase, DataInputStream in) throws IOException {
+			ModuleRevision revision = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+			return revision.getModuleCapabilities(null).get(in.readInt());
+		}
+
+		private static ModuleRequirement readRequirementRef(ModuleDatabase moduleDatabase, DataInputStream in) throws IOException {
+			ModuleRevision revision = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+			return revision.getModuleRequirements(null).get(in.readInt());
+		}
+
+		private static ModuleWire readWireRef(ModuleDatabase moduleDatabase, DataInputStream in, Map<List<Object>, ModuleWire> existingWires) throws IOException {
+			ModuleCapability capability = readCapabilityRef(moduleDatabase, in);
+			ModuleRevision provider = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+			ModuleRequirement requirement = readRequirementRef(moduleDatabase, in);
+			ModuleRevision requirer = getModuleRef(moduleDatabase, in.readLong()).getCurrentRevision();
+			List<Object> key = getWireKey(capability, provider, requirement, requirer);
+			ModuleWire result = existingWires.get(key);
+			if (result == null) {
+				result = new ModuleWire(capability, provider, requirement, requirer);
+				existingWires.put(key, result);
+			}
+			return result;
+		}
+
+		private static List<Object> getWireKey(ModuleCapability capability, ModuleRevision provider, ModuleRequirement requirement, ModuleRevision requirer) {
+			// all the elements use identity for equals
+			return Arrays.<Object> asList(capability, provider, requirement, requirer);
+		}
+
+		private static Map<Object, Integer> writeObjectTable(Collection<Module> modules, Collection<ModuleWiring> wirings, ModuleDatabase moduleDatabase, DataOutputStream out) throws IOException {
 			Set<String> allStrings = new HashSet<>();
 			Set<Version> allVersions = new HashSet<>();
 			Set<Map<String, ?>> allMaps = new HashSet<>();
 
 			// first gather all the strings, versions and maps from the modules
-			List<Module> modules = moduleDatabase.getModules();
 			for (Module module : modules) {
 				getStringsVersionsAndMaps(module, moduleDatabase, allStrings, allVersions, allMaps);
 			}
 			// outside of the modules the wirings have 'substituted' packages strings
-			Map<ModuleRevision, ModuleWiring> wirings = moduleDatabase.wirings;
-			for (ModuleWiring wiring : wirings.values()) {
+			for (ModuleWiring wiring : wirings) {
 				Collection<String> substituted = wiring.getSubstitutedNames();
 				allStrings.addAll(substituted);
 			}
@@ -1040,37 +1689,22 @@ public class ModuleDatabase {
 				writeMap(map, out, objectTable, moduleDatabase);
 				out.writeInt(addToWriteTable(map, objectTable));
 			}
+			return objectTable;
+		}
 
-			// Followed by modules which reference the strings, versions, and maps
-			out.writeInt(modules.size());
-			for (Module module : modules) {
-				writeModule(module, moduleDatabase, out, objectTable);
-			}
-
-			Collection<ModuleRevision> removalPendings = moduleDatabase.getRemovalPending();
-			// only persist wirings if there are no removals pending
-			persistWirings &= removalPendings.isEmpty();
-			out.writeBoolean(persistWirings);
-			if (!persistWirings) {
-				return;
+		private static void readObjectTable(DataInputStream in, List<Object> objectTable) throws IOException {
+			int numStrings = in.readInt();
+			for (int i = 0; i < numStrings; i++) {
+				readIndexedString(in, objectTable);
 			}
-
-			// prime the object table with all the required wires which reference the modules
-			out.writeInt(wirings.size());
-			for (ModuleWiring wiring : wirings.values()) {
-				List<ModuleWire> requiredWires = wiring.getPersistentRequiredWires();
-				out.writeInt(requiredWires.size());
-				for (ModuleWire wire : requiredWires) {
-					writeWire(wire, out, objectTable);
-				}
+			int numVersions = in.readInt();
+			for (int i = 0; i < numVersions; i++) {
+				readIndexedVersion(in, objectTable);
 			}
-
-			// now write all the info about each wiring using only indexes from the objectTable
-			for (ModuleWiring wiring : wirings.values()) {
-				writeWiring(wiring, out, objectTable);
+			int numMaps = in.readInt();
+			for (int i = 0; i < numMaps; i++) {
+				readIndexedMap(in, objectTable);
 			}
-
-			out.flush();
 		}
 
 		private static void getStringsVersionsAndMaps(Module module, ModuleDatabase moduleDatabase, Set<String> allStrings, Set<Version> allVersions, Set<Map<String, ?>> allMaps) {
@@ -1147,18 +1781,7 @@ public class ModuleDatabase {
 			List<Object> objectTable = new ArrayList<>();
 
 			if (version >= 2) {
-				int numStrings = in.readInt();
-				for (int i = 0; i < numStrings; i++) {
-					readIndexedString(in, objectTable);
-				}
-				int numVersions = in.readInt();
-				for (int i = 0; i < numVersions; i++) {
-					readIndexedVersion(in, objectTable);
-				}
-				int numMaps = in.readInt();
-				for (int i = 0; i < numMaps; i++) {
-					readIndexedMap(in, objectTable);
-				}
+				readObjectTable(in, objectTable);
 			}
 			int numModules = in.readInt();
 			ModuleRevisionBuilder builder = new ModuleRevisionBuilder();
@@ -1172,20 +1795,21 @@ public class ModuleDatabase {
 				return; // no wires persisted
 
 			int numWirings = in.readInt();
-			// prime the table with all the required wires
-			for (int i = 0; i < numWirings; i++) {
-				int numWires = in.readInt();
-				for (int j = 0; j < numWires; j++) {
-					readWire(in, objectTable);
+			if (version >= LAZY_WIRINGS_VERSION) {
+				// need to set the resolution state of the modules
+				for (int i = 0; i < numWirings; i++) {
+					ModuleRevision revision = (ModuleRevision) objectTable.get(in.readInt());
+					if (revision == null)
+						throw new NullPointerException("Could not find revision for wiring."); //$NON-NLS-1$
+					revision.getRevisions().getModule().setState(State.RESOLVED);
 				}
+				// only read the bytes of the wirings; they get materialized on first access
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				moduleDatabase.lazyWirings = new LazyWirings(objectTable, numWirings, data);
+				return;
 			}
-
-			// now read all the info about each wiring using only indexes
-			Map<ModuleRevision, ModuleWiring> wirings = new HashMap<>();
-			for (int i = 0; i < numWirings; i++) {
-				ModuleWiring wiring = readWiring(in, objectTable);
-				wirings.put(wiring.getRevision(), wiring);
-			}
+			Map<ModuleRevision, ModuleWiring> wirings = readWirings(in, objectTable, numWirings);
 			// TODO need to do this without incrementing the timestamp
 			moduleDatabase.setWiring(wirings);
 
@@ -1505,7 +2129,8 @@ public class ModuleDatabase {
 				}
 				result = Collections.unmodifiableMap(result);
 			}
-			return result;
+			// share equal maps with the revisions installed while the framework is running
+			return ObjectPool.intern(result);
 		}
 
 		private static Object readMapValue(DataInputStream in, int type, List<Object> objectTable) throws IOException {
@@ -0,0 +1,560 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fdesigner.framework.resource.Resource;
+import org.fdesigner.framework.resource.Wire;
+
+/**
+ * A cache of the results of resolve operations.  A result is keyed by a SHA-256 digest
+ * of the input of the resolve operation.  The digest is computed by the resolver
+ * from the content of the revisions, the existing wirings and the revisions which are
+ * disabled for the resolve operation.  A cached result refers to capabilities and
+ * requirements by the id of the module and their index in the declaring revision
+ * which allows the cache to be persisted and reused after a restart of the container.
+ * <p>
+ * The digest of the content of a revision and of the required wires of a wiring
+ * is computed once and reused by all resolve operations.  The resolver only
+ * computes the key of a resolve operation to look up a result if a result got
+ * cached for the same root revisions.
+ * <p>
+ * A cached result is validated before it is used.  If any referenced revision no
+ * longer exists, has different content or a requirement no longer matches the
+ * wired capability then the result is discarded and the resolver is used.
+ * @since 3.16
+ */
+public final class ModuleResolutionCache {
+	private static final int CACHE_VERSION = 2;
+	private static final int MAX_ENTRIES = 100;
+	private static final String DIGEST_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	private static final Comparator<byte[]> DIGEST_ORDER = new Comparator<byte[]>() {
+		@Override
+		public int compare(byte[] d1, byte[] d2) {
+			for (int i = 0; i < d1.length && i < d2.length; i++) {
+				if (d1[i] != d2[i]) {
+					return (d1[i] & 0xFF) - (d2[i] & 0xFF);
+				}
+			}
+			return d1.length - d2.length;
+		}
+	};
+
+	/**
+	 * The key of a resolve operation.
+	 */
+	static final class Key {
+		final long roots;
+		final byte[] digest;
+
+		Key(long roots, byte[] digest) {
+			this.roots = roots;
+			this.digest = digest;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(digest, ((Key) obj).digest);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(digest);
+		}
+	}
+
+	/**
+	 * Builds the key of a resolve operation.
+	 */
+	final class KeyBuilder {
+		private final long roots;
+		private final MessageDigest digest;
+		private final Map<Long, byte[]> revisions = new TreeMap<>();
+		private final List<byte[]> wirings = new ArrayList<>();
+
+		KeyBuilder(long roots, MessageDigest digest) {
+			this.roots = roots;
+			this.digest = digest;
+		}
+
+		/**
+		 * Adds a current revision with its state for the resolve operation.
+		 * @param revision the revision
+		 * @param state the state of the revision for the resolve operation
+		 */
+		void addRevision(ModuleRevision revision, int state) {
+			byte[] contentDigest = getContentDigest(revision);
+			byte[] record = Arrays.copyOf(contentDigest, contentDigest.length + 1);
+			record[contentDigest.length] = (byte) state;
+			revisions.put(revision.getRevisions().getModule().getId(), record);
+		}
+
+		/**
+		 * Adds an existing wiring for the resolve operation.
+		 * @param wiring the wiring
+		 */
+		void addWiring(ModuleWiring wiring) {
+			wirings.add(getWiringDigest(wiring));
+		}
+
+		Key build() {
+			for (Map.Entry<Long, byte[]> revision : revisions.entrySet()) {
+				update(digest, revision.getKey().longValue());
+				digest.update(revision.getValue());
+			}
+			// the order of the wirings does not matter
+			byte[][] sorted = wirings.toArray(new byte[wirings.size()][]);
+			Arrays.sort(sorted, DIGEST_ORDER);
+			for (byte[] wiring : sorted) {
+				digest.update(wiring);
+			}
+			return new Key(roots, digest.digest());
+		}
+	}
+
+	/**
+	 * The digest of the required wires of a wiring.  Dynamic wires may be added
+	 * to a wiring; the digest is only valid for the number of required wires it
+	 * got computed for.
+	 */
+	private static final class WiringDigest {
+		final int numRequiredWires;
+		final byte[] digest;
+
+		WiringDigest(int numRequiredWires, byte[] digest) {
+			this.numRequiredWires = numRequiredWires;
+			this.digest = digest;
+		}
+	}
+
+	private final Map<Key, byte[]> entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	/* @GuardedBy("this") */
+	private final Set<Long> cachedRoots = new HashSet<>();
+	private final Map<ModuleRevision, byte[]> contentDigests = new WeakHashMap<>();
+	private final Map<ModuleWiring, WiringDigest> wiringDigests = new WeakHashMap<>();
+	/* @GuardedBy("this") */
+	private boolean dirty = false;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Loads the cache from the specified input stream.  Any existing entries
+	 * are discarded.
+	 * @param in the input stream to load the cache from
+	 * @throws IOException if an error occurs reading the cache
+	 */
+	public synchronized void load(DataInputStream in) throws IOException {
+		entries.clear();
+		cachedRoots.clear();
+		if (in.readInt() != CACHE_VERSION) {
+			return;
+		}
+		int numEntries = in.readInt();
+		for (int i = 0; i < numEntries; i++) {
+			long roots = in.readLong();
+			byte[] digest = new byte[in.readInt()];
+			in.readFully(digest);
+			byte[] entry = new byte[in.readInt()];
+			in.readFully(entry);
+			entries.put(new Key(roots, digest), entry);
+			cachedRoots.add(roots);
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Stores the cache to the specified output stream.
+	 * @param out the output stream to store the cache to
+	 * @throws IOException if an error occurs writing the cache
+	 */
+	public synchronized void store(DataOutputStream out) throws IOException {
+		out.writeInt(CACHE_VERSION);
+		out.writeInt(entries.size());
+		for (Map.Entry<Key, byte[]> entry : entries.entrySet()) {
+			out.writeLong(entry.getKey().roots);
+			out.writeInt(entry.getKey().digest.length);
+			out.write(entry.getKey().digest);
+			out.writeInt(entry.getValue().length);
+			out.write(entry.getValue());
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Returns true if entries got added since the cache was last loaded or stored.
+	 * @return true if the cache needs to be stored
+	 */
+	public synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Returns the number of resolve operations which used a cached result.
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of resolve operations which did not find a valid cached result.
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns a key for the specified root revisions of a resolve operation.  Keys of
+	 * resolve operations with the same roots are equal.  Different roots may result in
+	 * the same key.
+	 * @param roots the root revisions of the resolve operation
+	 * @param isMandatory true if the roots are mandatory
+	 * @return the key for the roots
+	 */
+	static long getRootsKey(Collection<Resource> roots, boolean isMandatory) {
+		long[] ids = new long[roots.size()];
+		int i = 0;
+		for (Resource root : roots) {
+			ids[i++] = ((ModuleRevision) root).getRevisions().getModule().getId().longValue();
+		}
+		Arrays.sort(ids);
+		long key = isMandatory ? 1 : 0;
+		for (long id : ids) {
+			key = 31 * key + (id ^ (id >>> 32));
+		}
+		return key;
+	}
+
+	/**
+	 * Returns true if a result is cached for the specified roots key.  Only then
+	 * the full key of a resolve operation needs to be computed to look up a result.
+	 * @param rootsKey the {@link #getRootsKey(Collection, boolean) roots key}
+	 * @return true if a result may be cached for the roots
+	 */
+	synchronized boolean hasRoots(long rootsKey) {
+		return cachedRoots.contains(rootsKey);
+	}
+
+	/**
+	 * Starts building the key of a resolve operation.
+	 * @param roots the root revisions of the resolve operation
+	 * @param isMandatory true if the roots are mandatory
+	 * @return the key builder
+	 */
+	KeyBuilder newKey(List<Resource> roots, boolean isMandatory) {
+		MessageDigest digest = newDigest();
+		digest.update((byte) (isMandatory ? 1 : 0));
+		for (Resource root : roots) {
+			update(digest, ((ModuleRevision) root).getRevisions().getModule().getId().longValue());
+			digest.update(getContentDigest((ModuleRevision) root));
+		}
+		return new KeyBuilder(getRootsKey(roots, isMandatory), digest);
+	}
+
+	/**
+	 * Returns the cached result for the specified key or {@code null} if no valid result is cached.
+	 * @param key the key of the resolve operation
+	 * @param revisions the current revisions by module id
+	 * @return the cached result or {@code null}
+	 */
+	Map<Resource, List<Wire>> get(Key key, Map<Long, ModuleRevision> revisions) {
+		byte[] entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		Map<Resource, List<Wire>> result = null;
+		if (entry != null) {
+			try {
+				result = decode(entry, revisions);
+			} catch (IOException e) {
+				// cannot happen; reading from memory
+			}
+			if (result == null) {
+				synchronized (this) {
+					entries.remove(key);
+					updateCachedRoots();
+					dirty = true;
+				}
+			}
+		}
+		(result == null ? misses : hits).incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * Records a resolve operation which did not look up a cached result.
+	 */
+	void miss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Caches the result of a resolve operation.
+	 * @param key the key of the resolve operation
+	 * @param result the result of the resolve operation
+	 */
+	void put(Key key, Map<Resource, List<Wire>> result) {
+		byte[] entry;
+		try {
+			entry = encode(result);
+		} catch (IOException e) {
+			// cannot happen; writing to memory
+			return;
+		}
+		if (entry == null) {
+			return;
+		}
+		synchronized (this) {
+			entries.put(key, entry);
+			updateCachedRoots();
+			dirty = true;
+		}
+	}
+
+	/* @GuardedBy("this") */
+	private void updateCachedRoots() {
+		// entries may have been evicted
+		cachedRoots.clear();
+		for (Key cached : entries.keySet()) {
+			cachedRoots.add(cached.roots);
+		}
+	}
+
+	private byte[] encode(Map<Resource, List<Wire>> result) throws IOException {
+		Map<ModuleRevision, Integer> table = new LinkedHashMap<>();
+		for (Map.Entry<Resource, List<Wire>> resultEntry : result.entrySet()) {
+			addToTable((ModuleRevision) resultEntry.getKey(), table);
+			for (Wire wire : resultEntry.getValue()) {
+				addToTable((ModuleRevision) wire.getRequirer(), table);
+				addToTable((ModuleRevision) wire.getProvider(), table);
+				addToTable(((ModuleRequirement) wire.getRequirement()).getRevision(), table);
+				addToTable(((ModuleCapability) wire.getCapability()).getRevision(), table);
+			}
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(table.size());
+		for (ModuleRevision revision : table.keySet()) {
+			out.writeLong(revision.getRevisions().getModule().getId());
+			byte[] contentDigest = getContentDigest(revision);
+			out.writeInt(contentDigest.length);
+			out.write(contentDigest);
+		}
+		out.writeInt(result.size());
+		for (Map.Entry<Resource, List<Wire>> resultEntry : result.entrySet()) {
+			out.writeInt(table.get(resultEntry.getKey()));
+			out.writeInt(resultEntry.getValue().size());
+			for (Wire wire : resultEntry.getValue()) {
+				ModuleRequirement requirement = (ModuleRequirement) wire.getRequirement();
+				ModuleCapability capability = (ModuleCapability) wire.getCapability();
+				int requirementIndex = requirement.getRevision().getModuleRequirements(null).indexOf(requirement);
+				int capabilityIndex = capability.getRevision().getModuleCapabilities(null).indexOf(capability);
+				if (requirementIndex < 0 || capabilityIndex < 0) {
+					// not declared by the revision; do not cache
+					return null;
+				}
+				out.writeInt(table.get(wire.getRequirer()));
+				out.writeInt(table.get(requirement.getRevision()));
+				out.writeInt(requirementIndex);
+				out.writeInt(table.get(wire.getProvider()));
+				out.writeInt(table.get(capability.getRevision()));
+				out.writeInt(capabilityIndex);
+			}
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static void addToTable(ModuleRevision revision, Map<ModuleRevision, Integer> table) {
+		if (!table.containsKey(revision)) {
+			table.put(revision, table.size());
+		}
+	}
+
+	private Map<Resource, List<Wire>> decode(byte[] entry, Map<Long, ModuleRevision> revisions) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+		ModuleRevision[] table = new ModuleRevision[in.readInt()];
+		for (int i = 0; i < table.length; i++) {
+			ModuleRevision revision = revisions.get(in.readLong());
+			byte[] contentDigest = new byte[in.readInt()];
+			in.readFully(contentDigest);
+			if (revision == null || !Arrays.equals(getContentDigest(revision), contentDigest)) {
+				return null;
+			}
+			table[i] = revision;
+		}
+		int numResources = in.readInt();
+		Map<Resource, List<Wire>> result = new HashMap<>(numResources);
+		for (int i = 0; i < numResources; i++) {
+			ModuleRevision resource = table[in.readInt()];
+			int numWires = in.readInt();
+			List<Wire> wires = new ArrayList<>(numWires);
+			for (int j = 0; j < numWires; j++) {
+				ModuleRevision requirer = table[in.readInt()];
+				List<ModuleRequirement> requirements = table[in.readInt()].getModuleRequirements(null);
+				int requirementIndex = in.readInt();
+				ModuleRevision provider = table[in.readInt()];
+				List<ModuleCapability> capabilities = table[in.readInt()].getModuleCapabilities(null);
+				int capabilityIndex = in.readInt();
+				if (requirementIndex >= requirements.size() || capabilityIndex >= capabilities.size()) {
+					return null;
+				}
+				ModuleRequirement requirement = requirements.get(requirementIndex);
+				ModuleCapability capability = capabilities.get(capabilityIndex);
+				if (!requirement.matches(capability)) {
+					return null;
+				}
+				wires.add(new ModuleWire(capability, provider, requirement, requirer));
+			}
+			result.put(resource, wires);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a digest of the content of the specified revision which is
+	 * stable across restarts of the container.  The digest covers the identity,
+	 * the types and the declared capabilities and requirements of the revision.
+	 * @param revision the revision
+	 * @return the content digest
+	 */
+	byte[] getContentDigest(ModuleRevision revision) {
+		synchronized (contentDigests) {
+			byte[] cached = contentDigests.get(revision);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		MessageDigest digest = newDigest();
+		update(digest, String.valueOf(revision.getSymbolicName()));
+		update(digest, revision.getVersion().toString());
+		update(digest, revision.getTypes());
+		List<ModuleCapability> capabilities = revision.getModuleCapabilities(null);
+		update(digest, capabilities.size());
+		for (ModuleCapability capability : capabilities) {
+			update(digest, capability.getNamespace());
+			update(digest, capability.getAttributes());
+			update(digest, capability.getDirectives());
+		}
+		List<ModuleRequirement> requirements = revision.getModuleRequirements(null);
+		update(digest, requirements.size());
+		for (ModuleRequirement requirement : requirements) {
+			update(digest, requirement.getNamespace());
+			update(digest, requirement.getAttributes());
+			update(digest, requirement.getDirectives());
+		}
+		byte[] result = digest.digest();
+		synchronized (contentDigests) {
+			contentDigests.put(revision, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a digest of the required wires of the specified wiring.
+	 * @param wiring the wiring
+	 * @return the wiring digest
+	 */
+	byte[] getWiringDigest(ModuleWiring wiring) {
+		List<ModuleWire> requiredWires = wiring.getRequiredModuleWires(null);
+		synchronized (wiringDigests) {
+			WiringDigest cached = wiringDigests.get(wiring);
+			if (cached != null && cached.numRequiredWires == requiredWires.size()) {
+				return cached.digest;
+			}
+		}
+		MessageDigest digest = newDigest();
+		update(digest, wiring.getRevision().getRevisions().getModule().getId().longValue());
+		digest.update(getContentDigest(wiring.getRevision()));
+		update(digest, requiredWires.size());
+		for (ModuleWire wire : requiredWires) {
+			update(digest, wire.getProvider().getRevisions().getModule().getId().longValue());
+			update(digest, wire.getCapability().getNamespace());
+			update(digest, wire.getCapability().getAttributes());
+		}
+		update(digest, wiring.getSubstitutedNames().toString());
+		byte[] result = digest.digest();
+		synchronized (wiringDigests) {
+			wiringDigests.put(wiring, new WiringDigest(requiredWires.size(), result));
+		}
+		return result;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			digest.update((byte) (value >>> shift));
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		update(digest, bytes.length);
+		digest.update(bytes);
+	}
+
+	/*
+	 * Attributes and directives are digested in the order of their keys.  The type
+	 * of a value is included since values of different types may have the same
+	 * string representation.
+	 */
+	private static void update(MessageDigest digest, Map<String, ?> map) {
+		Map<String, ?> sorted = new TreeMap<>(map);
+		update(digest, sorted.size());
+		for (Map.Entry<String, ?> entry : sorted.entrySet()) {
+			update(digest, entry.getKey());
+			Object value = entry.getValue();
+			update(digest, value == null ? "" : value.getClass().getName()); //$NON-NLS-1$
+			update(digest, String.valueOf(value));
+		}
+	}
+}
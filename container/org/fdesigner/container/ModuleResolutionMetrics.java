@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fdesigner.framework.resource.Requirement;
+
+/**
+ * Metrics collected by the container for a single resolve operation.  The metrics
+ * describe how much work the resolver had to do: the number of candidate permutations
+ * which got checked, the number of uses constraint checks, the number of candidates
+ * found for each requirement, the time spent in each phase of the resolver, the
+ * depth of the queue of the resolver executor and the requirements which caused
+ * the resolver to backtrack.
+ * <p>
+ * The metrics are collected while the resolve operation is running, possibly by
+ * multiple threads.  The values are only stable once the resolve operation completed.
+ * @see ModuleContainer#getResolutionMetrics()
+ * @since 3.16
+ */
+public final class ModuleResolutionMetrics {
+	private final AtomicLong permutations = new AtomicLong();
+	private final AtomicLong usesConstraintChecks = new AtomicLong();
+	private final AtomicLong cachedResults = new AtomicLong();
+	private final AtomicLong executorTasks = new AtomicLong();
+	private final AtomicInteger pendingExecutorTasks = new AtomicInteger();
+	private final AtomicInteger maxExecutorQueueDepth = new AtomicInteger();
+	private final ConcurrentMap<Requirement, Integer> candidateCounts = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Requirement, AtomicInteger> backtracks = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AtomicLong> phaseTimes = new ConcurrentHashMap<>();
+	private volatile long resolveTime = 0;
+
+	/**
+	 * Returns the number of candidate permutations the resolver checked for consistency.
+	 * @return the number of checked permutations
+	 */
+	public long getPermutationCount() {
+		return permutations.get();
+	}
+
+	/**
+	 * Returns the number of uses constraint checks the resolver did for the package
+	 * spaces of the resources.
+	 * @return the number of uses constraint checks
+	 */
+	public long getUsesConstraintCheckCount() {
+		return usesConstraintChecks.get();
+	}
+
+	/**
+	 * Returns the number of candidates found for each requirement.
+	 * @return an unmodifiable snapshot of the candidate counts by requirement
+	 */
+	public Map<Requirement, Integer> getCandidateCounts() {
+		return Collections.unmodifiableMap(new HashMap<>(candidateCounts));
+	}
+
+	/**
+	 * Returns the requirements which caused the resolver to backtrack along with the
+	 * number of times the resolver removed the current candidate of the requirement.
+	 * @return an unmodifiable snapshot of the backtrack counts by requirement
+	 */
+	public Map<Requirement, Integer> getBacktrackingRequirements() {
+		Map<Requirement, Integer> result = new HashMap<>();
+		for (Map.Entry<Requirement, AtomicInteger> entry : backtracks.entrySet()) {
+			result.put(entry.getKey(), Integer.valueOf(entry.getValue().get()));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Returns the time spent in each phase of the resolver in nanoseconds.  The keys
+	 * are the phases reported by the resolver, one of the PHASE_ constants of
+	 * {@link org.fdesigner.felix.Logger}.  The resolver may get called multiple times
+	 * for a single resolve operation, the times of all calls are summed up.
+	 * @return an unmodifiable snapshot of the phase times
+	 */
+	public Map<String, Long> getPhaseTimes() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (Map.Entry<String, AtomicLong> entry : phaseTimes.entrySet()) {
+			result.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Returns the total time of the resolve operation in nanoseconds, including the
+	 * time spent calling resolver hooks.
+	 * @return the total time of the resolve operation
+	 */
+	public long getResolveTime() {
+		return resolveTime;
+	}
+
+	/**
+	 * Returns the number of tasks the resolver submitted to the resolver executor.
+	 * @return the number of executor tasks
+	 */
+	public long getExecutorTaskCount() {
+		return executorTasks.get();
+	}
+
+	/**
+	 * Returns the maximum number of tasks which were submitted to the resolver executor
+	 * but did not start yet.
+	 * @return the maximum executor queue depth
+	 */
+	public int getMaxExecutorQueueDepth() {
+		return maxExecutorQueueDepth.get();
+	}
+
+	/**
+	 * Returns the number of resolver calls which were answered from the resolution cache.
+	 * @return the number of cached results
+	 */
+	public long getCachedResultCount() {
+		return cachedResults.get();
+	}
+
+	void permutationChecked() {
+		permutations.incrementAndGet();
+	}
+
+	void usesConstraintChecked() {
+		usesConstraintChecks.incrementAndGet();
+	}
+
+	void cachedResultUsed() {
+		cachedResults.incrementAndGet();
+	}
+
+	void candidatesFound(Requirement requirement, int count) {
+		candidateCounts.put(requirement, Integer.valueOf(count));
+	}
+
+	void backtracked(Requirement requirement) {
+		AtomicInteger count = backtracks.get(requirement);
+		if (count == null) {
+			AtomicInteger existing = backtracks.putIfAbsent(requirement, count = new AtomicInteger());
+			if (existing != null) {
+				count = existing;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	void phaseCompleted(String phase, long nanos) {
+		AtomicLong time = phaseTimes.get(phase);
+		if (time == null) {
+			AtomicLong existing = phaseTimes.putIfAbsent(phase, time = new AtomicLong());
+			if (existing != null) {
+				time = existing;
+			}
+		}
+		time.addAndGet(nanos);
+	}
+
+	void resolveCompleted(long nanos) {
+		resolveTime = nanos;
+	}
+
+	void taskSubmitted() {
+		executorTasks.incrementAndGet();
+		int pending = pendingExecutorTasks.incrementAndGet();
+		int max;
+		while (pending > (max = maxExecutorQueueDepth.get())) {
+			if (maxExecutorQueueDepth.compareAndSet(max, pending)) {
+				break;
+			}
+		}
+	}
+
+	void taskStarted() {
+		pendingExecutorTasks.decrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append("time=").append(TimeUnit.NANOSECONDS.toMillis(resolveTime)).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Map.Entry<String, Long> phase : getPhaseTimes().entrySet()) {
+			result.append(' ').append(phase.getKey()).append('=').append(TimeUnit.NANOSECONDS.toMillis(phase.getValue().longValue())).append("ms"); //$NON-NLS-1$
+		}
+		result.append(" permutations=").append(permutations.get()); //$NON-NLS-1$
+		result.append(" usesChecks=").append(usesConstraintChecks.get()); //$NON-NLS-1$
+		result.append(" requirements=").append(candidateCounts.size()); //$NON-NLS-1$
+		result.append(" backtracks=").append(backtracks.size()); //$NON-NLS-1$
+		result.append(" executorTasks=").append(executorTasks.get()); //$NON-NLS-1$
+		result.append(" maxQueueDepth=").append(maxExecutorQueueDepth.get()); //$NON-NLS-1$
+		result.append(" cachedResults=").append(cachedResults.get()); //$NON-NLS-1$
+		return result.toString();
+	}
+}
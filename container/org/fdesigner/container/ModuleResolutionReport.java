@@ -57,8 +57,8 @@ class ModuleResolutionReport implements ResolutionReport {
 			entries.add(new EntryImpl(type, data));
 		}
 
-		public ModuleResolutionReport build(Map<Resource, List<Wire>> resolutionResult, ResolutionException cause) {
-			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause);
+		public ModuleResolutionReport build(Map<Resource, List<Wire>> resolutionResult, ResolutionException cause, ModuleResolutionMetrics metrics) {
+			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause, metrics);
 		}
 	}
 
@@ -85,11 +85,17 @@ class ModuleResolutionReport implements ResolutionReport {
 	private final Map<Resource, List<Entry>> entries;
 	private final ResolutionException resolutionException;
 	private final Map<Resource, List<Wire>> resolutionResult;
+	private final ModuleResolutionMetrics metrics;
 
 	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause) {
+		this(resolutionResult, entries, cause, null);
+	}
+
+	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause, ModuleResolutionMetrics metrics) {
 		this.entries = entries == null ? Collections.<Resource, List<Entry>> emptyMap() : Collections.unmodifiableMap(new HashMap<>(entries));
 		this.resolutionResult = resolutionResult == null ? Collections.<Resource, List<Wire>> emptyMap() : Collections.unmodifiableMap(resolutionResult);
 		this.resolutionException = cause;
+		this.metrics = metrics == null ? new ModuleResolutionMetrics() : metrics;
 	}
 
 	@Override
@@ -106,6 +112,14 @@ class ModuleResolutionReport implements ResolutionReport {
 		return resolutionResult;
 	}
 
+	/**
+	 * Returns the metrics collected for the resolve operation.
+	 * @return the resolution metrics
+	 */
+	ModuleResolutionMetrics getMetrics() {
+		return metrics;
+	}
+
 	private static String getResolutionReport0(String prepend, ModuleRevision revision, Map<Resource, List<ResolutionReport.Entry>> reportEntries, Set<BundleRevision> visited) {
 		if (prepend == null) {
 			prepend = ""; //$NON-NLS-1$
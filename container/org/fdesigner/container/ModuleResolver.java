@@ -88,6 +88,7 @@ final class ModuleResolver {
 	private static final String OPTION_USES = OPTION_RESOLVER + "/uses"; //$NON-NLS-1$
 	private static final String OPTION_WIRING = OPTION_RESOLVER + "/wiring"; //$NON-NLS-1$
 	private static final String OPTION_REPORT = OPTION_RESOLVER + "/report"; //$NON-NLS-1$
+	private static final String OPTION_METRICS = OPTION_RESOLVER + "/metrics"; //$NON-NLS-1$
 
 	boolean DEBUG_ROOTS = false;
 	boolean DEBUG_PROVIDERS = false;
@@ -95,6 +96,7 @@ final class ModuleResolver {
 	boolean DEBUG_USES = false;
 	boolean DEBUG_WIRING = false;
 	boolean DEBUG_REPORT = false;
+	boolean DEBUG_METRICS = false;
 
 	private static final int DEFAULT_BATCH_SIZE = Integer.MAX_VALUE;
 	private static final int BATCH_MIN_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(5);
@@ -114,6 +116,7 @@ final class ModuleResolver {
 		DEBUG_USES = debugAll || options.getBooleanOption(OPTION_USES, false);
 		DEBUG_WIRING = debugAll || options.getBooleanOption(OPTION_WIRING, false);
 		DEBUG_REPORT = debugAll || options.getBooleanOption(OPTION_REPORT, false);
+		DEBUG_METRICS = debugAll || options.getBooleanOption(OPTION_METRICS, false);
 	}
 
 	static final Collection<String> NON_PAYLOAD_CAPABILITIES = Arrays.asList(IdentityNamespace.IDENTITY_NAMESPACE);
@@ -122,6 +125,8 @@ final class ModuleResolver {
 
 	final ThreadLocal<Boolean> threadResolving = new ThreadLocal<>();
 	final ModuleContainerAdaptor adaptor;
+	private volatile ModuleResolutionMetrics lastMetrics = new ModuleResolutionMetrics();
+	private volatile ModuleResolutionMetrics lastDynamicMetrics = new ModuleResolutionMetrics();
 
 	/**
 	 * Constructs the module resolver with the specified resolver hook factory
@@ -168,12 +173,34 @@ final class ModuleResolver {
 	 */
 	ModuleResolutionReport resolveDelta(Collection<ModuleRevision> triggers, boolean triggersMandatory, Collection<ModuleRevision> unresolved, Map<ModuleRevision, ModuleWiring> wiringCopy, ModuleDatabase moduleDatabase) {
 		ResolveProcess resolveProcess = new ResolveProcess(unresolved, triggers, triggersMandatory, wiringCopy, moduleDatabase);
-		return resolveProcess.resolve();
+		ModuleResolutionReport report = resolveProcess.resolve();
+		lastMetrics = report.getMetrics();
+		return report;
 	}
 
 	ModuleResolutionReport resolveDynamicDelta(DynamicModuleRequirement dynamicReq, Collection<ModuleRevision> unresolved, Map<ModuleRevision, ModuleWiring> wiringCopy, ModuleDatabase moduleDatabase) {
 		ResolveProcess resolveProcess = new ResolveProcess(unresolved, dynamicReq, wiringCopy, moduleDatabase);
-		return resolveProcess.resolve();
+		ModuleResolutionReport report = resolveProcess.resolve();
+		// dynamic imports are resolved frequently; keep them from replacing the metrics of the last resolve operation
+		lastDynamicMetrics = report.getMetrics();
+		return report;
+	}
+
+	/**
+	 * Returns the metrics of the last resolve operation which was not
+	 * resolving a dynamic import.
+	 * @return the metrics of the last resolve operation
+	 */
+	ModuleResolutionMetrics getLastMetrics() {
+		return lastMetrics;
+	}
+
+	/**
+	 * Returns the metrics of the last resolve operation which resolved a dynamic import.
+	 * @return the metrics of the last dynamic resolve operation
+	 */
+	ModuleResolutionMetrics getLastDynamicMetrics() {
+		return lastDynamicMetrics;
 	}
 
 	Map<ModuleRevision, ModuleWiring> generateDelta(Map<Resource, List<Wire>> result, Map<ModuleRevision, ModuleWiring> wiringCopy) {
@@ -540,6 +567,26 @@ final class ModuleResolver {
 				}
 			}
 
+			@Override
+			public void logCheckedPermutation() {
+				metrics.permutationChecked();
+			}
+
+			@Override
+			public void logUsesConstraintCheck(Resource resource) {
+				metrics.usesConstraintChecked();
+			}
+
+			@Override
+			public void logBacktrack(Requirement requirement) {
+				metrics.backtracked(requirement);
+			}
+
+			@Override
+			public void logResolvePhase(String phase, long nanos) {
+				metrics.phaseCompleted(phase, nanos);
+			}
+
 			Map<Resource, ResolutionException> getUsesConstraintViolations() {
 				return errors == null ? Collections.<Resource, ResolutionException> emptyMap() : errors;
 			}
@@ -557,6 +604,7 @@ final class ModuleResolver {
 		}
 
 		private final ModuleResolutionReport.Builder reportBuilder = new ModuleResolutionReport.Builder();
+		private final ModuleResolutionMetrics metrics = new ModuleResolutionMetrics();
 		/*
 		 * Contains the revisions that were requested to be resolved and is not
 		 * modified post instantiation.
@@ -581,6 +629,7 @@ final class ModuleResolver {
 		private final Set<ModuleRevision> previouslyResolved;
 		private final DynamicModuleRequirement dynamicReq;
 		private volatile ResolverHook hook = null;
+		private volatile ModuleResolutionCache resolutionCache = null;
 		private volatile Map<String, Collection<ModuleRevision>> byName = null;
 		private volatile List<Resource> currentlyResolving = null;
 		private volatile boolean currentlyResolvingMandatory = false;
@@ -651,6 +700,7 @@ final class ModuleResolver {
 			}
 			List<ModuleCapability> candidates = moduleDatabase.findCapabilities(lookupReq);
 			List<Capability> result = filterProviders(origReq, candidates);
+			metrics.candidatesFound(origReq, result.size());
 			if (DEBUG_PROVIDERS) {
 				StringBuilder builder = new StringBuilder("RESOLVER: Capabilities being returned to the resolver"); //$NON-NLS-1$
 				int i = 0;
@@ -943,6 +993,7 @@ final class ModuleResolver {
 				throw new IllegalStateException(Msg.ModuleResolver_RecursiveError);
 			}
 			threadResolving.set(Boolean.TRUE);
+			long start = System.nanoTime();
 			try {
 				try {
 					hook = adaptor.getResolverHookFactory().begin(InternalUtils.asListBundleRevision((List<? extends BundleRevision>) triggers));
@@ -955,6 +1006,12 @@ final class ModuleResolver {
 					}
 					throw e;
 				}
+				// results are only cached if they are not influenced by resolver hooks or permissions
+				@SuppressWarnings("removal")
+				boolean securityEnabled = System.getSecurityManager() != null;
+				if (dynamicReq == null && !securityEnabled) {
+					resolutionCache = adaptor.getResolutionCache(hook);
+				}
 				Map<Resource, List<Wire>> result = null;
 				ResolutionException re = null;
 				ModuleResolutionReport report;
@@ -1000,7 +1057,11 @@ final class ModuleResolver {
 					if (DEBUG_WIRING) {
 						printWirings(result);
 					}
-					report = reportBuilder.build(result, re);
+					metrics.resolveCompleted(System.nanoTime() - start);
+					report = reportBuilder.build(result, re, metrics);
+					if (DEBUG_METRICS) {
+						Debug.println("RESOLVER: Resolution metrics " + metrics); //$NON-NLS-1$
+					}
 					if (DEBUG_REPORT) {
 						if (report.getResolutionException() != null) {
 							Debug.printStackTrace(report.getResolutionException());
@@ -1115,7 +1176,7 @@ final class ModuleResolver {
 			Map<Resource, List<Wire>> interimResults = null;
 			try {
 				transitivelyResolveFailures.addAll(revisions);
-				interimResults = new ResolverImpl(logger, this).resolve(this);
+				interimResults = resolveOrGetCached(revisions, isMandatory, logger);
 				applyInterimResultToWiringCopy(interimResults);
 				if (DEBUG_ROOTS) {
 					Debug.println("Resolver: resolved " + interimResults.size() + " bundles."); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1156,6 +1217,62 @@ final class ModuleResolver {
 			}
 		}
 
+		private Map<Resource, List<Wire>> resolveOrGetCached(List<Resource> revisions, boolean isMandatory, ResolveLogger logger) throws ResolutionException {
+			ModuleResolutionCache cache = resolutionCache;
+			if (cache == null) {
+				return new ResolverImpl(logger, this).resolve(this);
+			}
+			Map<Long, ModuleRevision> revisionsById = new HashMap<>();
+			ModuleResolutionCache.Key key = null;
+			// only compute the key for a lookup if a result is cached for the roots
+			if (cache.hasRoots(ModuleResolutionCache.getRootsKey(revisions, isMandatory))) {
+				key = getResolutionKey(cache, revisions, isMandatory, revisionsById);
+				Map<Resource, List<Wire>> cached = cache.get(key, revisionsById);
+				if (cached != null) {
+					if (DEBUG_ROOTS) {
+						Debug.println("Resolver: using cached result for " + revisions.size() + " root bundles."); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					metrics.cachedResultUsed();
+					return cached;
+				}
+			} else {
+				cache.miss();
+			}
+			int usesConstraintViolations = logger.getUsesConstraintViolations().size();
+			Map<Resource, List<Wire>> interimResults = new ResolverImpl(logger, this).resolve(this);
+			// only cache complete results; partial results need the resolution report of the resolver
+			if (interimResults.keySet().containsAll(revisions) && logger.getUsesConstraintViolations().size() == usesConstraintViolations) {
+				if (key == null) {
+					key = getResolutionKey(cache, revisions, isMandatory, revisionsById);
+				}
+				cache.put(key, interimResults);
+			}
+			return interimResults;
+		}
+
+		/*
+		 * Computes the key of the input for resolving the specified root revisions.
+		 * The key covers the content of all current revisions, the existing wirings
+		 * and the revisions which are disabled or failed to resolve.  The current revisions
+		 * are added to the specified map by module id.
+		 */
+		private ModuleResolutionCache.Key getResolutionKey(ModuleResolutionCache cache, List<Resource> roots, boolean isMandatory, Map<Long, ModuleRevision> revisionsById) {
+			ModuleResolutionCache.KeyBuilder key = cache.newKey(roots, isMandatory);
+			for (Module module : moduleDatabase.getModules()) {
+				ModuleRevision revision = module.getCurrentRevision();
+				if (revision == null) {
+					continue;
+				}
+				revisionsById.put(module.getId(), revision);
+				int state = (disabled.contains(revision) ? 1 : 0) | (wirings.containsKey(revision) ? 2 : 0) | (failedToResolve.contains(revision) ? 4 : 0);
+				key.addRevision(revision, state);
+			}
+			for (ModuleWiring wiring : wirings.values()) {
+				key.addWiring(wiring);
+			}
+			return key.build();
+		}
+
 		private void applyInterimResultToWiringCopy(Map<Resource, List<Wire>> interimResult) {
 			if (!interimResult.isEmpty()) {
 				// update the copy of wirings to include interim results
@@ -1630,8 +1747,15 @@ final class ModuleResolver {
 		}
 
 		@Override
-		public void execute(Runnable command) {
-			adaptor.getResolverExecutor().execute(command);
+		public void execute(final Runnable command) {
+			metrics.taskSubmitted();
+			adaptor.getResolverExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					metrics.taskStarted();
+					command.run();
+				}
+			});
 		}
 
 		@Override
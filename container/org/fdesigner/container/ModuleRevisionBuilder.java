@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.fdesigner.container.framework.util.ObjectPool;
 import org.fdesigner.container.internal.framework.FilterImpl;
 import org.fdesigner.framework.framework.AdminPermission;
 import org.fdesigner.framework.framework.Bundle;
@@ -302,6 +303,11 @@ public final class ModuleRevisionBuilder {
 		infos.add(new GenericInfo(namespace, copyUnmodifiableMap(directives), copyUnmodifiableMap(attributes)));
 	}
 
+	/**
+	 * Copies the map into an unmodifiable map.  The copy is interned since many
+	 * capabilities and requirements of different revisions have equal directives
+	 * and attributes.
+	 */
 	private static <K, V> Map<K, V> copyUnmodifiableMap(Map<K, V> map) {
 		int size = map.size();
 		if (size == 0) {
@@ -309,9 +315,9 @@ public final class ModuleRevisionBuilder {
 		}
 		if (size == 1) {
 			Map.Entry<K, V> entry = map.entrySet().iterator().next();
-			return Collections.singletonMap(entry.getKey(), entry.getValue());
+			return ObjectPool.intern(Collections.singletonMap(entry.getKey(), entry.getValue()));
 		}
-		return Collections.unmodifiableMap(new HashMap<>(map));
+		return ObjectPool.intern(Collections.unmodifiableMap(new HashMap<>(map)));
 	}
 
 	void basicAddCapability(String namespace, Map<String, String> directives, Map<String, Object> attributes) {
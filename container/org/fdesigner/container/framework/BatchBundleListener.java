@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container.framework;
+
+import java.util.List;
+
+import org.fdesigner.framework.framework.BundleEvent;
+import org.fdesigner.framework.framework.BundleListener;
+import org.fdesigner.framework.framework.SynchronousBundleListener;
+
+/**
+ * A <code>BundleListener</code> which receives the bundle events in batches.
+ * <p>
+ * A batch bundle listener is registered with
+ * {@link org.fdesigner.framework.framework.BundleContext#addBundleListener(BundleListener)}
+ * like any other bundle listener.  Instead of delivering each bundle event on its own
+ * the framework collects the events which would have been delivered asynchronously to
+ * the listener and delivers them with a single call to {@link #bundlesChanged(List)}.
+ * A batch is delivered once it contains the configured maximum number of events, once
+ * the configured delay elapsed after the first event of the batch got published and
+ * before the framework publishes a framework event.  The events of a batch are in the
+ * order they got published and the batches of a listener are delivered one at a time
+ * in the order they got collected.
+ * <p>
+ * The framework does not call {@link #bundleChanged(BundleEvent)} on a batch bundle
+ * listener.  A listener which also implements {@link SynchronousBundleListener} is
+ * treated as a synchronous bundle listener and does not receive batches.
+ * @see BundleEvent
+ * @since 3.16
+ */
+public interface BatchBundleListener extends BundleListener {
+	/**
+	 * Receives notification of a batch of bundle events.
+	 * @param events the bundle events in the order they got published.  The list
+	 * is not modifiable.
+	 */
+	void bundlesChanged(List<BundleEvent> events);
+}
@@ -19,29 +19,57 @@ import java.util.WeakHashMap;
 
 import org.fdesigner.container.internal.debug.Debug;
 
+/**
+ * A pool of canonical instances of immutable objects such as strings, versions
+ * and the attribute and directive maps of capabilities and requirements.
+ * <p>
+ * The pool is split into stripes selected by the hash code of the object so that
+ * threads interning different objects, for example while bundles are installed or
+ * the persistent framework data is loaded in parallel, do not contend for a single lock.
+ * Each stripe holds its objects weakly.
+ */
 public class ObjectPool {
 	//private static String OPTION_DEBUG_OBJECTPOOL_ADDS = Debug.ECLIPSE_OSGI + "/debug/objectPool/adds"; //$NON-NLS-1$
 	//private static String OPTION_DEBUG_OBJECTPOOL_DUPS = Debug.ECLIPSE_OSGI + "/debug/objectPool/dups"; //$NON-NLS-1$
 	// TODO need to set these
 	private static final boolean DEBUG_OBJECTPOOL_ADDS = false;
 	private static final boolean DEBUG_OBJECTPOOL_DUPS = false;
-	private static Map<Object, WeakReference<Object>> objectCache = new WeakHashMap<>();
+	private static final Stripe[] stripes = createStripes();
+
+	private static Stripe[] createStripes() {
+		// use a power of two number of stripes that is at least four times the number of processors
+		int count = 1;
+		while (count < Runtime.getRuntime().availableProcessors() * 4) {
+			count <<= 1;
+		}
+		Stripe[] result = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = new Stripe();
+		}
+		return result;
+	}
+
+	private static final class Stripe {
+		final Map<Object, WeakReference<Object>> objectCache = new WeakHashMap<>();
+	}
 
 	@SuppressWarnings("unchecked")
 	public static <T> T intern(T obj) {
-		synchronized (objectCache) {
-			WeakReference<Object> ref = objectCache.get(obj);
-			if (ref != null) {
-				Object refValue = ref.get();
-				if (refValue != null) {
-					obj = (T) refValue;
-					if (DEBUG_OBJECTPOOL_DUPS)
-						Debug.println("[ObjectPool] Found duplicate object: " + getObjectString(obj)); //$NON-NLS-1$
-				}
+		int hash = obj.hashCode();
+		// spread the high bits since maps and strings often differ in the high bits only
+		hash ^= (hash >>> 16);
+		Stripe stripe = stripes[hash & (stripes.length - 1)];
+		synchronized (stripe) {
+			WeakReference<Object> ref = stripe.objectCache.get(obj);
+			Object refValue = ref == null ? null : ref.get();
+			if (refValue != null) {
+				obj = (T) refValue;
+				if (DEBUG_OBJECTPOOL_DUPS)
+					Debug.println("[ObjectPool] Found duplicate object: " + getObjectString(obj)); //$NON-NLS-1$
 			} else {
-				objectCache.put(obj, new WeakReference<Object>(obj));
+				stripe.objectCache.put(obj, new WeakReference<Object>(obj));
 				if (DEBUG_OBJECTPOOL_ADDS)
-					Debug.println("[ObjectPool] Added unique object to pool: " + getObjectString(obj) + " Pool size: " + objectCache.size()); //$NON-NLS-1$ //$NON-NLS-2$
+					Debug.println("[ObjectPool] Added unique object to pool: " + getObjectString(obj) + " Pool size: " + stripe.objectCache.size()); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		}
 		return obj;
@@ -19,9 +19,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,9 +33,12 @@ import org.fdesigner.container.ModuleRevision;
 import org.fdesigner.container.internal.framework.FilterImpl;
 import org.fdesigner.framework.framework.Filter;
 import org.fdesigner.framework.framework.InvalidSyntaxException;
+import org.fdesigner.framework.framework.Version;
+import org.fdesigner.framework.framework.VersionRange;
 import org.fdesigner.framework.framework.namespace.AbstractWiringNamespace;
 import org.fdesigner.framework.framework.namespace.BundleNamespace;
 import org.fdesigner.framework.framework.namespace.HostNamespace;
+import org.fdesigner.framework.framework.namespace.IdentityNamespace;
 import org.fdesigner.framework.framework.namespace.PackageNamespace;
 import org.fdesigner.framework.resource.Capability;
 import org.fdesigner.framework.resource.Namespace;
@@ -40,16 +46,89 @@ import org.fdesigner.framework.resource.Requirement;
 import org.fdesigner.supplement.util.ManifestElement;
 
 public class Capabilities {
+	/**
+	 * A version index of the capabilities with the same namespace attribute value.
+	 * Capabilities which do not have a {@link Version} value for the version
+	 * attribute are always candidates.
+	 */
+	static class VersionIndex {
+		private final NavigableMap<Version, Set<ModuleCapability>> versions = new TreeMap<>();
+		private final Set<ModuleCapability> unversioned = new HashSet<>(0);
+
+		void add(Object version, ModuleCapability capability) {
+			if (!(version instanceof Version)) {
+				unversioned.add(capability);
+				return;
+			}
+			Set<ModuleCapability> capabilities = versions.get(version);
+			if (capabilities == null) {
+				capabilities = new HashSet<>(1);
+				versions.put((Version) version, capabilities);
+			}
+			capabilities.add(capability);
+		}
+
+		void remove(Object version, ModuleCapability capability) {
+			if (!(version instanceof Version)) {
+				unversioned.remove(capability);
+				return;
+			}
+			Set<ModuleCapability> capabilities = versions.get(version);
+			if (capabilities != null) {
+				capabilities.remove(capability);
+				if (capabilities.isEmpty()) {
+					versions.remove(version);
+				}
+			}
+		}
+
+		boolean isEmpty() {
+			return versions.isEmpty() && unversioned.isEmpty();
+		}
+
+		Set<ModuleCapability> find(VersionRange range) {
+			Set<ModuleCapability> result = new LinkedHashSet<>(unversioned);
+			if (range.isEmpty()) {
+				return result;
+			}
+			boolean leftInclusive = range.getLeftType() == VersionRange.LEFT_CLOSED;
+			Version right = range.getRight();
+			NavigableMap<Version, Set<ModuleCapability>> inRange;
+			if (right == null) {
+				inRange = versions.tailMap(range.getLeft(), leftInclusive);
+			} else {
+				inRange = versions.subMap(range.getLeft(), leftInclusive, right, range.getRightType() == VersionRange.RIGHT_CLOSED);
+			}
+			for (Set<ModuleCapability> capabilities : inRange.values()) {
+				result.addAll(capabilities);
+			}
+			return result;
+		}
+	}
+
 	static class NamespaceSet {
 		private final String name;
 		private final Map<String, Set<ModuleCapability>> indexes = new HashMap<>();
 		private final Set<ModuleCapability> all = new HashSet<>();
 		private final Set<ModuleCapability> nonStringIndexes = new HashSet<>(0);
 		private final boolean matchMandatory;
+		/** the version attribute of the namespace or null if capabilities are not indexed by version */
+		private final String versionAttr;
+		/** version indexes by namespace attribute value */
+		private final Map<String, VersionIndex> versionIndexes = new HashMap<>();
 
 		NamespaceSet(String name) {
 			this.name = name;
 			this.matchMandatory = PackageNamespace.PACKAGE_NAMESPACE.equals(name) || BundleNamespace.BUNDLE_NAMESPACE.equals(name) || HostNamespace.HOST_NAMESPACE.equals(name);
+			if (PackageNamespace.PACKAGE_NAMESPACE.equals(name)) {
+				this.versionAttr = PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE;
+			} else if (BundleNamespace.BUNDLE_NAMESPACE.equals(name) || HostNamespace.HOST_NAMESPACE.equals(name)) {
+				this.versionAttr = AbstractWiringNamespace.CAPABILITY_BUNDLE_VERSION_ATTRIBUTE;
+			} else if (IdentityNamespace.IDENTITY_NAMESPACE.equals(name)) {
+				this.versionAttr = IdentityNamespace.CAPABILITY_VERSION_ATTRIBUTE;
+			} else {
+				this.versionAttr = null;
+			}
 		}
 
 		void addCapability(ModuleCapability capability) {
@@ -87,6 +166,14 @@ public class Capabilities {
 					indexes.put((String) indexKey, capabilities);
 				}
 				capabilities.add(capability);
+				if (versionAttr != null) {
+					VersionIndex versionIndex = versionIndexes.get(indexKey);
+					if (versionIndex == null) {
+						versionIndex = new VersionIndex();
+						versionIndexes.put((String) indexKey, versionIndex);
+					}
+					versionIndex.add(capability.getAttributes().get(versionAttr), capability);
+				}
 			}
 		}
 
@@ -123,6 +210,15 @@ public class Capabilities {
 				if (capabilities != null) {
 					capabilities.remove(capability);
 				}
+				if (versionAttr != null) {
+					VersionIndex versionIndex = versionIndexes.get(indexKey);
+					if (versionIndex != null) {
+						versionIndex.remove(capability.getAttributes().get(versionAttr), capability);
+						if (versionIndex.isEmpty()) {
+							versionIndexes.remove(indexKey);
+						}
+					}
+				}
 			}
 		}
 
@@ -151,6 +247,14 @@ public class Capabilities {
 					result = match(f, all, synthetic);
 				} else {
 					Set<ModuleCapability> indexed = indexes.get(indexKey);
+					if (indexed != null && versionAttr != null && indexed.size() > 1) {
+						// use a range scan of the version index if the filter requires a version range
+						VersionRange range = f.getVersionRange(versionAttr);
+						VersionIndex versionIndex = range == null ? null : versionIndexes.get(indexKey);
+						if (versionIndex != null) {
+							indexed = versionIndex.find(range);
+						}
+					}
 					if (indexed == null) {
 						result = new ArrayList<>(0);
 					} else {
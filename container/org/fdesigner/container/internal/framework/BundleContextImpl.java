@@ -33,6 +33,7 @@ import java.util.Map;
 
 import org.fdesigner.container.Module;
 import org.fdesigner.container.ModuleWiring;
+import org.fdesigner.container.framework.BatchBundleListener;
 import org.fdesigner.container.internal.debug.Debug;
 import org.fdesigner.container.internal.loader.BundleLoader;
 import org.fdesigner.container.internal.serviceregistry.HookContext;
@@ -193,6 +194,37 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 
 	}
 
+	/**
+	 * Installs the bundles from the specified locations and input streams in one
+	 * operation.  The content of the bundles is staged in parallel and the bundles
+	 * are added to the framework with a single update of the framework data.
+	 * If a bundle is already installed at a location then the installed bundle is
+	 * returned for that location.  If any of the bundles fails to install then none
+	 * of the bundles are installed, unless bundles with the same symbolic name and
+	 * version are installed together; those are installed one at a time.
+	 * @param locations the location identifiers of the bundles to install
+	 * @param inputs the input streams to read the bundles from, an element may be {@code null}
+	 * @return the installed bundles in the order of the specified locations
+	 * @throws BundleException if an error occurs installing the bundles
+	 */
+	public List<Bundle> installBundles(List<String> locations, List<InputStream> inputs) throws BundleException {
+		checkValid();
+		try {
+			List<URLConnection> contents = new ArrayList<>(locations.size());
+			for (int i = 0; i < locations.size(); i++) {
+				contents.add(container.getStorage().getContentConnection(null, locations.get(i), inputs.get(i)));
+			}
+			List<Generation> generations = container.getStorage().install(bundle.getModule(), locations, contents);
+			List<Bundle> bundles = new ArrayList<>(generations.size());
+			for (Generation generation : generations) {
+				bundles.add(generation.getRevision().getBundle());
+			}
+			return bundles;
+		} catch (IOException e) {
+			throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Retrieve the bundle that has the given unique identifier.
 	 *
@@ -975,6 +1007,20 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 						break;
 					}
 
+					case EquinoxEventPublisher.BUNDLEEVENTBATCH : {
+						BatchBundleListener listener = (BatchBundleListener) l;
+
+						if (debug.DEBUG_EVENTS) {
+							String listenerName = listener.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(listener)); //$NON-NLS-1$
+							Debug.println("dispatchBundleEventBatch[" + bundle + "](" + listenerName + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						}
+
+						@SuppressWarnings("unchecked")
+						List<BundleEvent> events = (List<BundleEvent>) object;
+						listener.bundlesChanged(events);
+						break;
+					}
+
 					case ServiceRegistry.SERVICEEVENT : {
 						ServiceEvent event = (ServiceEvent) object;
 
@@ -138,6 +138,7 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 
 	public final boolean CLASS_CERTIFICATE;
 	public final boolean PARALLEL_CAPABLE;
+	public final int LOADER_NEGATIVE_CACHE_SIZE;
 
 	private final Map<Throwable, Integer> exceptions = new LinkedHashMap<>(0);
 
@@ -204,6 +205,12 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 
 	public static final String PROP_EQUINOX_SECURITY = "eclipse.security"; //$NON-NLS-1$
 	public static final String PROP_FILE_LIMIT = "osgi.bundlefile.limit"; //$NON-NLS-1$
+	public static final String PROP_BUNDLE_FILE_MAPPED = "equinox.bundlefile.mapped"; //$NON-NLS-1$
+	public static final String PROP_CLASSPATH_INDEX = "equinox.classpath.index"; //$NON-NLS-1$
+	public static final String PROP_CLASS_PRELOAD = "equinox.class.preload"; //$NON-NLS-1$
+	public static final String PROP_CLASS_PRELOAD_THREAD_COUNT = "equinox.class.preload.thread.count"; //$NON-NLS-1$
+	public static final String PROP_STORAGE_JOURNAL = "equinox.storage.journal"; //$NON-NLS-1$
+	public static final String PROP_STORAGE_LOAD_THREAD_COUNT = "equinox.storage.load.thread.count"; //$NON-NLS-1$
 
 	public final static String PROP_CLASS_CERTIFICATE_SUPPORT = "osgi.support.class.certificate"; //$NON-NLS-1$
 	public final static String PROP_CLASS_LOADER_TYPE = "osgi.classloader.type"; //$NON-NLS-1$
@@ -229,9 +236,23 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public static final String PROP_RESOLVER_THREAD_COUNT = "equinox.resolver.thead.count"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_RESOLVER_THREAD_COUNT = "equinox.resolver.thread.count"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_START_LEVEL_THREAD_COUNT = "equinox.start.level.thread.count"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_EVENT_THREAD_COUNT = "equinox.event.thread.count"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_EVENT_BATCH_SIZE = "equinox.event.batch.size"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_EVENT_BATCH_DELAY = "equinox.event.batch.delay"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_START_LEVEL_RESTRICT_PARALLEL = "equinox.start.level.restrict.parallel"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_START_LEVEL_DEPENDENCY_ORDER = "equinox.start.level.dependency.order"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_START_LEVEL_PARALLEL_STOP = "equinox.start.level.parallel.stop"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_START_LEVEL_STOP_TIMEOUT = "equinox.start.level.stop.timeout"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_REFRESH_PARALLEL = "equinox.refresh.parallel"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_REVISION_BATCH_SIZE = "equinox.resolver.revision.batch.size"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_BATCH_TIMEOUT = "equinox.resolver.batch.timeout"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_CACHE = "equinox.resolver.cache"; //$NON-NLS-1$
+
+	public static final String PROP_SERVICE_REGISTRY_INDEX_KEYS = "equinox.serviceregistry.index.keys"; //$NON-NLS-1$
+	public static final String DEFAULT_SERVICE_REGISTRY_INDEX_KEYS = "service.pid,component.name"; //$NON-NLS-1$
+
+	public static final String PROP_LOADER_NEGATIVE_CACHE_SIZE = "equinox.loader.negative.cache.size"; //$NON-NLS-1$
+	public static final String DEFAULT_LOADER_NEGATIVE_CACHE_SIZE = "1000"; //$NON-NLS-1$
 
 	public static final String PROP_SYSTEM_PROVIDE_HEADER = "equinox.system.provide.header"; //$NON-NLS-1$
 	public static final String SYSTEM_PROVIDE_HEADER_ORIGINAL = "original"; //$NON-NLS-1$
@@ -615,6 +636,15 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 		CLASS_CERTIFICATE = Boolean.valueOf(getConfiguration(PROP_CLASS_CERTIFICATE_SUPPORT, "true")).booleanValue(); //$NON-NLS-1$
 		PARALLEL_CAPABLE = CLASS_LOADER_TYPE_PARALLEL.equals(getConfiguration(PROP_CLASS_LOADER_TYPE));
 
+		int negativeCacheSize;
+		try {
+			// a size of zero or less disables the negative lookup cache of bundle loaders
+			negativeCacheSize = Integer.parseInt(getConfiguration(PROP_LOADER_NEGATIVE_CACHE_SIZE, DEFAULT_LOADER_NEGATIVE_CACHE_SIZE));
+		} catch (NumberFormatException e) {
+			negativeCacheSize = Integer.parseInt(DEFAULT_LOADER_NEGATIVE_CACHE_SIZE);
+		}
+		LOADER_NEGATIVE_CACHE_SIZE = negativeCacheSize;
+
 		// A specified osgi.dev property but unspecified osgi.checkConfiguration
 		// property implies osgi.checkConfiguration = true.
 		inCheckConfigurationMode = Boolean.valueOf(getConfiguration(PROP_CHECK_CONFIGURATION, Boolean.toString(devMode)));
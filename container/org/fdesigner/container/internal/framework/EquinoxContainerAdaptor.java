@@ -38,6 +38,7 @@ import org.fdesigner.container.ModuleContainerAdaptor;
 import org.fdesigner.container.ModuleContainerAdaptor.ContainerEvent;
 import org.fdesigner.container.ModuleContainerAdaptor.ModuleEvent;
 import org.fdesigner.container.ModuleLoader;
+import org.fdesigner.container.ModuleResolutionCache;
 import org.fdesigner.container.ModuleRevision;
 import org.fdesigner.container.ModuleRevisionBuilder;
 import org.fdesigner.container.ModuleWiring;
@@ -54,6 +55,7 @@ import org.fdesigner.framework.framework.BundleEvent;
 import org.fdesigner.framework.framework.Constants;
 import org.fdesigner.framework.framework.FrameworkEvent;
 import org.fdesigner.framework.framework.FrameworkListener;
+import org.fdesigner.framework.framework.hooks.resolver.ResolverHook;
 import org.fdesigner.framework.framework.hooks.resolver.ResolverHookFactory;
 import org.fdesigner.framework.framework.wiring.BundleRevision;
 import org.fdesigner.supplement.service.debug.DebugOptions;
@@ -205,6 +207,12 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		return hooks.getResolverHookFactory();
 	}
 
+	@Override
+	public ModuleResolutionCache getResolutionCache(ResolverHook hook) {
+		ModuleResolutionCache cache = storage.getResolutionCache();
+		return cache != null && hooks.isPassiveResolverHook(hook) ? cache : null;
+	}
+
 	@Override
 	public void publishContainerEvent(ContainerEvent type, Module module, Throwable error, FrameworkListener... listeners) {
 		EquinoxEventPublisher publisher = container.getEventPublisher();
@@ -15,15 +15,20 @@ package org.fdesigner.container.internal.framework;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.fdesigner.container.framework.BatchBundleListener;
 import org.fdesigner.container.internal.debug.Debug;
 import org.fdesigner.container.internal.serviceregistry.HookContext;
 import org.fdesigner.container.internal.serviceregistry.ServiceRegistry;
@@ -53,6 +58,7 @@ public class EquinoxEventPublisher {
 	static final int BUNDLEEVENTSYNC = 2;
 	/* SERVICEEVENT(3) is now handled by ServiceRegistry */
 	static final int FRAMEWORKEVENT = 4;
+	static final int BUNDLEEVENTBATCH = 5;
 
 	private final EquinoxContainer container;
 
@@ -75,13 +81,48 @@ public class EquinoxEventPublisher {
 	// Map of BundleContexts for bundle's FrameworkListeners.
 	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener>> allFrameworkListeners = new LinkedHashMap<>();
 
+	// Map of BundleContexts for bundle's BatchBundleListeners.
+	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<BatchBundleListener, BatchBundleListener>> allBatchBundleListeners = new LinkedHashMap<>();
+
+	// Map of BundleContexts for the events collected for each BatchBundleListener.
+	/* @GuardedBy("pendingBatches") */
+	private final Map<BundleContextImpl, Map<BatchBundleListener, List<BundleEvent>>> pendingBatches = new LinkedHashMap<>();
+	/* @GuardedBy("pendingBatches") */
+	private int pendingBatchEvents = 0;
+	/* @GuardedBy("pendingBatches") */
+	private boolean batchFlushScheduled = false;
+	private int batchSize = 100;
+	private long batchDelay = 100;
+
 	public EquinoxEventPublisher(EquinoxContainer container) {
 		this.container = container;
 	}
 
 	void init() {
 		// create our event manager on init()
-		resetEventManager(new EventManager("Framework Event Dispatcher: " + container.toString())); //$NON-NLS-1$
+		String eventThreadCntProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EQUINOX_EVENT_THREAD_COUNT);
+		int eventThreadCnt;
+		try {
+			// Note that event thread count defaults to 1 (in order delivery to all listeners)
+			eventThreadCnt = eventThreadCntProp == null ? 1 : Integer.parseInt(eventThreadCntProp);
+		} catch (NumberFormatException e) {
+			eventThreadCnt = 1;
+		}
+		resetEventManager(new EventManager("Framework Event Dispatcher: " + container.toString(), null, eventThreadCnt)); //$NON-NLS-1$
+
+		String batchSizeProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EQUINOX_EVENT_BATCH_SIZE);
+		try {
+			batchSize = batchSizeProp == null ? 100 : Math.max(1, Integer.parseInt(batchSizeProp));
+		} catch (NumberFormatException e) {
+			batchSize = 100;
+		}
+		String batchDelayProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EQUINOX_EVENT_BATCH_DELAY);
+		try {
+			// in milliseconds
+			batchDelay = batchDelayProp == null ? 100 : Math.max(0, Long.parseLong(batchDelayProp));
+		} catch (NumberFormatException e) {
+			batchDelay = 100;
+		}
 	}
 
 	void close() {
@@ -93,6 +134,7 @@ public class EquinoxEventPublisher {
 		allBundleListeners.clear();
 		allSyncBundleListeners.clear();
 		allFrameworkListeners.clear();
+		allBatchBundleListeners.clear();
 	}
 
 	private void resetEventManager(EventManager newEventManager) {
@@ -201,6 +243,27 @@ public class EquinoxEventPublisher {
 				}
 			}
 		}
+		/* Collect snapshot of BatchBundleListeners; only if the event is delivered asynchronously */
+		Map<BundleContextImpl, Set<Map.Entry<BatchBundleListener, BatchBundleListener>>> listenersBatch = null;
+		Set<Map.Entry<BatchBundleListener, BatchBundleListener>> systemBundleListenersBatch = null;
+		if (listenersAsync != null) {
+			synchronized (allBatchBundleListeners) {
+				if (!allBatchBundleListeners.isEmpty()) {
+					listenersBatch = new LinkedHashMap<>(allBatchBundleListeners.size());
+					for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<BatchBundleListener, BatchBundleListener>> entry : allBatchBundleListeners.entrySet()) {
+						CopyOnWriteIdentityMap<BatchBundleListener, BatchBundleListener> listeners = entry.getValue();
+						if (!listeners.isEmpty()) {
+							Set<Map.Entry<BatchBundleListener, BatchBundleListener>> listenerEntries = listeners.entrySet();
+							if (entry.getKey().getBundleImpl().getBundleId() == 0) {
+								systemContext = entry.getKey();
+								systemBundleListenersBatch = listenerEntries;
+							}
+							listenersBatch.put(entry.getKey(), listenerEntries);
+						}
+					}
+				}
+			}
+		}
 
 		/* shrink the snapshot.
 		 * keySet returns a Collection which cannot be added to and
@@ -210,8 +273,14 @@ public class EquinoxEventPublisher {
 		Collection<BundleContext> shrinkable;
 		if (listenersAsync == null) {
 			shrinkable = asBundleContexts(listenersSync.keySet());
-		} else {
+		} else if (listenersBatch == null) {
 			shrinkable = new ShrinkableCollection<>(asBundleContexts(listenersSync.keySet()), asBundleContexts(listenersAsync.keySet()));
+		} else {
+			List<Collection<? extends BundleContext>> snapshots = new ArrayList<>(3);
+			snapshots.add(asBundleContexts(listenersSync.keySet()));
+			snapshots.add(asBundleContexts(listenersAsync.keySet()));
+			snapshots.add(asBundleContexts(listenersBatch.keySet()));
+			shrinkable = new ShrinkableCollection<>(snapshots);
 		}
 
 		notifyEventHooksPrivileged(event, shrinkable);
@@ -223,6 +292,9 @@ public class EquinoxEventPublisher {
 		if (systemBundleListenersAsync != null && !listenersAsync.containsKey(systemContext)) {
 			listenersAsync.put(systemContext, systemBundleListenersAsync);
 		}
+		if (systemBundleListenersBatch != null && !listenersBatch.containsKey(systemContext)) {
+			listenersBatch.put(systemContext, systemBundleListenersBatch);
+		}
 
 		/* Dispatch the event to the snapshot for sync listeners */
 		if (!listenersSync.isEmpty()) {
@@ -247,6 +319,89 @@ public class EquinoxEventPublisher {
 			}
 			queue.dispatchEventAsynchronous(BUNDLEEVENT, event);
 		}
+
+		/* Collect the event for the snapshot of batch listeners */
+		if ((listenersBatch != null) && !listenersBatch.isEmpty()) {
+			queueBatchEvent(event, listenersBatch);
+		}
+	}
+
+	private void queueBatchEvent(BundleEvent event, Map<BundleContextImpl, Set<Map.Entry<BatchBundleListener, BatchBundleListener>>> listenersBatch) {
+		boolean schedule = false;
+		synchronized (pendingBatches) {
+			for (Map.Entry<BundleContextImpl, Set<Map.Entry<BatchBundleListener, BatchBundleListener>>> entry : listenersBatch.entrySet()) {
+				Map<BatchBundleListener, List<BundleEvent>> batches = pendingBatches.get(entry.getKey());
+				if (batches == null) {
+					// use identity like the listener maps do
+					batches = new IdentityHashMap<>();
+					pendingBatches.put(entry.getKey(), batches);
+				}
+				for (Map.Entry<BatchBundleListener, BatchBundleListener> listener : entry.getValue()) {
+					List<BundleEvent> batch = batches.get(listener.getKey());
+					if (batch == null) {
+						batch = new ArrayList<>();
+						batches.put(listener.getKey(), batch);
+					}
+					batch.add(event);
+				}
+			}
+			pendingBatchEvents++;
+			if (pendingBatchEvents >= batchSize) {
+				flushBatchEvents();
+			} else if (!batchFlushScheduled) {
+				batchFlushScheduled = true;
+				schedule = true;
+			}
+		}
+		if (schedule) {
+			scheduleBatchFlush();
+		}
+	}
+
+	private void scheduleBatchFlush() {
+		ScheduledExecutorService executor = container.getScheduledExecutor();
+		if (executor != null) {
+			try {
+				executor.schedule(new Runnable() {
+					@Override
+					public void run() {
+						flushBatchEvents();
+					}
+				}, batchDelay, TimeUnit.MILLISECONDS);
+				return;
+			} catch (RejectedExecutionException e) {
+				// the container is shutting down; flush now
+			}
+		}
+		flushBatchEvents();
+	}
+
+	/**
+	 * Posts the events collected for the batch bundle listeners to the event
+	 * manager.  Posting is done while holding the pendingBatches lock to keep
+	 * the batches of a listener in order.
+	 */
+	void flushBatchEvents() {
+		synchronized (pendingBatches) {
+			batchFlushScheduled = false;
+			if (pendingBatchEvents == 0) {
+				return;
+			}
+			pendingBatchEvents = 0;
+			if (isEventManagerSet()) {
+				for (Map.Entry<BundleContextImpl, Map<BatchBundleListener, List<BundleEvent>>> entry : pendingBatches.entrySet()) {
+					@SuppressWarnings({"rawtypes", "unchecked"})
+					EventDispatcher<BatchBundleListener, BatchBundleListener, List<BundleEvent>> dispatcher = (EventDispatcher) entry.getKey();
+					for (Map.Entry<BatchBundleListener, List<BundleEvent>> batch : entry.getValue().entrySet()) {
+						// each listener gets its own list of events; use a queue per listener
+						ListenerQueue<BatchBundleListener, BatchBundleListener, List<BundleEvent>> queue = newListenerQueue();
+						queue.queueListeners(Collections.singletonMap(batch.getKey(), batch.getKey()).entrySet(), dispatcher);
+						queue.dispatchEventAsynchronous(BUNDLEEVENTBATCH, Collections.unmodifiableList(batch.getValue()));
+					}
+				}
+			}
+			pendingBatches.clear();
+		}
 	}
 
 	private void notifyEventHooksPrivileged(final BundleEvent event, final Collection<BundleContext> result) {
@@ -317,6 +472,8 @@ public class EquinoxEventPublisher {
 		if (!isEventManagerSet()) {
 			return;
 		}
+		// deliver the collected bundle events before the framework event
+		flushBatchEvents();
 		// Build the listener snapshot
 		Map<BundleContextImpl, Set<Map.Entry<FrameworkListener, FrameworkListener>>> listenerSnapshot;
 		synchronized (allFrameworkListeners) {
@@ -385,6 +542,15 @@ public class EquinoxEventPublisher {
 				}
 				listeners.put((SynchronousBundleListener) listener, (SynchronousBundleListener) listener);
 			}
+		} else if (listener instanceof BatchBundleListener) {
+			synchronized (allBatchBundleListeners) {
+				CopyOnWriteIdentityMap<BatchBundleListener, BatchBundleListener> listeners = allBatchBundleListeners.get(context);
+				if (listeners == null) {
+					listeners = new CopyOnWriteIdentityMap<>();
+					allBatchBundleListeners.put(context, listeners);
+				}
+				listeners.put((BatchBundleListener) listener, (BatchBundleListener) listener);
+			}
 		} else {
 			synchronized (allBundleListeners) {
 				CopyOnWriteIdentityMap<BundleListener, BundleListener> listeners = allBundleListeners.get(context);
@@ -405,6 +571,12 @@ public class EquinoxEventPublisher {
 				if (listeners != null)
 					listeners.remove(listener);
 			}
+		} else if (listener instanceof BatchBundleListener) {
+			synchronized (allBatchBundleListeners) {
+				CopyOnWriteIdentityMap<BatchBundleListener, BatchBundleListener> listeners = allBatchBundleListeners.get(context);
+				if (listeners != null)
+					listeners.remove(listener);
+			}
 		} else {
 			synchronized (allBundleListeners) {
 				CopyOnWriteIdentityMap<BundleListener, BundleListener> listeners = allBundleListeners.get(context);
@@ -442,6 +614,12 @@ public class EquinoxEventPublisher {
 			synchronized (allSyncBundleListeners) {
 				allSyncBundleListeners.remove(context);
 			}
+			synchronized (allBatchBundleListeners) {
+				allBatchBundleListeners.remove(context);
+			}
+			synchronized (pendingBatches) {
+				pendingBatches.remove(context);
+			}
 		}
 		synchronized (allFrameworkListeners) {
 			allFrameworkListeners.remove(context);
@@ -449,24 +627,14 @@ public class EquinoxEventPublisher {
 	}
 
 	void flushFrameworkEvents() {
-		EventDispatcher<Object, Object, CountDownLatch> dispatcher = new EventDispatcher<Object, Object, CountDownLatch>() {
-			@Override
-			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushedSignal) {
-				// Signal that we have flushed all events
-				flushedSignal.countDown();
-			}
-		};
-
-		ListenerQueue<Object, Object, CountDownLatch> queue = newListenerQueue();
-		queue.queueListeners(Collections.<Object, Object> singletonMap(dispatcher, dispatcher).entrySet(), dispatcher);
-
-		// fire event with the flushedSignal latch
-		CountDownLatch flushedSignal = new CountDownLatch(1);
-		queue.dispatchEventAsynchronous(0, flushedSignal);
-
+		flushBatchEvents();
+		EventManager currentEventManager;
+		synchronized (this.monitor) {
+			currentEventManager = eventManager;
+		}
 		try {
-			// Wait for the flush signal; timeout after 30 seconds
-			flushedSignal.await(30, TimeUnit.SECONDS);
+			// Wait for all events to be delivered; timeout after 30 seconds
+			currentEventManager.flush(30, TimeUnit.SECONDS);
 		} catch (InterruptedException e) {
 			// ignore but reset the interrupted flag
 			Thread.currentThread().interrupt();
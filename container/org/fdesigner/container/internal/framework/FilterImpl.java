@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +41,7 @@ import org.fdesigner.framework.framework.Filter;
 import org.fdesigner.framework.framework.InvalidSyntaxException;
 import org.fdesigner.framework.framework.ServiceReference;
 import org.fdesigner.framework.framework.Version;
+import org.fdesigner.framework.framework.VersionRange;
 import org.fdesigner.supplement.internal.messages.Msg;
 import org.fdesigner.supplement.util.NLS;
 
@@ -517,6 +519,25 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 	/* normalized filter string for topLevel Filter object */
 	private transient volatile String filterString;
 
+	/** Filter operand coerced to the types of the compared property values.
+	 * Only the fixed set of JDK and framework types is cached so that a filter
+	 * never references a class loaded by a bundle.  The map is never modified;
+	 * a new map is published when a type is added.
+	 */
+	private transient volatile Map<CoercedType, Object> coercedValues = null;
+	/** marker for an operand which cannot be coerced to a type */
+	private static final Object NOT_COERCIBLE = new Object();
+	/** The resolved static valueOf(String) method or String constructor of each
+	 * property value type compared through reflection.  A ClassValue does not keep
+	 * the class or its class loader reachable.
+	 */
+	private static final ClassValue<Object> valueOfFactories = new ClassValue<Object>() {
+		@Override
+		protected Object computeValue(Class<?> type) {
+			return findValueOfFactory(type);
+		}
+	};
+
 	FilterImpl(int operation, String attr, Object value, boolean debug) {
 		this.op = operation;
 		this.attr = attr;
@@ -812,7 +833,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 				}
 
 				string = approxString(string);
-				String string2 = approxString((String) value2);
+				String string2 = (String) coerce(CoercedType.APPROX_STRING, (String) value2);
 
 				return string.equalsIgnoreCase(string2);
 			}
@@ -841,12 +862,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		int intval2;
-		try {
-			intval2 = Integer.parseInt(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Integer coerced = (Integer) coerce(CoercedType.INTEGER, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		int intval2 = coerced.intValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -885,12 +905,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		long longval2;
-		try {
-			longval2 = Long.parseLong(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Long coerced = (Long) coerce(CoercedType.LONG, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		long longval2 = coerced.longValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -929,12 +948,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		byte byteval2;
-		try {
-			byteval2 = Byte.parseByte(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Byte coerced = (Byte) coerce(CoercedType.BYTE, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		byte byteval2 = coerced.byteValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -973,12 +991,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		short shortval2;
-		try {
-			shortval2 = Short.parseShort(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Short coerced = (Short) coerce(CoercedType.SHORT, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		short shortval2 = coerced.shortValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1017,12 +1034,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		char charval2;
-		try {
-			charval2 = ((String) value2).charAt(0);
-		} catch (IndexOutOfBoundsException e) {
+		Character coerced = (Character) coerce(CoercedType.CHARACTER, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		char charval2 = coerced.charValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1061,7 +1077,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		boolean boolval2 = Boolean.valueOf(((String) value2).trim()).booleanValue();
+		boolean boolval2 = ((Boolean) coerce(CoercedType.BOOLEAN, (String) value2)).booleanValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1100,12 +1116,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		float floatval2;
-		try {
-			floatval2 = Float.parseFloat(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Float coerced = (Float) coerce(CoercedType.FLOAT, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		float floatval2 = coerced.floatValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1144,12 +1159,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		double doubleval2;
-		try {
-			doubleval2 = Double.parseDouble(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Double coerced = (Double) coerce(CoercedType.DOUBLE, (String) value2);
+		if (coerced == null) {
 			return false;
 		}
+		double doubleval2 = coerced.doubleValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1180,42 +1194,111 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 		return false;
 	}
 
-	private static Object valueOf(Class<?> target, String value2) {
-		do {
-			Method method;
-			try {
-				method = target.getMethod("valueOf", String.class); //$NON-NLS-1$
-			} catch (NoSuchMethodException e) {
-				break;
+	/**
+	 * The types a filter operand is coerced to which are cached by the filter.
+	 */
+	private enum CoercedType {
+		/** the operand normalized for approximate matching */
+		APPROX_STRING, INTEGER, LONG, BYTE, SHORT, FLOAT, DOUBLE, CHARACTER, BOOLEAN, VERSION
+	}
+
+	/**
+	 * Returns the filter operand coerced to the specified type. The coerced
+	 * value is computed once per type and then reused for all subsequent
+	 * matches of this filter so that hot filters do not reparse the operand
+	 * on every match.
+	 *
+	 * @param type The type to coerce the operand to.
+	 * @param value2 The filter operand.
+	 * @return The coerced operand or <code>null</code> if the operand cannot
+	 *         be coerced to the specified type.
+	 */
+	private Object coerce(CoercedType type, String value2) {
+		Map<CoercedType, Object> current = coercedValues;
+		Object result = current == null ? null : current.get(type);
+		if (result == null) {
+			result = coerceValue(type, value2);
+			if (result == null) {
+				result = NOT_COERCIBLE;
 			}
-			if (Modifier.isStatic(method.getModifiers()) && target.isAssignableFrom(method.getReturnType())) {
-				setAccessible(method);
-				try {
-					return method.invoke(null, value2.trim());
-				} catch (IllegalAccessException | InvocationTargetException e) {
+			Map<CoercedType, Object> updated = current == null ? new EnumMap<CoercedType, Object>(CoercedType.class) : new EnumMap<>(current);
+			updated.put(type, result);
+			coercedValues = updated;
+		}
+		return result == NOT_COERCIBLE ? null : result;
+	}
+
+	private static Object coerceValue(CoercedType type, String value2) {
+		try {
+			switch (type) {
+				case APPROX_STRING :
+					return approxString(value2);
+				case INTEGER :
+					return Integer.valueOf(value2.trim());
+				case LONG :
+					return Long.valueOf(value2.trim());
+				case BYTE :
+					return Byte.valueOf(value2.trim());
+				case SHORT :
+					return Short.valueOf(value2.trim());
+				case FLOAT :
+					return Float.valueOf(value2.trim());
+				case DOUBLE :
+					return Double.valueOf(value2.trim());
+				case CHARACTER :
+					return value2.length() == 0 ? null : Character.valueOf(value2.charAt(0));
+				case BOOLEAN :
+					return Boolean.valueOf(value2.trim());
+				case VERSION :
+					return Version.valueOf(value2.trim());
+				default :
 					return null;
-				}
 			}
-		} while (false);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
 
-		do {
-			Constructor<?> constructor;
-			try {
-				constructor = target.getConstructor(String.class);
-			} catch (NoSuchMethodException e) {
-				break;
+	private static Object valueOf(Class<?> target, String value2) {
+		Object factory = valueOfFactories.get(target);
+		try {
+			if (factory instanceof Method) {
+				return ((Method) factory).invoke(null, value2.trim());
 			}
-			setAccessible(constructor);
-			try {
-				return constructor.newInstance(value2.trim());
-			} catch (IllegalAccessException | InvocationTargetException | InstantiationException e) {
-				return null;
+			if (factory instanceof Constructor) {
+				return ((Constructor<?>) factory).newInstance(value2.trim());
 			}
-		} while (false);
-
+		} catch (IllegalAccessException | InvocationTargetException | InstantiationException e) {
+			return null;
+		}
 		return null;
 	}
 
+	/**
+	 * Returns the static valueOf(String) method or the String constructor used to
+	 * create a value of the specified type from a filter operand.
+	 * @param target the type of the property value
+	 * @return the method or constructor or {@link #NOT_COERCIBLE} if the type has neither
+	 */
+	private static Object findValueOfFactory(Class<?> target) {
+		try {
+			Method method = target.getMethod("valueOf", String.class); //$NON-NLS-1$
+			if (Modifier.isStatic(method.getModifiers()) && target.isAssignableFrom(method.getReturnType())) {
+				setAccessible(method);
+				return method;
+			}
+		} catch (NoSuchMethodException e) {
+			// try the constructor
+		}
+		try {
+			Constructor<?> constructor = target.getConstructor(String.class);
+			setAccessible(constructor);
+			return constructor;
+		} catch (NoSuchMethodException e) {
+			return NOT_COERCIBLE;
+		}
+	}
+
 	private static void setAccessible(AccessibleObject accessible) {
 		if (!accessible.isAccessible()) {
 			AccessController.doPrivileged(new SetAccessibleAction(accessible));
@@ -1229,9 +1312,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			}
 			return false;
 		}
+		Version version = (Version) coerce(CoercedType.VERSION, (String) value2);
+		if (version == null) {
+			return false;
+		}
 		try {
-			Version version = Version.valueOf(((String) value2).trim());
-
 			switch (operation) {
 				case EQUAL : {
 					if (debug) {
@@ -1876,6 +1961,68 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 		return result;
 	}
 
+	/**
+	 * Returns the version range required by this filter for the specified version attribute.
+	 * Only the version comparisons of a simple filter or of a base '&amp;' clause are
+	 * considered. The returned range may include versions which do not match this
+	 * filter but no {@link Version} value outside of the range can match this filter.
+	 * This is useful for narrowing candidates indexed by version before matching them
+	 * against this filter.
+	 * <pre>
+	 * (version&gt;=1.0) [1.0,infinity)
+	 * (&amp;(version&gt;=1.0)(!(version&gt;=2.0))) [1.0,2.0)
+	 * (|(version=1.0)(version=2.0)) null
+	 * </pre>
+	 * @param versionAttr the version attribute
+	 * @return The version range or null if no range could be determined.
+	 */
+	public VersionRange getVersionRange(String versionAttr) {
+		FilterImpl[] clauses = op == AND ? (FilterImpl[]) value : new FilterImpl[] {this};
+		Version left = null;
+		boolean leftOpen = false;
+		Version right = null;
+		boolean rightOpen = false;
+		for (FilterImpl clause : clauses) {
+			FilterImpl comparison = clause.op == NOT ? (FilterImpl) clause.value : clause;
+			if (!versionAttr.equals(comparison.attr) || !(comparison.value instanceof String)) {
+				continue;
+			}
+			Version version;
+			try {
+				version = Version.valueOf(((String) comparison.value).trim());
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+			boolean not = clause.op == NOT;
+			int compareOp = comparison.op;
+			if (!not && (compareOp == EQUAL || compareOp == GREATER) || not && compareOp == LESS) {
+				// a left endpoint; keep the highest
+				boolean open = not;
+				int c = left == null ? 1 : version.compareTo(left);
+				if (c > 0 || (c == 0 && open)) {
+					left = version;
+					leftOpen = open;
+				}
+			}
+			if (!not && (compareOp == EQUAL || compareOp == LESS) || not && compareOp == GREATER) {
+				// a right endpoint; keep the lowest
+				boolean open = not;
+				int c = right == null ? -1 : version.compareTo(right);
+				if (c < 0 || (c == 0 && open)) {
+					right = version;
+					rightOpen = open;
+				}
+			}
+		}
+		if (left == null && right == null) {
+			return null;
+		}
+		if (left == null) {
+			left = Version.emptyVersion;
+		}
+		return new VersionRange(leftOpen ? VersionRange.LEFT_OPEN : VersionRange.LEFT_CLOSED, left, right, rightOpen ? VersionRange.RIGHT_OPEN : VersionRange.RIGHT_CLOSED);
+	}
+
 	private void addAttributes(Map<String, String> attributes, Map<String, Range> versionAttrs, boolean not) {
 		if (op == EQUAL) {
 			if (!versionAttrs.containsKey(attr)) {
@@ -60,6 +60,17 @@ class OSGiFrameworkHooks {
 		return resolverHookFactory;
 	}
 
+	/**
+	 * Returns true if the specified resolver hook got created by the resolver hook factory
+	 * of the framework and does not influence the resolution.  This is the case after
+	 * the framework got initialized and while no resolver hook factory services are registered.
+	 * @param hook the resolver hook
+	 * @return true if the resolver hook does not influence the resolution
+	 */
+	public boolean isPassiveResolverHook(ResolverHook hook) {
+		return hook instanceof CoreResolverHookFactory.CoreResolverHook && ((CoreResolverHookFactory.CoreResolverHook) hook).isPassive();
+	}
+
 	public ModuleCollisionHook getModuleCollisionHook() {
 		return collisionHook;
 	}
@@ -293,6 +304,10 @@ class OSGiFrameworkHooks {
 				}
 			}
 
+			boolean isPassive() {
+				return hooks.isEmpty() && !isBootInit();
+			}
+
 			private boolean isBootInit() {
 				return systemModule == null || !Module.RESOLVED_SET.contains(systemModule.getState()) || (systemModule.getState().equals(State.STARTING) && inInit);
 			}
@@ -26,8 +26,10 @@ import java.util.Properties;
 import org.fdesigner.container.internal.cds.CDSHookConfigurator;
 import org.fdesigner.container.internal.framework.EquinoxConfiguration;
 import org.fdesigner.container.internal.framework.EquinoxContainer;
+import org.fdesigner.container.internal.hooks.ClassPreloader;
 import org.fdesigner.container.internal.hooks.DevClassLoadingHook;
 import org.fdesigner.container.internal.hooks.EclipseLazyStarter;
+import org.fdesigner.container.internal.loader.classpath.ClasspathIndexHookConfigurator;
 import org.fdesigner.container.internal.signedcontent.SignedBundleHook;
 import org.fdesigner.container.internal.weaving.WeavingHookConfigurator;
 import org.fdesigner.supplement.framework.log.FrameworkLogEntry;
@@ -113,6 +115,8 @@ public final class HookRegistry {
 			addClassLoaderHook(new WeavingHookConfigurator(container));
 			configurators.add(SignedBundleHook.class.getName());
 			configurators.add(CDSHookConfigurator.class.getName());
+			configurators.add(ClasspathIndexHookConfigurator.class.getName());
+			configurators.add(ClassPreloader.class.getName());
 			loadConfigurators(configurators, errors);
 			// set to read-only
 			initialized = true;
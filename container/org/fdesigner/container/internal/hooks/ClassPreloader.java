@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.internal.hooks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.fdesigner.container.Module;
+import org.fdesigner.container.ModuleLoader;
+import org.fdesigner.container.ModuleRevision;
+import org.fdesigner.container.ModuleWiring;
+import org.fdesigner.container.internal.debug.Debug;
+import org.fdesigner.container.internal.framework.EquinoxBundle;
+import org.fdesigner.container.internal.framework.EquinoxConfiguration;
+import org.fdesigner.container.internal.hookregistry.ActivatorHookFactory;
+import org.fdesigner.container.internal.hookregistry.ClassLoaderHook;
+import org.fdesigner.container.internal.hookregistry.HookConfigurator;
+import org.fdesigner.container.internal.hookregistry.HookRegistry;
+import org.fdesigner.container.internal.hooks.ClassTraceStorageHook.ClassTrace;
+import org.fdesigner.container.internal.loader.BundleLoader;
+import org.fdesigner.container.internal.loader.ModuleClassLoader;
+import org.fdesigner.container.internal.loader.classpath.ClasspathEntry;
+import org.fdesigner.container.internal.loader.classpath.ClasspathManager;
+import org.fdesigner.container.storage.BundleInfo.Generation;
+import org.fdesigner.container.storage.bundlefile.BundleEntry;
+import org.fdesigner.framework.framework.Bundle;
+import org.fdesigner.framework.framework.BundleActivator;
+import org.fdesigner.framework.framework.BundleContext;
+import org.fdesigner.framework.framework.BundleEvent;
+import org.fdesigner.framework.framework.SynchronousBundleListener;
+
+/**
+ * A class loader hook which records the classes defined by each module class loader
+ * and defines the recorded classes ahead of time on the next launch.  When a bundle
+ * gets resolved, is waiting for lazy activation or is starting, the classes recorded
+ * for it by the previous launch are defined by a pool of worker threads while the
+ * framework continues to start the bundles.  The classes of a single class loader
+ * are defined in the recorded order so that super types are defined before their
+ * sub types.  Only class loaders which are registered as parallel capable are
+ * preloaded.
+ * <p>
+ * Preloading goes through the normal class loader hooks.  When defining a class
+ * ahead of time would trigger the lazy activation of a bundle the trigger is
+ * deferred.  It is replayed by loading the class again through the normal path
+ * once the preloaded bundle gets its first real class request.
+ * <p>
+ * The preloader is enabled with the {@link EquinoxConfiguration#PROP_CLASS_PRELOAD}
+ * configuration property.
+ */
+public class ClassPreloader extends ClassLoaderHook implements HookConfigurator, ActivatorHookFactory {
+	/**
+	 * A lazy activation trigger which got deferred while preloading.
+	 */
+	private static final class DeferredTrigger {
+		final Module module;
+		final String className;
+
+		DeferredTrigger(Module module, String className) {
+			this.module = module;
+			this.className = className;
+		}
+	}
+
+	/**
+	 * The preload running on a worker thread.
+	 */
+	private static final class Preload {
+		final ClassPreloader preloader;
+		final Module module;
+
+		Preload(ClassPreloader preloader, Module module) {
+			this.preloader = preloader;
+			this.module = module;
+		}
+	}
+
+	private static final ThreadLocal<Preload> preloading = new ThreadLocal<>();
+
+	private final ClassTraceStorageHook traceHook = new ClassTraceStorageHook();
+	/* the deferred triggers by the preloaded module which caused them */
+	private final ConcurrentMap<Module, List<DeferredTrigger>> deferredTriggers = new ConcurrentHashMap<>();
+	private Debug debug;
+	private int threadCount;
+	/* @GuardedBy("this") */
+	private Executor executor;
+
+	/**
+	 * Returns true if the current thread is preloading classes.
+	 * @return true if the current thread is preloading classes
+	 */
+	public static boolean isPreloading() {
+		return preloading.get() != null;
+	}
+
+	/**
+	 * Defers the lazy activation trigger of a class defined by the current preloading
+	 * thread.  The trigger is replayed by loading the class through the normal path when
+	 * the bundle being preloaded gets its first real class request.
+	 * @param className the name of the class which triggers the activation
+	 * @param module the module to activate
+	 */
+	public static void deferActivation(String className, Module module) {
+		Preload current = preloading.get();
+		if (current == null || current.module == module) {
+			// the first real request of the preloaded module triggers its own activation
+			return;
+		}
+		List<DeferredTrigger> triggers = current.preloader.deferredTriggers.get(current.module);
+		if (triggers == null) {
+			triggers = new ArrayList<>();
+			List<DeferredTrigger> existing = current.preloader.deferredTriggers.putIfAbsent(current.module, triggers);
+			if (existing != null) {
+				triggers = existing;
+			}
+		}
+		synchronized (triggers) {
+			triggers.add(new DeferredTrigger(module, className));
+		}
+	}
+
+	@Override
+	public void addHooks(HookRegistry hookRegistry) {
+		EquinoxConfiguration configuration = hookRegistry.getConfiguration();
+		if (!Boolean.parseBoolean(configuration.getConfiguration(EquinoxConfiguration.PROP_CLASS_PRELOAD))) {
+			return;
+		}
+		debug = configuration.getDebug();
+		try {
+			threadCount = Integer.parseInt(configuration.getConfiguration(EquinoxConfiguration.PROP_CLASS_PRELOAD_THREAD_COUNT, "0")); //$NON-NLS-1$
+		} catch (NumberFormatException e) {
+			threadCount = 0;
+		}
+		if (threadCount <= 0) {
+			threadCount = Runtime.getRuntime().availableProcessors();
+		}
+		hookRegistry.addClassLoaderHook(this);
+		hookRegistry.addStorageHookFactory(traceHook);
+		hookRegistry.addActivatorHookFactory(this);
+	}
+
+	@Override
+	public BundleActivator createActivator() {
+		return new BundleActivator() {
+			private final SynchronousBundleListener listener = new SynchronousBundleListener() {
+				@Override
+				public void bundleChanged(BundleEvent event) {
+					switch (event.getType()) {
+						case BundleEvent.RESOLVED :
+						case BundleEvent.LAZY_ACTIVATION :
+						case BundleEvent.STARTING :
+							schedulePreload(event.getBundle());
+							break;
+						case BundleEvent.STOPPED :
+							traceHook.saveChanged(event.getBundle().getBundleId());
+							break;
+						default :
+							break;
+					}
+				}
+			};
+
+			@Override
+			public void start(BundleContext context) throws Exception {
+				context.addBundleListener(listener);
+			}
+
+			@Override
+			public void stop(BundleContext context) throws Exception {
+				context.removeBundleListener(listener);
+				traceHook.saveChanged(-1);
+				deferredTriggers.clear();
+			}
+		};
+	}
+
+	@Override
+	public void recordClassDefine(String name, Class<?> clazz, byte[] classbytes, ClasspathEntry classpathEntry, BundleEntry entry, ClasspathManager manager) {
+		if (clazz == null || isPreloading()) {
+			// a preloaded class is recorded once it is really requested
+			return;
+		}
+		ClassTrace trace = manager.getGeneration().getStorageHook(ClassTraceStorageHook.class);
+		if (trace != null) {
+			trace.record(name);
+		}
+	}
+
+	@Override
+	public void postFindLocalClass(String name, Class<?> clazz, ClasspathManager manager) throws ClassNotFoundException {
+		if (clazz == null || isPreloading()) {
+			return;
+		}
+		ClassTrace trace = manager.getGeneration().getStorageHook(ClassTraceStorageHook.class);
+		if (trace != null && trace.isPreloaded()) {
+			// the class may have been defined by the preloader; record the real request
+			trace.record(name);
+		}
+		if (deferredTriggers.isEmpty()) {
+			return;
+		}
+		List<DeferredTrigger> triggers = deferredTriggers.remove(manager.getGeneration().getRevision().getRevisions().getModule());
+		if (triggers == null) {
+			return;
+		}
+		List<DeferredTrigger> replay;
+		synchronized (triggers) {
+			replay = new ArrayList<>(triggers);
+		}
+		for (DeferredTrigger trigger : replay) {
+			ModuleClassLoader classLoader = getModuleClassLoader(trigger.module);
+			if (classLoader == null) {
+				continue;
+			}
+			try {
+				// load the class through the normal path to fire the lazy activation trigger
+				classLoader.loadClass(trigger.className);
+			} catch (ClassNotFoundException | LinkageError e) {
+				if (debug.DEBUG_LOADER) {
+					Debug.println("ClassPreloader: error replaying the activation trigger " + trigger.className + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+	}
+
+	void schedulePreload(Bundle bundle) {
+		if (bundle.getBundleId() == 0 || !(bundle instanceof EquinoxBundle)) {
+			return;
+		}
+		final Module module = ((EquinoxBundle) bundle).getModule();
+		getExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				preload(module);
+			}
+		});
+	}
+
+	void preload(Module module) {
+		ModuleRevision revision = module.getCurrentRevision();
+		ModuleWiring wiring = revision == null ? null : revision.getWiring();
+		if (wiring == null) {
+			return;
+		}
+		// check the trace before creating a class loader for the module
+		ClassTrace trace = ((Generation) revision.getRevisionInfo()).getStorageHook(ClassTraceStorageHook.class);
+		if (trace == null) {
+			return;
+		}
+		String[] classNames = trace.getPreviousClassNames();
+		if (classNames.length == 0 || !trace.startPreload()) {
+			return;
+		}
+		ModuleClassLoader classLoader = getModuleClassLoader(module);
+		if (classLoader == null || !classLoader.isRegisteredAsParallel()) {
+			// defining classes concurrently with real requests needs a parallel capable class loader
+			return;
+		}
+		ClasspathManager manager = classLoader.getClasspathManager();
+		if (debug.DEBUG_LOADER) {
+			Debug.println("ClassPreloader: preloading " + classNames.length + " classes for " + manager.getGeneration().getRevision()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		preloading.set(new Preload(this, module));
+		try {
+			for (String className : classNames) {
+				if (wiring == null || !wiring.isCurrent()) {
+					// the wiring got refreshed; the class loader is no longer in use
+					return;
+				}
+				try {
+					manager.findLocalClass(className);
+				} catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+					if (debug.DEBUG_LOADER) {
+						Debug.println("ClassPreloader: error preloading " + className + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				}
+			}
+		} finally {
+			preloading.remove();
+		}
+	}
+
+	private static ModuleClassLoader getModuleClassLoader(Module module) {
+		ModuleRevision revision = module.getCurrentRevision();
+		ModuleWiring wiring = revision == null ? null : revision.getWiring();
+		if (wiring == null) {
+			return null;
+		}
+		ModuleLoader moduleLoader = wiring.getModuleLoader();
+		if (!(moduleLoader instanceof BundleLoader)) {
+			// fragments do not have a class loader
+			return null;
+		}
+		return ((BundleLoader) moduleLoader).getModuleClassLoader();
+	}
+
+	private synchronized Executor getExecutor() {
+		if (executor == null) {
+			ThreadFactory threadFactory = new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Equinox class preloader thread - " + ClassPreloader.this.toString()); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			};
+			// idle timeout; make it short to get rid of threads quickly after startup
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		return executor;
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.internal.hooks;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.fdesigner.container.internal.hookregistry.StorageHookFactory;
+import org.fdesigner.container.storage.BundleInfo.Generation;
+
+/**
+ * A storage hook which persists the names of the classes defined by the
+ * class loader of a host generation in the order they got defined.
+ * The trace is used by the {@link ClassPreloader} to define the classes
+ * ahead of time on the next launch.
+ * <p>
+ * Each launch records a new trace which replaces the trace of the previous
+ * launch when it is saved, classes which are no longer used age out.  A class
+ * defined ahead of time by the preloader is only recorded once it is requested
+ * through its class loader.  A trace holds at most {@link #MAX_CLASSES} class
+ * names.  Recording a class does not save the trace; the changed traces are
+ * saved in a batch when their bundle stops and when the framework stops.
+ */
+public class ClassTraceStorageHook extends StorageHookFactory<Object, Object, ClassTraceStorageHook.ClassTrace> {
+	private static final int STORAGE_VERSION = 1;
+	/** the maximum number of class names in a trace */
+	static final int MAX_CLASSES = 4096;
+
+	/** the traces which changed since they were saved */
+	private final Set<ClassTrace> changed = Collections.newSetFromMap(new ConcurrentHashMap<ClassTrace, Boolean>());
+
+	@Override
+	public int getStorageVersion() {
+		return STORAGE_VERSION;
+	}
+
+	@Override
+	protected ClassTrace createStorageHook(Generation generation) {
+		return new ClassTrace(generation, this);
+	}
+
+	/**
+	 * Marks the changed traces of the specified bundle for saving by the next storage save.
+	 * @param bundleId the id of the bundle or -1 for all bundles
+	 */
+	void saveChanged(long bundleId) {
+		for (Iterator<ClassTrace> iChanged = changed.iterator(); iChanged.hasNext();) {
+			ClassTrace trace = iChanged.next();
+			Generation generation = trace.getGeneration();
+			if (bundleId == -1 || generation.getBundleInfo().getBundleId() == bundleId) {
+				iChanged.remove();
+				generation.getBundleInfo().getStorage().storageHookDataChanged(generation);
+			}
+		}
+	}
+
+	public static class ClassTrace extends StorageHookFactory.StorageHook<Object, Object> {
+		private final ClassTraceStorageHook factory;
+		private final AtomicBoolean preloadStarted = new AtomicBoolean();
+		/* the classes recorded by the previous launch */
+		private volatile String[] previousClassNames = new String[0];
+		/* the classes recorded by this launch */
+		/* @GuardedBy("this") */
+		private final Set<String> classNames = new LinkedHashSet<>();
+
+		public ClassTrace(Generation generation, ClassTraceStorageHook factory) {
+			super(generation, ClassTraceStorageHook.class);
+			this.factory = factory;
+		}
+
+		/**
+		 * Returns the class names recorded by the previous launch in the order they got defined.
+		 * @return the class names recorded by the previous launch
+		 */
+		String[] getPreviousClassNames() {
+			return previousClassNames;
+		}
+
+		/**
+		 * Marks the trace as being preloaded.
+		 * @return false if the trace got preloaded already
+		 */
+		boolean startPreload() {
+			return preloadStarted.compareAndSet(false, true);
+		}
+
+		/**
+		 * Returns true if the trace got preloaded.
+		 * @return true if the trace got preloaded
+		 */
+		boolean isPreloaded() {
+			return preloadStarted.get();
+		}
+
+		/**
+		 * Records that a class got defined.
+		 * @param name the name of the class
+		 */
+		void record(String name) {
+			synchronized (this) {
+				if (classNames.size() >= MAX_CLASSES || !classNames.add(name)) {
+					return;
+				}
+			}
+			factory.changed.add(this);
+		}
+
+		@Override
+		public void load(Object loadContext, DataInputStream is) throws IOException {
+			int size = is.readInt();
+			String[] names = new String[size];
+			for (int i = 0; i < size; i++) {
+				names[i] = is.readUTF();
+			}
+			previousClassNames = names;
+		}
+
+		@Override
+		public void save(Object saveContext, DataOutputStream os) throws IOException {
+			String[] names;
+			synchronized (this) {
+				names = classNames.toArray(new String[classNames.size()]);
+			}
+			os.writeInt(names.length);
+			for (String name : names) {
+				os.writeUTF(name);
+			}
+		}
+	}
+}
@@ -62,6 +62,10 @@ public class EclipseLazyStarter extends ClassLoaderHook {
 
 	@Override
 	public void preFindLocalClass(String name, ClasspathManager manager) throws ClassNotFoundException {
+		if (ClassPreloader.isPreloading()) {
+			deferActivation(name, manager);
+			return;
+		}
 		if (initiatingClassName.get() == null) {
 			initiatingClassName.set(name);
 		}
@@ -87,6 +91,17 @@ public class EclipseLazyStarter extends ClassLoaderHook {
 		}
 	}
 
+	/*
+	 * Classes defined ahead of time by the ClassPreloader do not activate a bundle right away;
+	 * the trigger is replayed through this hook by the first real class request of the preloaded bundle.
+	 */
+	private void deferActivation(String name, ClasspathManager manager) throws ClassNotFoundException {
+		ModuleRevision revision = manager.getGeneration().getRevision();
+		Module module = revision.getRevisions().getModule();
+		if (!alreadyActive.contains(module.getState()) && shouldActivateFor(name, module, revision, manager))
+			ClassPreloader.deferActivation(name, module);
+	}
+
 	@Override
 	public void postFindLocalClass(String name, Class<?> clazz, ClasspathManager manager) throws ClassNotFoundException {
 		if (initiatingClassName.get() != name)
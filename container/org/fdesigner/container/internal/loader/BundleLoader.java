@@ -35,6 +35,7 @@ import java.util.regex.Pattern;
 
 import org.fdesigner.container.Module;
 import org.fdesigner.container.ModuleCapability;
+import org.fdesigner.container.ModuleContainer;
 import org.fdesigner.container.ModuleLoader;
 import org.fdesigner.container.ModuleRequirement;
 import org.fdesigner.container.ModuleRevision;
@@ -113,14 +114,9 @@ public class BundleLoader extends ModuleLoader {
 
 	/* @GuardedBy("importedSources") */
 	private boolean importsInitialized = false;
+	/* Matches the package names to import dynamically. */
 	/* @GuardedBy("importedSources") */
-	private boolean dynamicAllPackages;
-	/* If not null, list of package stems to import dynamically. */
-	/* @GuardedBy("importedSources") */
-	private String[] dynamicImportPackageStems;
-	/* @GuardedBy("importedSources") */
-	/* If not null, list of package names to import dynamically. */
-	private String[] dynamicImportPackages;
+	private final DynamicImportMatcher dynamicImportPackages = new DynamicImportMatcher();
 
 	private final Object classLoaderCreatedMonitor = new Object();
 	/* @GuardedBy("classLoaderCreatedMonitor") */
@@ -130,6 +126,14 @@ public class BundleLoader extends ModuleLoader {
 	private final AtomicBoolean triggerClassLoaded = new AtomicBoolean(false);
 	private final AtomicBoolean firstUseOfInvalidLoader = new AtomicBoolean(false);
 
+	private final ModuleContainer moduleContainer;
+	/* class names which could not be found by searching the wiring of this bundle */
+	private final NegativeLookupCache classMisses;
+	/* resource names which could not be found by searching the wiring of this bundle */
+	private final NegativeLookupCache resourceMisses;
+	/* package names which failed to resolve dynamically */
+	private final NegativeLookupCache dynamicMisses;
+
 	/**
 	 * Returns the package name from the specified class name.
 	 * The returned package is dot seperated.
@@ -171,6 +175,11 @@ public class BundleLoader extends ModuleLoader {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
 		this.parent = parent;
+		this.moduleContainer = wiring.getRevision().getRevisions().getModule().getContainer();
+		int negativeCacheSize = container.getConfiguration().LOADER_NEGATIVE_CACHE_SIZE;
+		this.classMisses = new NegativeLookupCache(negativeCacheSize);
+		this.resourceMisses = new NegativeLookupCache(negativeCacheSize);
+		this.dynamicMisses = new NegativeLookupCache(negativeCacheSize);
 
 		// init the provided packages set
 		exportSources = new BundleLoaderSources(this);
@@ -312,6 +321,38 @@ public class BundleLoader extends ModuleLoader {
 		addFragmentExports(wiring.getModuleCapabilities(PackageNamespace.PACKAGE_NAMESPACE));
 		loadClassLoaderFragments(fragments);
 		clearManifestLocalizationCache();
+		// the class path has changed
+		invalidateNegativeLookupCache();
+	}
+
+	/**
+	 * Discards all class and resource names which are known to be missing
+	 * from this bundle loader.
+	 */
+	final void invalidateNegativeLookupCache() {
+		classMisses.invalidate();
+		resourceMisses.invalidate();
+		if (debug.DEBUG_LOADER) {
+			Debug.println("BundleLoader[" + this + "] invalidated negative lookup cache"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Returns the number of class and resource lookups which were answered
+	 * by the negative lookup cache without searching the wiring of the bundle.
+	 * @return the number of negative lookup cache hits
+	 */
+	public long getNegativeLookupCacheHits() {
+		return classMisses.getHitCount() + resourceMisses.getHitCount();
+	}
+
+	/**
+	 * Returns the number of class and resource lookups which were not
+	 * answered by the negative lookup cache and searched the wiring of the bundle.
+	 * @return the number of negative lookup cache misses
+	 */
+	public long getNegativeLookupCacheMisses() {
+		return classMisses.getMissCount() + resourceMisses.getMissCount();
 	}
 
 	protected void clearManifestLocalizationCache() {
@@ -451,57 +492,67 @@ public class BundleLoader extends ModuleLoader {
 		}
 		if (result != null)
 			return result;
-		// 3) search the imported packages
-		PackageSource source = findImportedSource(pkgName, null);
-		if (source != null) {
+		// check if searching the wiring of this bundle already failed to find the class
+		NegativeLookupCache.Names missingNames = classMisses.getNames(moduleContainer.getRevisionsTimestamp());
+		if (missingNames != null && missingNames.contains(name)) {
 			if (debug.DEBUG_LOADER) {
-				Debug.println("BundleLoader[" + this + "] loading from import package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				Debug.println("BundleLoader[" + this + "] negative lookup cache hit for class: " + name); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			// 3) found import source terminate search at the source
-			result = source.loadClass(name);
-			if (result != null)
-				return result;
-			throw new ClassNotFoundException(name + " cannot be found by " + this); //$NON-NLS-1$
-		}
-		// 4) search the required bundles
-		source = findRequiredSource(pkgName, null);
-		if (source != null) {
-			if (debug.DEBUG_LOADER) {
-				Debug.println("BundleLoader[" + this + "] loading from required bundle package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
-			}
-			// 4) attempt to load from source but continue on failure
-			result = source.loadClass(name);
-		}
-		// 5) search the local bundle
-		if (result == null)
-			result = findLocalClass(name);
-		if (result != null)
-			return result;
-		// 6) attempt to find a dynamic import source; only do this if a required source was not found
-		if (source == null) {
-			source = findDynamicSource(pkgName);
+		} else {
+			// 3) search the imported packages
+			PackageSource source = findImportedSource(pkgName, null);
 			if (source != null) {
+				if (debug.DEBUG_LOADER) {
+					Debug.println("BundleLoader[" + this + "] loading from import package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				// 3) found import source terminate search at the source
 				result = source.loadClass(name);
 				if (result != null)
 					return result;
-				// must throw CNFE if dynamic import source does not have the class
 				throw new ClassNotFoundException(name + " cannot be found by " + this); //$NON-NLS-1$
 			}
-		}
-
-		if (result == null)
-			try {
-				result = (Class<?>) searchHooks(name, POST_CLASS);
-			} catch (ClassNotFoundException e) {
-				throw e;
-			} catch (FileNotFoundException e) {
-				// will not happen
+			// 4) search the required bundles
+			source = findRequiredSource(pkgName, null);
+			if (source != null) {
+				if (debug.DEBUG_LOADER) {
+					Debug.println("BundleLoader[" + this + "] loading from required bundle package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				// 4) attempt to load from source but continue on failure
+				result = source.loadClass(name);
 			}
-		// do buddy policy loading
-		if (result == null && policy != null)
-			result = policy.doBuddyClassLoading(name);
-		if (result != null)
-			return result;
+			// 5) search the local bundle
+			if (result == null)
+				result = findLocalClass(name);
+			if (result != null)
+				return result;
+			// 6) attempt to find a dynamic import source; only do this if a required source was not found
+			if (source == null) {
+				source = findDynamicSource(pkgName);
+				if (source != null) {
+					result = source.loadClass(name);
+					if (result != null)
+						return result;
+					// must throw CNFE if dynamic import source does not have the class
+					throw new ClassNotFoundException(name + " cannot be found by " + this); //$NON-NLS-1$
+				}
+			}
+
+			if (result == null)
+				try {
+					result = (Class<?>) searchHooks(name, POST_CLASS);
+				} catch (ClassNotFoundException e) {
+					throw e;
+				} catch (FileNotFoundException e) {
+					// will not happen
+				}
+			// do buddy policy loading
+			if (result == null && policy != null)
+				result = policy.doBuddyClassLoading(name);
+			if (result != null)
+				return result;
+			if (missingNames != null)
+				missingNames.add(name);
+		}
 		// hack to support backwards compatibility for bootdelegation
 		// or last resort; do class context trick to work around VM bugs
 		if (parent != null && !bootDelegation && ((checkParent && container.getConfiguration().compatibilityBootDelegation) || isRequestFromVM())) {
@@ -637,50 +688,60 @@ public class BundleLoader extends ModuleLoader {
 		}
 		if (result != null)
 			return result;
-		// 3) search the imported packages
-		PackageSource source = findImportedSource(pkgName, null);
-		if (source != null) {
+		// check if searching the wiring of this bundle already failed to find the resource
+		NegativeLookupCache.Names missingNames = resourceMisses.getNames(moduleContainer.getRevisionsTimestamp());
+		if (missingNames != null && missingNames.contains(name)) {
 			if (debug.DEBUG_LOADER) {
-				Debug.println("BundleLoader[" + this + "] loading from import package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				Debug.println("BundleLoader[" + this + "] negative lookup cache hit for resource: " + name); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			// 3) found import source terminate search at the source
-			return source.getResource(name);
-		}
-		// 4) search the required bundles
-		source = findRequiredSource(pkgName, null);
-		if (source != null) {
-			if (debug.DEBUG_LOADER) {
-				Debug.println("BundleLoader[" + this + "] loading from required bundle package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
-			}
-			// 4) attempt to load from source but continue on failure
-			result = source.getResource(name);
-		}
-		// 5) search the local bundle
-		if (result == null)
-			result = findLocalResource(name);
-		if (result != null)
-			return result;
-		// 6) attempt to find a dynamic import source; only do this if a required source was not found
-		if (source == null) {
-			source = findDynamicSource(pkgName);
-			if (source != null)
-				// must return the result of the dynamic import and do not continue
+		} else {
+			// 3) search the imported packages
+			PackageSource source = findImportedSource(pkgName, null);
+			if (source != null) {
+				if (debug.DEBUG_LOADER) {
+					Debug.println("BundleLoader[" + this + "] loading from import package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				// 3) found import source terminate search at the source
 				return source.getResource(name);
-		}
-
-		if (result == null)
-			try {
-				result = (URL) searchHooks(name, POST_RESOURCE);
-			} catch (FileNotFoundException e) {
-				return null;
-			} catch (ClassNotFoundException e) {
-				// will not happen
 			}
-		// do buddy policy loading
-		if (result == null && policy != null)
-			result = policy.doBuddyResourceLoading(name);
-		if (result != null)
-			return result;
+			// 4) search the required bundles
+			source = findRequiredSource(pkgName, null);
+			if (source != null) {
+				if (debug.DEBUG_LOADER) {
+					Debug.println("BundleLoader[" + this + "] loading from required bundle package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				// 4) attempt to load from source but continue on failure
+				result = source.getResource(name);
+			}
+			// 5) search the local bundle
+			if (result == null)
+				result = findLocalResource(name);
+			if (result != null)
+				return result;
+			// 6) attempt to find a dynamic import source; only do this if a required source was not found
+			if (source == null) {
+				source = findDynamicSource(pkgName);
+				if (source != null)
+					// must return the result of the dynamic import and do not continue
+					return source.getResource(name);
+			}
+
+			if (result == null)
+				try {
+					result = (URL) searchHooks(name, POST_RESOURCE);
+				} catch (FileNotFoundException e) {
+					return null;
+				} catch (ClassNotFoundException e) {
+					// will not happen
+				}
+			// do buddy policy loading
+			if (result == null && policy != null)
+				result = policy.doBuddyResourceLoading(name);
+			if (result != null)
+				return result;
+			if (missingNames != null)
+				missingNames.add(name);
+		}
 		// hack to support backwards compatibility for bootdelegation
 		// or last resort; do class context trick to work around VM bugs
 		if (parent != null && !bootDelegation && (container.getConfiguration().compatibilityBootDelegation || isRequestFromVM()))
@@ -920,27 +981,8 @@ public class BundleLoader extends ModuleLoader {
 			return true;
 
 		synchronized (importedSources) {
-			/* "*" shortcut */
-			if (dynamicAllPackages)
-				return true;
-
-			/* match against specific names */
-			if (dynamicImportPackages != null)
-				for (String dynamicImportPackage : dynamicImportPackages) {
-					if (pkgname.equals(dynamicImportPackage)) {
-						return true;
-					}
-				}
-
-			/* match against names with trailing wildcards */
-			if (dynamicImportPackageStems != null)
-				for (String dynamicImportPackageStem : dynamicImportPackageStems) {
-					if (pkgname.startsWith(dynamicImportPackageStem)) {
-						return true;
-					}
-				}
+			return dynamicImportPackages.matches(pkgname);
 		}
-		return false;
 	}
 
 	final void addExportedProvidersFor(String packageName, List<PackageSource> result, Collection<BundleLoader> visited) {
@@ -1053,50 +1095,11 @@ public class BundleLoader extends ModuleLoader {
 			return;
 
 		synchronized (importedSources) {
-			int size = packages.length;
-			List<String> stems;
-			if (dynamicImportPackageStems == null) {
-				stems = new ArrayList<>(size);
-			} else {
-				stems = new ArrayList<>(size + dynamicImportPackageStems.length);
-				for (String dynamicImportPackageStem : dynamicImportPackageStems) {
-					stems.add(dynamicImportPackageStem);
-				}
-			}
-
-			List<String> names;
-			if (dynamicImportPackages == null) {
-				names = new ArrayList<>(size);
-			} else {
-				names = new ArrayList<>(size + dynamicImportPackages.length);
-				for (String dynamicImportPackage : dynamicImportPackages) {
-					names.add(dynamicImportPackage);
-				}
-			}
-
-			for (int i = 0; i < size; i++) {
-				String name = packages[i];
-				if (isDynamicallyImported(name))
-					continue;
-				if (name.equals("*")) { //$NON-NLS-1$
-					// shortcut
-					dynamicAllPackages = true;
-					return;
+			for (String name : packages) {
+				if (!isDynamicallyImported(name)) {
+					dynamicImportPackages.add(name);
 				}
-
-				if (name.endsWith(".*")) //$NON-NLS-1$
-					stems.add(name.substring(0, name.length() - 1));
-				else
-					names.add(name);
 			}
-
-			size = stems.size();
-			if (size > 0)
-				dynamicImportPackageStems = stems.toArray(new String[size]);
-
-			size = names.size();
-			if (size > 0)
-				dynamicImportPackages = names.toArray(new String[size]);
 		}
 	}
 
@@ -1132,6 +1135,9 @@ public class BundleLoader extends ModuleLoader {
 			} catch (BundleException e) {
 				throw new RuntimeException(e);
 			}
+			// previous misses may now be satisfied by the new dynamic imports
+			invalidateNegativeLookupCache();
+			dynamicMisses.invalidate();
 
 		}
 	}
@@ -1178,11 +1184,20 @@ public class BundleLoader extends ModuleLoader {
 
 	private PackageSource findDynamicSource(String pkgName) {
 		if (!isExportedPackage(pkgName) && isDynamicallyImported(pkgName)) {
+			// must get the timestamp before attempting to resolve
+			NegativeLookupCache.Names failedPackages = dynamicMisses.getNames(moduleContainer.getRevisionsTimestamp());
+			if (failedPackages != null && failedPackages.contains(pkgName)) {
+				// nothing has changed since the last attempt failed to resolve the package
+				if (debug.DEBUG_LOADER) {
+					Debug.println("BundleLoader[" + this + "] skipping previously failed dynamic package: " + pkgName); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				return null;
+			}
 			if (debug.DEBUG_LOADER) {
 				Debug.println("BundleLoader[" + this + "] attempting to resolve dynamic package: " + pkgName); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 			ModuleRevision revision = wiring.getRevision();
-			ModuleWire dynamicWire = revision.getRevisions().getModule().getContainer().resolveDynamic(pkgName, revision);
+			ModuleWire dynamicWire = moduleContainer.resolveDynamic(pkgName, revision);
 			if (dynamicWire != null) {
 				PackageSource source = createExportPackageSource(dynamicWire, null);
 				if (debug.DEBUG_LOADER) {
@@ -1193,6 +1208,9 @@ public class BundleLoader extends ModuleLoader {
 				}
 				return source;
 			}
+			if (failedPackages != null) {
+				failedPackages.add(pkgName);
+			}
 		}
 		return null;
 	}
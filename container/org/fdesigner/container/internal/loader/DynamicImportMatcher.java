@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container.internal.loader;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matches package names against the package names of a
+ * DynamicImport-Package header.  The names are stored in a trie
+ * keyed by package name segment so that the cost of a match only
+ * depends on the number of segments of the package name and not on
+ * the number of dynamic import package names.
+ * <p>
+ * A name may either be an exact package name (<code>a.b</code>),
+ * a package name with a trailing wildcard (<code>a.b.*</code>) which matches
+ * all sub packages of <code>a.b</code> or the single wildcard (<code>*</code>)
+ * which matches all package names.
+ * <p>
+ * This class is not thread safe.  Callers must ensure synchronization.
+ */
+final class DynamicImportMatcher {
+	private static final String WILDCARD = "*"; //$NON-NLS-1$
+	private static final String STEM_WILDCARD = ".*"; //$NON-NLS-1$
+
+	private final Node root = new Node();
+	private boolean matchAll = false;
+
+	/**
+	 * Adds a DynamicImport-Package name to this matcher.
+	 * @param name the dynamic import package name
+	 */
+	void add(String name) {
+		if (WILDCARD.equals(name)) {
+			matchAll = true;
+			return;
+		}
+		boolean stem = name.endsWith(STEM_WILDCARD);
+		if (stem) {
+			name = name.substring(0, name.length() - STEM_WILDCARD.length());
+		}
+		Node current = root;
+		int begin = 0;
+		while (begin <= name.length()) {
+			int end = name.indexOf('.', begin);
+			if (end < 0) {
+				end = name.length();
+			}
+			current = current.getOrCreateChild(name.substring(begin, end));
+			begin = end + 1;
+		}
+		if (stem) {
+			current.matchSubPackages = true;
+		} else {
+			current.matchPackage = true;
+		}
+	}
+
+	/**
+	 * Returns true if the package name matches a name of this matcher.
+	 * @param pkgName the package name
+	 * @return true if the package name matches
+	 */
+	boolean matches(String pkgName) {
+		if (matchAll) {
+			return true;
+		}
+		Node current = root;
+		int begin = 0;
+		while (current != null) {
+			int end = pkgName.indexOf('.', begin);
+			if (end < 0) {
+				current = current.getChild(pkgName.substring(begin));
+				return current != null && current.matchPackage;
+			}
+			current = current.getChild(pkgName.substring(begin, end));
+			if (current != null && current.matchSubPackages) {
+				// there is at least one more segment in the package name
+				return true;
+			}
+			begin = end + 1;
+		}
+		return false;
+	}
+
+	private static final class Node {
+		private Map<String, Node> children;
+		boolean matchPackage;
+		boolean matchSubPackages;
+
+		Node getChild(String segment) {
+			return children == null ? null : children.get(segment);
+		}
+
+		Node getOrCreateChild(String segment) {
+			if (children == null) {
+				children = new HashMap<>(4);
+			}
+			Node child = children.get(segment);
+			if (child == null) {
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+package org.fdesigner.container.internal.loader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of names which a {@link BundleLoader} failed to find
+ * by searching the wiring of its bundle.  The cached names are only valid
+ * for the revisions timestamp of the module container they were recorded
+ * with; any change to the installed revisions or their wirings discards
+ * the cached names.  The cache may also be explicitly invalidated when the
+ * class path or the dynamic imports of the bundle change.
+ * <p>
+ * Callers obtain the {@link Names names} for the current timestamp before
+ * searching and record a failed search with the same names object.  This
+ * ensures a search which raced with an invalidation cannot record a
+ * stale failure in the new names.
+ */
+final class NegativeLookupCache {
+	private final int maxSize;
+	private final Object monitor = new Object();
+	/* @GuardedBy("monitor") for updates */
+	private volatile Names current;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	NegativeLookupCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.current = new Names(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the names known to be missing for the specified revisions timestamp.
+	 * @param timestamp the current revisions timestamp of the module container
+	 * @return the names known to be missing or <code>null</code> if the cache is
+	 * disabled or the timestamp is older than the one the cache was last populated with.
+	 */
+	Names getNames(long timestamp) {
+		if (maxSize <= 0) {
+			return null;
+		}
+		Names result = current;
+		if (result.timestamp == timestamp) {
+			return result;
+		}
+		synchronized (monitor) {
+			result = current;
+			if (result.timestamp < timestamp) {
+				// the wirings have changed; discard all names
+				result = current = new Names(timestamp);
+			}
+			return result.timestamp == timestamp ? result : null;
+		}
+	}
+
+	/**
+	 * Discards all names known to be missing.
+	 */
+	void invalidate() {
+		synchronized (monitor) {
+			current = new Names(current.timestamp);
+		}
+	}
+
+	long getHitCount() {
+		return hits.get();
+	}
+
+	long getMissCount() {
+		return misses.get();
+	}
+
+	final class Names {
+		final long timestamp;
+		private final ConcurrentMap<String, Boolean> names = new ConcurrentHashMap<>();
+
+		Names(long timestamp) {
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * Returns true if the name is known to be missing.
+		 * @param name the class or resource name
+		 * @return true if the name is known to be missing
+		 */
+		boolean contains(String name) {
+			if (names.containsKey(name)) {
+				hits.incrementAndGet();
+				return true;
+			}
+			misses.incrementAndGet();
+			return false;
+		}
+
+		/**
+		 * Records that the name could not be found.
+		 * @param name the class or resource name
+		 */
+		void add(String name) {
+			if (names.size() >= maxSize) {
+				// keep the cache bounded; simply start over once the limit is reached
+				names.clear();
+			}
+			names.put(name, Boolean.TRUE);
+		}
+	}
+}
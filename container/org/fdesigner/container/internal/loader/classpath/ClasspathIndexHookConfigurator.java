@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.internal.loader.classpath;
+
+import org.fdesigner.container.internal.framework.EquinoxConfiguration;
+import org.fdesigner.container.internal.hookregistry.HookConfigurator;
+import org.fdesigner.container.internal.hookregistry.HookRegistry;
+
+/**
+ * Adds the {@link ClasspathIndexStorageHook} if the persistent
+ * classpath index is enabled with the {@link EquinoxConfiguration#PROP_CLASSPATH_INDEX}
+ * configuration property.
+ */
+public class ClasspathIndexHookConfigurator implements HookConfigurator {
+
+	@Override
+	public void addHooks(HookRegistry hookRegistry) {
+		if (Boolean.parseBoolean(hookRegistry.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_CLASSPATH_INDEX))) {
+			ClasspathIndexStorageHook classpathIndexHook = new ClasspathIndexStorageHook();
+			hookRegistry.addStorageHookFactory(classpathIndexHook);
+			hookRegistry.addActivatorHookFactory(classpathIndexHook);
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.internal.loader.classpath;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.fdesigner.container.internal.hookregistry.ActivatorHookFactory;
+import org.fdesigner.container.internal.hookregistry.StorageHookFactory;
+import org.fdesigner.container.storage.BundleInfo.Generation;
+import org.fdesigner.framework.framework.BundleActivator;
+import org.fdesigner.framework.framework.BundleContext;
+import org.fdesigner.framework.framework.BundleEvent;
+import org.fdesigner.framework.framework.SynchronousBundleListener;
+
+/**
+ * A storage hook which persists an index of the classes and resources
+ * found by the {@link ClasspathManager} of a host generation.  The index
+ * maps a class or resource name to the index of the {@link ClasspathEntry}
+ * which provided it so that a classpath manager can go straight to the
+ * owning classpath entry after a restart without searching the other
+ * entries.
+ * <p>
+ * The index is only valid for the classpath signature it was recorded with.
+ * The signature is computed by the classpath manager from the
+ * generations of the host and attached fragments.
+ * <p>
+ * Recording a name does not save the index.  The changed indexes are saved
+ * in a batch when their bundle stops and when the framework stops.  Each
+ * index holds at most {@link #MAX_ENTRIES} class names and as many resource
+ * names.
+ */
+public class ClasspathIndexStorageHook extends StorageHookFactory<Object, Object, ClasspathIndexStorageHook.StorageHookImpl> implements ActivatorHookFactory {
+	private static final int STORAGE_VERSION = 1;
+	/** the maximum number of class names and of resource names in an index */
+	static final int MAX_ENTRIES = 4096;
+
+	/** the indexes which changed since they were saved */
+	final Set<StorageHookImpl> changed = Collections.newSetFromMap(new ConcurrentHashMap<StorageHookImpl, Boolean>());
+
+	@Override
+	public int getStorageVersion() {
+		return STORAGE_VERSION;
+	}
+
+	@Override
+	protected StorageHookImpl createStorageHook(Generation generation) {
+		return new StorageHookImpl(generation, this);
+	}
+
+	@Override
+	public BundleActivator createActivator() {
+		return new BundleActivator() {
+			private final SynchronousBundleListener stopListener = new SynchronousBundleListener() {
+				@Override
+				public void bundleChanged(BundleEvent event) {
+					if (event.getType() == BundleEvent.STOPPED) {
+						saveChanged(event.getBundle().getBundleId());
+					}
+				}
+			};
+
+			@Override
+			public void start(BundleContext context) throws Exception {
+				context.addBundleListener(stopListener);
+			}
+
+			@Override
+			public void stop(BundleContext context) throws Exception {
+				context.removeBundleListener(stopListener);
+				saveChanged(-1);
+			}
+		};
+	}
+
+	/**
+	 * Marks the changed indexes of the specified bundle for saving by the next storage save.
+	 * @param bundleId the id of the bundle or -1 for all bundles
+	 */
+	void saveChanged(long bundleId) {
+		for (Iterator<StorageHookImpl> iChanged = changed.iterator(); iChanged.hasNext();) {
+			StorageHookImpl hook = iChanged.next();
+			if (bundleId == -1 || hook.getGeneration().getBundleInfo().getBundleId() == bundleId) {
+				iChanged.remove();
+				hook.dataChanged();
+			}
+		}
+	}
+
+	public static class StorageHookImpl extends StorageHookFactory.StorageHook<Object, Object> {
+		private final ClasspathIndexStorageHook factory;
+		private final Object monitor = new Object();
+		/* @GuardedBy("monitor") for updates */
+		private volatile long signature = 0;
+		private final ConcurrentMap<String, Integer> classes = new ConcurrentHashMap<>();
+		private final ConcurrentMap<String, Integer> resources = new ConcurrentHashMap<>();
+
+		public StorageHookImpl(Generation generation, ClasspathIndexStorageHook factory) {
+			super(generation, ClasspathIndexStorageHook.class);
+			this.factory = factory;
+		}
+
+		/**
+		 * Discards the index if the specified signature is different from the
+		 * signature the index was recorded with.
+		 * @param current the current classpath signature
+		 */
+		void checkSignature(long current) {
+			synchronized (monitor) {
+				if (signature != current) {
+					if (!classes.isEmpty() || !resources.isEmpty()) {
+						classes.clear();
+						resources.clear();
+						factory.changed.add(this);
+					}
+					signature = current;
+				}
+			}
+		}
+
+		/**
+		 * Returns the classpath index which provided the class or -1 if the class is not indexed.
+		 */
+		int getClassIndex(String name, long current) {
+			if (signature != current)
+				return -1;
+			Integer index = classes.get(name);
+			return index == null ? -1 : index.intValue();
+		}
+
+		/**
+		 * Returns the classpath index which provided the resource or -1 if the resource is not indexed.
+		 */
+		int getResourceIndex(String name, long current) {
+			if (signature != current)
+				return -1;
+			Integer index = resources.get(name);
+			return index == null ? -1 : index.intValue();
+		}
+
+		void recordClass(String name, int index, long current) {
+			record(classes, name, index, current);
+		}
+
+		void recordResource(String name, int index, long current) {
+			record(resources, name, index, current);
+		}
+
+		private void record(Map<String, Integer> names, String name, int index, long current) {
+			if (signature != current)
+				return;
+			if (names.size() >= MAX_ENTRIES && !names.containsKey(name))
+				return;
+			Integer previous = names.put(name, Integer.valueOf(index));
+			if (previous == null || previous.intValue() != index) {
+				factory.changed.add(this);
+			}
+		}
+
+		void dataChanged() {
+			getGeneration().getBundleInfo().getStorage().storageHookDataChanged(getGeneration());
+		}
+
+		@Override
+		public void load(Object loadContext, DataInputStream is) throws IOException {
+			signature = is.readLong();
+			readNames(is, classes);
+			readNames(is, resources);
+		}
+
+		private static void readNames(DataInputStream is, Map<String, Integer> names) throws IOException {
+			int size = is.readInt();
+			for (int i = 0; i < size; i++) {
+				String name = is.readUTF();
+				names.put(name, Integer.valueOf(is.readInt()));
+			}
+		}
+
+		@Override
+		public void save(Object saveContext, DataOutputStream os) throws IOException {
+			synchronized (monitor) {
+				os.writeLong(signature);
+				writeNames(os, classes);
+				writeNames(os, resources);
+			}
+		}
+
+		private static void writeNames(DataOutputStream os, Map<String, Integer> names) throws IOException {
+			// take a snapshot; names may be recorded concurrently
+			Map.Entry<?, ?>[] snapshot = names.entrySet().toArray(new Map.Entry<?, ?>[0]);
+			os.writeInt(snapshot.length);
+			for (Map.Entry<?, ?> entry : snapshot) {
+				os.writeUTF((String) entry.getKey());
+				os.writeInt(((Integer) entry.getValue()).intValue());
+			}
+		}
+	}
+}
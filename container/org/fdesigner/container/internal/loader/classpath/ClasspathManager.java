@@ -80,6 +80,10 @@ public class ClasspathManager {
 	private ArrayMap<String, String> loadedLibraries = null;
 	// used to detect recusive defineClass calls for the same class on the same class loader (bug 345500)
 	private ThreadLocal<DefineContext> currentDefineContext = new ThreadLocal<>();
+	// the persistent index of classpath entries which provided classes and resources; may be null
+	private final ClasspathIndexStorageHook.StorageHookImpl classpathIndex;
+	// the signature of the host and fragment classpaths the index is valid for
+	private volatile long classpathSignature;
 
 	/**
 	 * Constructs a classpath manager for the given generation and module class loader
@@ -95,6 +99,54 @@ public class ClasspathManager {
 		String[] cp = getClassPath(generation.getRevision());
 		this.fragments = buildFragmentClasspaths(this.classloader, this);
 		this.entries = buildClasspath(cp, this, this.generation);
+		this.classpathIndex = generation.getStorageHook(ClasspathIndexStorageHook.class);
+		updateClasspathSignature();
+	}
+
+	/**
+	 * Computes the signature of the host and fragment classpaths and discards
+	 * the persistent classpath index if it was recorded for a different signature.
+	 * The signature changes if the content of the host or a fragment is updated or
+	 * the set of attached fragments changes.
+	 */
+	private void updateClasspathSignature() {
+		if (classpathIndex == null) {
+			return;
+		}
+		long signature = 17;
+		signature = signature * 31 + generation.getGenerationId();
+		signature = signature * 31 + generation.getLastModified();
+		signature = signature * 31 + entries.length;
+		for (FragmentClasspath fragCP : fragments) {
+			Generation fragGeneration = fragCP.getGeneration();
+			signature = signature * 31 + fragGeneration.getBundleInfo().getBundleId();
+			signature = signature * 31 + fragGeneration.getGenerationId();
+			signature = signature * 31 + fragGeneration.getLastModified();
+			signature = signature * 31 + fragCP.getEntries().length;
+		}
+		classpathIndex.checkSignature(signature);
+		classpathSignature = signature;
+	}
+
+	/**
+	 * Returns the classpath entry at the specified index of the host and
+	 * fragment classpath entries.
+	 * @param index the classpath index
+	 * @return the classpath entry or null if no entry exists at the index
+	 */
+	private ClasspathEntry getClasspathEntry(int index) {
+		if (index < entries.length) {
+			return entries[index];
+		}
+		index -= entries.length;
+		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
+			ClasspathEntry[] fragEntries = fragCP.getEntries();
+			if (index < fragEntries.length) {
+				return fragEntries[index];
+			}
+			index -= fragEntries.length;
+		}
+		return null;
 	}
 
 	private static String[] getClassPath(ModuleRevision revision) {
@@ -327,6 +379,7 @@ public class ClasspathManager {
 		}
 
 		fragments = result.toArray(new FragmentClasspath[result.size()]);
+		updateClasspathSignature();
 	}
 
 	private static BundleFile createBundleFile(File content, Generation generation) {
@@ -399,22 +452,37 @@ public class ClasspathManager {
 			}
 		}
 
+		long signature = classpathSignature;
+		if (classpathIndex != null && classPathIndex == -1) {
+			// try the classpath entry which provided the resource last time first
+			int indexed = classpathIndex.getResourceIndex(resource, signature);
+			ClasspathEntry cpEntry = indexed < 0 ? null : getClasspathEntry(indexed);
+			if (cpEntry != null) {
+				result = cpEntry.findResource(resource, m, indexed);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
 		curIndex[0] = 0;
 		// look in classpath entries
 		result = findLocalResourceImpl(resource, entries, m, classPathIndex, curIndex);
-		if (result != null) {
-			return result;
-		}
 
 		// look in fragment entries
-		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
-			result = findLocalResourceImpl(resource, fragCP.getEntries(), m, classPathIndex, curIndex);
-			if (result != null) {
-				return result;
+		if (result == null) {
+			for (FragmentClasspath fragCP : getFragmentClasspaths()) {
+				result = findLocalResourceImpl(resource, fragCP.getEntries(), m, classPathIndex, curIndex);
+				if (result != null) {
+					break;
+				}
 			}
 		}
 
-		return null;
+		if (result != null && classpathIndex != null && classPathIndex == -1) {
+			classpathIndex.recordResource(resource, curIndex[0], signature);
+		}
+		return result;
 	}
 
 	private URL findLocalResourceImpl(String resource, ClasspathEntry[] cpEntries, Module m, int classPathIndex, int[] curIndex) {
@@ -581,28 +649,47 @@ public class ClasspathManager {
 		for (ClassLoaderHook hook : hookRegistry.getClassLoaderHooks()) {
 			ClasspathEntry[] hookEntries = hook.getClassPathEntries(classname, this);
 			if (hookEntries != null) {
-				return findLocalClassImpl(classname, hookEntries, hooks);
+				return findLocalClassImpl(classname, hookEntries, hooks, new int[] {0});
 			}
 		}
 
-		// look in classpath entries
-		result = findLocalClassImpl(classname, entries, hooks);
-		if (result != null) {
-			return result;
+		long signature = classpathSignature;
+		if (classpathIndex != null) {
+			// try the classpath entry which provided the class last time first
+			int indexed = classpathIndex.getClassIndex(classname, signature);
+			ClasspathEntry cpEntry = indexed < 0 ? null : getClasspathEntry(indexed);
+			if (cpEntry != null) {
+				result = findClassImpl(classname, cpEntry, hooks);
+				if (result != null) {
+					return result;
+				}
+			}
 		}
 
+		int[] curIndex = {0};
+		// look in classpath entries
+		result = findLocalClassImpl(classname, entries, hooks, curIndex);
+
 		// look in fragment entries
-		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
-			result = findLocalClassImpl(classname, fragCP.getEntries(), hooks);
-			if (result != null) {
-				return result;
+		if (result == null) {
+			for (FragmentClasspath fragCP : getFragmentClasspaths()) {
+				result = findLocalClassImpl(classname, fragCP.getEntries(), hooks, curIndex);
+				if (result != null) {
+					break;
+				}
 			}
 		}
 
-		throw new ClassNotFoundException(classname);
+		if (result == null) {
+			throw new ClassNotFoundException(classname);
+		}
+		if (classpathIndex != null) {
+			classpathIndex.recordClass(classname, curIndex[0], signature);
+		}
+		return result;
 	}
 
-	private Class<?> findLocalClassImpl(String classname, ClasspathEntry[] cpEntries, List<ClassLoaderHook> hooks) {
+	private Class<?> findLocalClassImpl(String classname, ClasspathEntry[] cpEntries, List<ClassLoaderHook> hooks, int[] curIndex) {
 		Class<?> result;
 		for (ClasspathEntry cpEntry : cpEntries) {
 			if (cpEntry != null) {
@@ -611,6 +698,7 @@ public class ClasspathManager {
 					return result;
 				}
 			}
+			curIndex[0]++;
 		}
 		return null;
 	}
@@ -208,6 +208,23 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 		removed = true;
 	}
 
+	/**
+	 * Return the objectClass required by the filter of this listener.
+	 * @return The objectClass required by the filter or <code>null</code> if
+	 * the listener must receive events for all objectClasses.
+	 */
+	String getObjectClass() {
+		return objectClass;
+	}
+
+	/**
+	 * Return the real listener.
+	 * @return The service listener object.
+	 */
+	ServiceListener getServiceListener() {
+		return listener;
+	}
+
 	/**
 	 * Returns an objectClass filter string for the specified class name.
 	 * @return A filter string for the specified class name or <code>null</code> if the 
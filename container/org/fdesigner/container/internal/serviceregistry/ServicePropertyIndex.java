@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.internal.serviceregistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.fdesigner.container.internal.framework.FilterImpl;
+
+/**
+ * A secondary index of published services keyed by the values of a
+ * configured set of service properties (for example <code>service.pid</code>).
+ * The index is used to narrow the candidate registrations for a filter which
+ * requires an exact value for one of the indexed properties.
+ * <p>
+ * Only <code>String</code> property values (or arrays and collections of
+ * <code>String</code>) are indexed by value. Registrations having any other
+ * value type for an indexed property are kept in a separate list which is
+ * always returned as candidates since the filter may still match them after
+ * type coercion. Callers must still match the filter against all candidates.
+ * <p>
+ * All lists of registrations are sorted in the natural order of
+ * ServiceRegistrationImpl and are sets in that there must be no two entries
+ * in a List which are equal. The lists are copy-on-write; updates must be
+ * made while holding the registry lock but lookups do not block.
+ */
+/* @GuardedBy("ServiceRegistry.this") for updates */
+final class ServicePropertyIndex {
+	private final List<KeyIndex> keyIndexes;
+
+	ServicePropertyIndex(Collection<String> keys) {
+		List<KeyIndex> indexes = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			indexes.add(new KeyIndex(key));
+		}
+		this.keyIndexes = indexes;
+	}
+
+	/**
+	 * Returns true if no service properties are indexed.
+	 * @return true if no service properties are indexed.
+	 */
+	boolean isEmpty() {
+		return keyIndexes.isEmpty();
+	}
+
+	/**
+	 * Add a registration to the index using the specified properties.
+	 *
+	 * @param registration The registration to add.
+	 * @param properties The properties of the registration.
+	 */
+	void add(ServiceRegistrationImpl<?> registration, Map<String, Object> properties) {
+		for (KeyIndex keyIndex : keyIndexes) {
+			keyIndex.add(registration, properties.get(keyIndex.key));
+		}
+	}
+
+	/**
+	 * Remove a registration from the index using the specified properties.
+	 * The properties must be the ones used when the registration was added.
+	 *
+	 * @param registration The registration to remove.
+	 * @param properties The properties the registration was added with.
+	 */
+	void remove(ServiceRegistrationImpl<?> registration, Map<String, Object> properties) {
+		for (KeyIndex keyIndex : keyIndexes) {
+			keyIndex.remove(registration, properties.get(keyIndex.key));
+		}
+	}
+
+	/**
+	 * Lookup the candidate registrations for the specified filter.
+	 *
+	 * @param filter The filter criteria.
+	 * @return A sorted list of candidate registrations or <code>null</code>
+	 * if the filter does not require a value for any indexed property.
+	 * The returned list must not be modified.
+	 */
+	List<ServiceRegistrationImpl<?>> lookup(FilterImpl filter) {
+		for (KeyIndex keyIndex : keyIndexes) {
+			String value = filter.getPrimaryKeyValue(keyIndex.key);
+			if (value != null) {
+				return keyIndex.lookup(value);
+			}
+		}
+		return null;
+	}
+
+	private static final class KeyIndex {
+		final String key;
+		/** Registrations by String property value. */
+		private final ConcurrentMap<String, List<ServiceRegistrationImpl<?>>> byValue = new ConcurrentHashMap<>();
+		/** Registrations with a property value which cannot be indexed by value. */
+		private volatile List<ServiceRegistrationImpl<?>> unindexed = Collections.emptyList();
+
+		KeyIndex(String key) {
+			this.key = key;
+		}
+
+		void add(ServiceRegistrationImpl<?> registration, Object value) {
+			if (value == null) {
+				return;
+			}
+			Collection<String> values = getStringValues(value);
+			if (values == null) {
+				unindexed = ServiceRegistry.copyAndInsert(unindexed, registration);
+				return;
+			}
+			for (String v : values) {
+				byValue.put(v, ServiceRegistry.copyAndInsert(byValue.get(v), registration));
+			}
+		}
+
+		void remove(ServiceRegistrationImpl<?> registration, Object value) {
+			if (value == null) {
+				return;
+			}
+			Collection<String> values = getStringValues(value);
+			if (values == null) {
+				unindexed = ServiceRegistry.copyAndRemove(unindexed, registration);
+				return;
+			}
+			for (String v : values) {
+				List<ServiceRegistrationImpl<?>> services = byValue.get(v);
+				if (services != null) {
+					services = ServiceRegistry.copyAndRemove(services, registration);
+					if (services.isEmpty()) { // remove empty list
+						byValue.remove(v);
+					} else {
+						byValue.put(v, services);
+					}
+				}
+			}
+		}
+
+		List<ServiceRegistrationImpl<?>> lookup(String value) {
+			List<ServiceRegistrationImpl<?>> services = byValue.get(value);
+			List<ServiceRegistrationImpl<?>> currentUnindexed = unindexed;
+			if (services == null) {
+				return currentUnindexed;
+			}
+			if (currentUnindexed.isEmpty()) {
+				return services;
+			}
+			List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + currentUnindexed.size());
+			result.addAll(services);
+			result.addAll(currentUnindexed);
+			Collections.sort(result);
+			return result;
+		}
+
+		/**
+		 * Returns the distinct String values of a property value or
+		 * <code>null</code> if the value contains non String values.
+		 */
+		private static Collection<String> getStringValues(Object value) {
+			if (value instanceof String) {
+				return Collections.singleton((String) value);
+			}
+			Collection<?> values;
+			if (value instanceof String[]) {
+				values = Arrays.asList((String[]) value);
+			} else if (value instanceof Collection) {
+				values = (Collection<?>) value;
+			} else {
+				return null;
+			}
+			Set<String> result = new LinkedHashSet<>(values.size());
+			for (Object v : values) {
+				if (!(v instanceof String)) {
+					return null;
+				}
+				result.add((String) v);
+			}
+			return result;
+		}
+	}
+}
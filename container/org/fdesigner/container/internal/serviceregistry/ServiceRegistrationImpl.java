@@ -178,7 +178,7 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 				previousProperties = this.properties;
 				this.properties = createProperties(props);
 			}
-			registry.modifyServiceRegistration(context, this);
+			registry.modifyServiceRegistration(context, this, previousProperties);
 		}
 		/* must not hold the registrationLock when this event is published */
 		registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties));
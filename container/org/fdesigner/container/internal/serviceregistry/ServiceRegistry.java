@@ -18,22 +18,28 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.fdesigner.container.Module;
 import org.fdesigner.container.ModuleRevision;
 import org.fdesigner.container.internal.debug.Debug;
 import org.fdesigner.container.internal.framework.BundleContextImpl;
+import org.fdesigner.container.internal.framework.EquinoxConfiguration;
 import org.fdesigner.container.internal.framework.EquinoxContainer;
+import org.fdesigner.container.internal.framework.FilterImpl;
 import org.fdesigner.container.storage.BundleInfo.Generation;
 import org.fdesigner.framework.framework.Bundle;
 import org.fdesigner.framework.framework.BundleContext;
@@ -58,6 +64,7 @@ import org.fdesigner.supplement.framework.eventmgr.CopyOnWriteIdentityMap;
 import org.fdesigner.supplement.framework.eventmgr.EventDispatcher;
 import org.fdesigner.supplement.framework.eventmgr.ListenerQueue;
 import org.fdesigner.supplement.internal.messages.Msg;
+import org.fdesigner.supplement.util.ManifestElement;
 import org.fdesigner.supplement.util.NLS;
 
 /**
@@ -75,28 +82,40 @@ public class ServiceRegistry {
 	static final String eventListenerHookName = EventListenerHook.class.getName();
 	static final String listenerHookName = ListenerHook.class.getName();
 
+	/* The published services data structures are copy-on-write. The lists are
+	 * never modified once published; updates are made while holding the
+	 * registry lock and publish new lists so that lookups never block.
+	 */
+
 	/** Published services by class name. 
 	 * The {@literal List<ServiceRegistrationImpl<?>>}s are both sorted 
 	 * in the natural order of ServiceRegistrationImpl and also are sets in that
 	 * there must be no two entries in a List which are equal.
 	 */
-	/* @GuardedBy("this") */
-	private final Map<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
+	/* @GuardedBy("this") for updates */
+	private final ConcurrentMap<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
 
 	/** All published services. 
 	 * The List is both sorted in the natural order of ServiceRegistrationImpl and also is a
 	 * set in that there must be no two entries in the List which are equal.
 	 */
-	/* @GuardedBy("this") */
-	private final List<ServiceRegistrationImpl<?>> allPublishedServices;
+	/* @GuardedBy("this") for updates */
+	private volatile List<ServiceRegistrationImpl<?>> allPublishedServices;
+
+	/** Published services by the values of the indexed service properties.
+	 * Used to narrow the candidates for filters requiring an exact value
+	 * of an indexed property.
+	 */
+	/* @GuardedBy("this") for updates */
+	private final ServicePropertyIndex publishedServicesByProperty;
 
 	/** Published services by BundleContextImpl.  
 	 * The {@literal List<ServiceRegistrationImpl<?>>}s are NOT sorted 
 	 * and also are sets in that
 	 * there must be no two entries in a List which are equal.
 	 */
-	/* @GuardedBy("this") */
-	private final Map<BundleContextImpl, List<ServiceRegistrationImpl<?>>> publishedServicesByContext;
+	/* @GuardedBy("this") for updates */
+	private final ConcurrentMap<BundleContextImpl, List<ServiceRegistrationImpl<?>>> publishedServicesByContext;
 
 	/** next free service id. */
 	/* @GuardedBy("this") */
@@ -108,6 +127,23 @@ public class ServiceRegistry {
 	/* @GuardedBy("serviceEventListeners") */
 	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> serviceEventListeners;
 
+	/** Active Service Listeners indexed by the objectClass required by their filter.
+	 * Listeners which do not require an objectClass are kept under the <code>null</code> key.
+	 * {@literal Map<String,Map<BundleContextImpl,CopyOnWriteIdentityMap<ServiceListener,FilteredServiceListener>>>}.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private final Map<String, Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>>> serviceEventListenersByClass;
+
+	/** number of active Service Listeners */
+	/* @GuardedBy("serviceEventListeners") */
+	private int serviceListenerCount;
+
+	/** number of published service events */
+	private final AtomicLong serviceEventCount = new AtomicLong();
+
+	/** number of candidate listeners of the published service events */
+	private final AtomicLong serviceEventCandidateCount = new AtomicLong();
+
 	/** initial capacity of the main data structure */
 	private static final int initialCapacity = 50;
 	/** initial capacity of the nested data structure */
@@ -125,10 +161,13 @@ public class ServiceRegistry {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
 		serviceid = 1;
-		publishedServicesByClass = new HashMap<>(initialCapacity);
-		publishedServicesByContext = new HashMap<>(initialCapacity);
-		allPublishedServices = new ArrayList<>(initialCapacity);
+		publishedServicesByClass = new ConcurrentHashMap<>(initialCapacity);
+		publishedServicesByContext = new ConcurrentHashMap<>(initialCapacity);
+		allPublishedServices = Collections.emptyList();
+		String indexKeys = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_SERVICE_REGISTRY_INDEX_KEYS, EquinoxConfiguration.DEFAULT_SERVICE_REGISTRY_INDEX_KEYS);
+		publishedServicesByProperty = new ServicePropertyIndex(Arrays.asList(ManifestElement.getArrayFromList(indexKeys, ","))); //$NON-NLS-1$
 		serviceEventListeners = new LinkedHashMap<>(initialCapacity);
+		serviceEventListenersByClass = new HashMap<>(initialCapacity);
 		Module systemModule = container.getStorage().getModuleContainer().getModule(0);
 		systemBundleContext = (BundleContextImpl) systemModule.getBundle().getBundleContext();
 		systemBundleContext.provisionServicesInUseMap();
@@ -753,6 +792,10 @@ public class ServiceRegistry {
 				serviceEventListeners.put(context, listeners);
 			}
 			oldFilteredListener = listeners.put(listener, filteredListener);
+			if (oldFilteredListener != null) {
+				removeIndexedServiceListener(context, oldFilteredListener);
+			}
+			addIndexedServiceListener(context, filteredListener);
 		}
 
 		if (oldFilteredListener != null) {
@@ -784,6 +827,9 @@ public class ServiceRegistry {
 				return; // this context has no listeners to begin with
 			}
 			oldFilteredListener = listeners.remove(listener);
+			if (oldFilteredListener != null) {
+				removeIndexedServiceListener(context, oldFilteredListener);
+			}
 		}
 
 		if (oldFilteredListener == null) {
@@ -803,6 +849,11 @@ public class ServiceRegistry {
 		Map<ServiceListener, FilteredServiceListener> removedListenersMap;
 		synchronized (serviceEventListeners) {
 			removedListenersMap = serviceEventListeners.remove(context);
+			if (removedListenersMap != null) {
+				for (FilteredServiceListener oldFilteredListener : removedListenersMap.values()) {
+					removeIndexedServiceListener(context, oldFilteredListener);
+				}
+			}
 		}
 		if ((removedListenersMap == null) || removedListenersMap.isEmpty()) {
 			return;
@@ -814,6 +865,62 @@ public class ServiceRegistry {
 		notifyListenerHooks(asListenerInfos(removedListeners), false);
 	}
 
+	/**
+	 * Add a Service Listener to the objectClass index.
+	 * 
+	 * @param context Context of bundle which added the listener.
+	 * @param filteredListener The listener to be indexed.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void addIndexedServiceListener(BundleContextImpl context, FilteredServiceListener filteredListener) {
+		assert Thread.holdsLock(serviceEventListeners);
+		String objectClass = filteredListener.getObjectClass();
+		Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> contexts = serviceEventListenersByClass.get(objectClass);
+		if (contexts == null) {
+			contexts = new LinkedHashMap<>(initialSubCapacity);
+			serviceEventListenersByClass.put(objectClass, contexts);
+		}
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> listeners = contexts.get(context);
+		if (listeners == null) {
+			listeners = new CopyOnWriteIdentityMap<>();
+			contexts.put(context, listeners);
+		}
+		if (listeners.put(filteredListener.getServiceListener(), filteredListener) == null) {
+			serviceListenerCount++;
+		}
+	}
+
+	/**
+	 * Remove a Service Listener from the objectClass index.
+	 * 
+	 * @param context Context of bundle which added the listener.
+	 * @param filteredListener The listener to be removed from the index.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void removeIndexedServiceListener(BundleContextImpl context, FilteredServiceListener filteredListener) {
+		assert Thread.holdsLock(serviceEventListeners);
+		String objectClass = filteredListener.getObjectClass();
+		Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> contexts = serviceEventListenersByClass.get(objectClass);
+		if (contexts == null) {
+			return;
+		}
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> listeners = contexts.get(context);
+		if (listeners == null) {
+			return;
+		}
+		// only remove the entry if it still maps to the specified listener
+		if (listeners.get(filteredListener.getServiceListener()) == filteredListener) {
+			listeners.remove(filteredListener.getServiceListener());
+			serviceListenerCount--;
+		}
+		if (listeners.isEmpty()) { // remove empty maps
+			contexts.remove(context);
+			if (contexts.isEmpty()) {
+				serviceEventListenersByClass.remove(objectClass);
+			}
+		}
+	}
+
 	/**
 	 * Coerce the generic type of a collection from Collection<FilteredServiceListener>
 	 * to Collection<ListenerInfo>
@@ -845,23 +952,61 @@ public class ServiceRegistry {
 	}
 
 	void publishServiceEventPrivileged(final ServiceEvent event) {
-		/* Build the listener snapshot */
+		/* Build the listener snapshot.
+		 * Only the listeners which do not require an objectClass and the listeners
+		 * requiring one of the objectClasses of the event's service are included;
+		 * all other listeners would discard the event anyway.  The snapshot keeps
+		 * the order in which the contexts and their listeners were added.
+		 */
 		Map<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> listenerSnapshot;
 		Set<Map.Entry<ServiceListener, FilteredServiceListener>> systemServiceListenersOrig = null;
 		BundleContextImpl systemContext = null;
+		Set<String> classes = new HashSet<>(Arrays.asList(((ServiceReferenceImpl<?>) event.getServiceReference()).getClasses()));
+		int candidates = 0;
+		int total;
 		synchronized (serviceEventListeners) {
-			listenerSnapshot = new LinkedHashMap<>(serviceEventListeners.size());
-			for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : serviceEventListeners.entrySet()) {
-				Map<ServiceListener, FilteredServiceListener> listeners = entry.getValue();
-				if (!listeners.isEmpty()) {
+			// the number of candidate listeners of each context
+			Map<BundleContextImpl, Integer> candidateCounts = new HashMap<>();
+			countCandidates(candidateCounts, serviceEventListenersByClass.get(null));
+			for (String clazz : classes) {
+				countCandidates(candidateCounts, serviceEventListenersByClass.get(clazz));
+			}
+			listenerSnapshot = new LinkedHashMap<>(candidateCounts.size());
+			if (!candidateCounts.isEmpty()) {
+				for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : serviceEventListeners.entrySet()) {
+					Integer count = candidateCounts.get(entry.getKey());
+					if (count == null) {
+						continue;
+					}
+					CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> listeners = entry.getValue();
+					Set<Map.Entry<ServiceListener, FilteredServiceListener>> listenerEntries;
+					if (count.intValue() == listeners.size()) {
+						// all listeners of the context are candidates
+						listenerEntries = listeners.entrySet();
+					} else {
+						listenerEntries = new LinkedHashSet<>(count.intValue());
+						for (Map.Entry<ServiceListener, FilteredServiceListener> listener : listeners.entrySet()) {
+							String objectClass = listener.getValue().getObjectClass();
+							if (objectClass == null || classes.contains(objectClass)) {
+								listenerEntries.add(listener);
+							}
+						}
+					}
 					if (entry.getKey().getBundleImpl().getBundleId() == 0) {
 						systemContext = entry.getKey();
 						// make a copy that we can use to discard hook removals later
-						systemServiceListenersOrig = listeners.entrySet();
+						systemServiceListenersOrig = new LinkedHashSet<>(listenerEntries);
 					}
-					listenerSnapshot.put(entry.getKey(), listeners.entrySet());
+					listenerSnapshot.put(entry.getKey(), listenerEntries);
+					candidates += count.intValue();
 				}
 			}
+			total = serviceListenerCount;
+		}
+		serviceEventCount.incrementAndGet();
+		serviceEventCandidateCount.addAndGet(candidates);
+		if (debug.DEBUG_EVENTS) {
+			Debug.println("publishServiceEvent(" + event.getType() + ":" + event.getServiceReference() + ") candidate listeners: " + candidates + " of " + total + " in " + listenerSnapshot.size() + " bundles"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
 		}
 
 		/* shrink the snapshot.
@@ -897,6 +1042,52 @@ public class ServiceRegistry {
 		queue.dispatchEventSynchronous(SERVICEEVENT, event);
 	}
 
+	/**
+	 * Add the number of listeners of each context to the candidate counts.
+	 * 
+	 * @param candidateCounts The number of candidate listeners by context.
+	 * @param contexts The listeners to count by context. May be <code>null</code>.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private static void countCandidates(Map<BundleContextImpl, Integer> candidateCounts, Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> contexts) {
+		if (contexts == null) {
+			return;
+		}
+		for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : contexts.entrySet()) {
+			Integer count = candidateCounts.get(entry.getKey());
+			candidateCounts.put(entry.getKey(), Integer.valueOf((count == null ? 0 : count.intValue()) + entry.getValue().size()));
+		}
+	}
+
+	/**
+	 * Returns the number of service events published by this registry.
+	 * @return The number of published service events.
+	 */
+	public long getServiceEventCount() {
+		return serviceEventCount.get();
+	}
+
+	/**
+	 * Returns the total number of listeners considered for the published service
+	 * events.  Only the listeners which do not require an objectClass and the
+	 * listeners requiring one of the objectClasses of the event's service are
+	 * considered for an event.
+	 * @return The number of candidate listeners for all published service events.
+	 */
+	public long getServiceEventCandidateCount() {
+		return serviceEventCandidateCount.get();
+	}
+
+	/**
+	 * Returns the number of active service listeners.
+	 * @return The number of service listeners.
+	 */
+	public int getServiceListenerCount() {
+		synchronized (serviceEventListeners) {
+			return serviceListenerCount;
+		}
+	}
+
 	/**
 	 * Coerce the generic type of a collection from Collection<BundleContextImpl>
 	 * to Collection<BundleContext>
@@ -930,32 +1121,22 @@ public class ServiceRegistry {
 		assert Thread.holdsLock(this);
 		// Add the ServiceRegistrationImpl to the list of Services published by BundleContextImpl.
 		List<ServiceRegistrationImpl<?>> contextServices = publishedServicesByContext.get(context);
-		if (contextServices == null) {
-			contextServices = new ArrayList<>(initialSubCapacity);
-			publishedServicesByContext.put(context, contextServices);
-		}
 		// The list is NOT sorted, so we just add
-		contextServices.add(registration);
+		publishedServicesByContext.put(context, copyAndAdd(contextServices, registration));
 
 		// Add the ServiceRegistrationImpl to the list of Services published by Class Name.
-		int insertIndex;
 		for (String clazz : registration.getClasses()) {
 			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-
-			if (services == null) {
-				services = new ArrayList<>(initialSubCapacity);
-				publishedServicesByClass.put(clazz, services);
-			}
-
 			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -Collections.binarySearch(services, registration) - 1;
-			services.add(insertIndex, registration);
+			publishedServicesByClass.put(clazz, copyAndInsert(services, registration));
 		}
 
+		// Add the ServiceRegistrationImpl to the lists of Services published by property value.
+		publishedServicesByProperty.add(registration, registration.getProperties());
+
 		// Add the ServiceRegistrationImpl to the list of all published Services.
 		// The list is sorted, so we must find the proper location to insert
-		insertIndex = -Collections.binarySearch(allPublishedServices, registration) - 1;
-		allPublishedServices.add(insertIndex, registration);
+		allPublishedServices = copyAndInsert(allPublishedServices, registration);
 	}
 
 	/**
@@ -963,30 +1144,29 @@ public class ServiceRegistry {
 	 * 
 	 * @param context The BundleContext of the bundle registering the service.
 	 * @param registration The modified ServiceRegistration.
+	 * @param previousProperties The properties of the registration before it was modified.
 	 */
 	/* @GuardedBy("this") */
-	void modifyServiceRegistration(BundleContextImpl context, ServiceRegistrationImpl<?> registration) {
+	void modifyServiceRegistration(BundleContextImpl context, ServiceRegistrationImpl<?> registration, Map<String, Object> previousProperties) {
 		assert Thread.holdsLock(this);
 		// The list of Services published by BundleContextImpl is not sorted, so
 		// we do not need to modify it.
 
 		// Remove the ServiceRegistrationImpl from the list of Services published by Class Name
 		// and then add at the correct index.
-		int insertIndex;
 		for (String clazz : registration.getClasses()) {
 			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-			services.remove(registration);
-			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -Collections.binarySearch(services, registration) - 1;
-			services.add(insertIndex, registration);
+			publishedServicesByClass.put(clazz, copyAndInsert(copyAndRemove(services, registration), registration));
 		}
 
+		// Remove the ServiceRegistrationImpl from the lists of Services published by the previous
+		// property values and then add using the new property values.
+		publishedServicesByProperty.remove(registration, previousProperties);
+		publishedServicesByProperty.add(registration, registration.getProperties());
+
 		// Remove the ServiceRegistrationImpl from the list of all published Services
 		// and then add at the correct index.
-		allPublishedServices.remove(registration);
-		// The list is sorted, so we must find the proper location to insert
-		insertIndex = -Collections.binarySearch(allPublishedServices, registration) - 1;
-		allPublishedServices.add(insertIndex, registration);
+		allPublishedServices = copyAndInsert(copyAndRemove(allPublishedServices, registration), registration);
 	}
 
 	/**
@@ -1001,24 +1181,85 @@ public class ServiceRegistry {
 		// Remove the ServiceRegistrationImpl from the list of Services published by BundleContextImpl.
 		List<ServiceRegistrationImpl<?>> contextServices = publishedServicesByContext.get(context);
 		if (contextServices != null) {
-			contextServices.remove(registration);
+			publishedServicesByContext.put(context, copyAndRemove(contextServices, registration));
 		}
 
 		// Remove the ServiceRegistrationImpl from the list of Services published by Class Name.
 		for (String clazz : registration.getClasses()) {
-			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-			services.remove(registration);
+			List<ServiceRegistrationImpl<?>> services = copyAndRemove(publishedServicesByClass.get(clazz), registration);
 			if (services.isEmpty()) { // remove empty list
 				publishedServicesByClass.remove(clazz);
+			} else {
+				publishedServicesByClass.put(clazz, services);
 			}
 		}
 
+		// Remove the ServiceRegistrationImpl from the lists of Services published by property value.
+		publishedServicesByProperty.remove(registration, registration.getProperties());
+
 		// Remove the ServiceRegistrationImpl from the list of all published Services.
-		allPublishedServices.remove(registration);
+		allPublishedServices = copyAndRemove(allPublishedServices, registration);
+	}
+
+	/**
+	 * Returns a new unmodifiable list containing the elements of the specified
+	 * list followed by the specified registration.
+	 * 
+	 * @param services The list to copy, may be <code>null</code>.
+	 * @param registration The registration to add.
+	 * @return The new list.
+	 */
+	static List<ServiceRegistrationImpl<?>> copyAndAdd(List<ServiceRegistrationImpl<?>> services, ServiceRegistrationImpl<?> registration) {
+		if (services == null) {
+			return Collections.<ServiceRegistrationImpl<?>> singletonList(registration);
+		}
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + 1);
+		result.addAll(services);
+		result.add(registration);
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns a new unmodifiable list containing the elements of the specified
+	 * sorted list with the specified registration inserted at its sorted location.
+	 * 
+	 * @param services The sorted list to copy, may be <code>null</code>.
+	 * @param registration The registration to insert.
+	 * @return The new sorted list.
+	 */
+	static List<ServiceRegistrationImpl<?>> copyAndInsert(List<ServiceRegistrationImpl<?>> services, ServiceRegistrationImpl<?> registration) {
+		if (services == null) {
+			return Collections.<ServiceRegistrationImpl<?>> singletonList(registration);
+		}
+		int size = services.size();
+		int insertIndex = -Collections.binarySearch(services, registration) - 1;
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(size + 1);
+		result.addAll(services.subList(0, insertIndex));
+		result.add(registration);
+		result.addAll(services.subList(insertIndex, size));
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns a new unmodifiable list containing the elements of the specified
+	 * list except the specified registration.
+	 * 
+	 * @param services The list to copy, may be <code>null</code>.
+	 * @param registration The registration to remove.
+	 * @return The new list.
+	 */
+	static List<ServiceRegistrationImpl<?>> copyAndRemove(List<ServiceRegistrationImpl<?>> services, ServiceRegistrationImpl<?> registration) {
+		if (services == null) {
+			return Collections.emptyList();
+		}
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services);
+		result.remove(registration);
+		return result.isEmpty() ? Collections.<ServiceRegistrationImpl<?>> emptyList() : Collections.unmodifiableList(result);
 	}
 
 	/**
 	 * Lookup Service Registrations in the data structure by class name and filter.
+	 * This method does not block; it uses the currently published lists.
 	 * 
 	 * @param clazz The class name with which the service was registered or
 	 *        <code>null</code> for all services.
@@ -1027,37 +1268,61 @@ public class ServiceRegistry {
 	 */
 	private List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(String clazz, Filter filter) {
 		List<ServiceRegistrationImpl<?>> result;
-		synchronized (this) {
-			if (clazz == null) { /* all services */
-				result = allPublishedServices;
-			} else {
-				/* services registered under the class name */
-				result = publishedServicesByClass.get(clazz);
-			}
-
-			if ((result == null) || result.isEmpty()) {
-				List<ServiceRegistrationImpl<?>> empty = Collections.<ServiceRegistrationImpl<?>> emptyList();
-				return empty;
-			}
+		if (clazz == null) { /* all services */
+			result = allPublishedServices;
+		} else {
+			/* services registered under the class name */
+			result = publishedServicesByClass.get(clazz);
+		}
 
-			result = new LinkedList<>(result); /* make a new list since we don't want to change the real list */
+		if ((result == null) || result.isEmpty()) {
+			List<ServiceRegistrationImpl<?>> empty = Collections.<ServiceRegistrationImpl<?>> emptyList();
+			return empty;
 		}
 
 		if (filter == null) {
-			return result;
+			return result; /* the published list is never modified */
 		}
 
-		for (Iterator<ServiceRegistrationImpl<?>> iter = result.iterator(); iter.hasNext();) {
-			ServiceRegistrationImpl<?> registration = iter.next();
+		/* services having the indexed property value required by the filter */
+		List<ServiceRegistrationImpl<?>> indexed = (filter instanceof FilterImpl) ? publishedServicesByProperty.lookup((FilterImpl) filter) : null;
+		if ((indexed != null) && (indexed.size() < result.size())) {
+			result = indexed;
+			if (clazz != null) {
+				result = registeredUnder(result, clazz);
+			}
+		}
+
+		List<ServiceRegistrationImpl<?>> matches = new ArrayList<>();
+		for (ServiceRegistrationImpl<?> registration : result) {
 			ServiceReferenceImpl<?> reference;
 			try {
 				reference = registration.getReferenceImpl();
 			} catch (IllegalStateException e) {
-				iter.remove(); /* service was unregistered after we left the synchronized block above */
-				continue;
+				continue; /* service was unregistered after the list was published */
+			}
+			if (filter.match(reference)) {
+				matches.add(registration);
 			}
-			if (!filter.match(reference)) {
-				iter.remove();
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns the registrations which were registered under the specified class name.
+	 * 
+	 * @param registrations The registrations to check.
+	 * @param clazz The class name with which the services must be registered.
+	 * @return The registrations registered under the class name.
+	 */
+	private static List<ServiceRegistrationImpl<?>> registeredUnder(List<ServiceRegistrationImpl<?>> registrations, String clazz) {
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(registrations.size());
+		for (ServiceRegistrationImpl<?> registration : registrations) {
+			for (String registered : registration.getClasses()) {
+				if (registered.equals(clazz)) {
+					result.add(registration);
+					break;
+				}
 			}
 		}
 		return result;
@@ -1065,11 +1330,12 @@ public class ServiceRegistry {
 
 	/**
 	 * Lookup Service Registrations in the data structure by BundleContext.
+	 * This method does not block; it uses the currently published list.
 	 * 
 	 * @param context The BundleContext for which to return Service Registrations.
 	 * @return List<ServiceRegistrationImpl>
 	 */
-	private synchronized List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(BundleContextImpl context) {
+	private List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(BundleContextImpl context) {
 		List<ServiceRegistrationImpl<?>> result = publishedServicesByContext.get(context);
 
 		if ((result == null) || result.isEmpty()) {
@@ -1077,11 +1343,13 @@ public class ServiceRegistry {
 			return empty;
 		}
 
-		return new ArrayList<>(result); /* make a new list since we don't want to change the real list */
+		return result; /* the published list is never modified */
 	}
 
 	/**
 	 * Remove Service Registrations in the data structure by BundleContext.
+	 * The removal is serialized with the other updates of the data structure
+	 * so that it cannot be lost to a concurrent copy-on-write update.
 	 * 
 	 * @param context The BundleContext for which to remove Service Registrations.
 	 */
@@ -25,6 +25,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -40,22 +41,34 @@ import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.fdesigner.container.Module;
 import org.fdesigner.container.ModuleCapability;
 import org.fdesigner.container.ModuleContainer;
 import org.fdesigner.container.ModuleContainerAdaptor;
 import org.fdesigner.container.ModuleDatabase;
+import org.fdesigner.container.ModuleResolutionCache;
 import org.fdesigner.container.ModuleRevision;
 import org.fdesigner.container.ModuleRevisionBuilder;
 import org.fdesigner.container.ModuleWire;
@@ -84,6 +97,7 @@ import org.fdesigner.container.storage.bundlefile.BundleFileWrapper;
 import org.fdesigner.container.storage.bundlefile.BundleFileWrapperChain;
 import org.fdesigner.container.storage.bundlefile.DirBundleFile;
 import org.fdesigner.container.storage.bundlefile.MRUBundleFileList;
+import org.fdesigner.container.storage.bundlefile.MappedZipBundleFile;
 import org.fdesigner.container.storage.bundlefile.NestedDirBundleFile;
 import org.fdesigner.container.storage.bundlefile.ZipBundleFile;
 import org.fdesigner.container.storage.url.reference.Handler;
@@ -142,6 +156,8 @@ public class Storage {
 	public static final String BUNDLE_DATA_DIR = "data"; //$NON-NLS-1$
 	public static final String BUNDLE_FILE_NAME = "bundleFile"; //$NON-NLS-1$
 	public static final String FRAMEWORK_INFO = "framework.info"; //$NON-NLS-1$
+	public static final String FRAMEWORK_INFO_JOURNAL = "framework.info.journal"; //$NON-NLS-1$
+	public static final String RESOLUTION_CACHE = "resolution.cache"; //$NON-NLS-1$
 	public static final String ECLIPSE_SYSTEMBUNDLE = "Eclipse-SystemBundle"; //$NON-NLS-1$
 	public static final String DELETE_FLAG = ".delete"; //$NON-NLS-1$
 	public static final String LIB_TEMP = "libtemp"; //$NON-NLS-1$
@@ -165,10 +181,32 @@ public class Storage {
 	private final ModuleContainer moduleContainer;
 	private final Object saveMonitor = new Object();
 	private long lastSavedTimestamp = -1;
+	private final Set<Generation> storageHookDataChanged = Collections.newSetFromMap(new ConcurrentHashMap<Generation, Boolean>());
+	private final StorageJournal journal;
+	private final boolean journalEnabled;
+	private final ModuleResolutionCache resolutionCache;
+	/* @GuardedBy("saveMonitor") */
+	private Map<Long, Generation> savedGenerations = Collections.emptyMap();
+	// the expected length of the journal once the pending saves are written; -1 if a snapshot is needed
+	/* @GuardedBy("saveMonitor") */
+	private long journalLength = -1;
+	/* @GuardedBy("saveMonitor") */
+	private long journalSnapshotSize;
+	/* @GuardedBy("saveMonitor") */
+	private final Queue<PendingSave> pendingSaves = new LinkedList<>();
+	private final Object writeMonitor = new Object();
+	private final AtomicLong saveCount = new AtomicLong();
+	private final AtomicLong saveLockTime = new AtomicLong();
+	private final AtomicLong maxSaveLockTime = new AtomicLong();
 	private final MRUBundleFileList mruList;
 	private final FrameworkExtensionInstaller extensionInstaller;
 	private final List<String> cachedHeaderKeys = Arrays.asList(Constants.BUNDLE_SYMBOLICNAME, Constants.BUNDLE_ACTIVATIONPOLICY, "Service-Component"); //$NON-NLS-1$
 	private final boolean allowRestrictedProvides;
+	private final boolean mappedBundleFiles;
+	private final int loadThreadCount;
+	private final Object loadPoolMonitor = new Object();
+	/* @GuardedBy("loadPoolMonitor") */
+	private ForkJoinPool loadPool;
 	private final AtomicBoolean refreshMRBundles = new AtomicBoolean(false);
 	private final Version runtimeVersion;
 	private final String javaSpecVersion;
@@ -208,6 +246,16 @@ public class Storage {
 		equinoxContainer = container;
 		extensionInstaller = new FrameworkExtensionInstaller(container.getConfiguration());
 		allowRestrictedProvides = Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_ALLOW_RESTRICTED_PROVIDES));
+		mappedBundleFiles = Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_BUNDLE_FILE_MAPPED));
+		String loadThreadCountProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_STORAGE_LOAD_THREAD_COUNT);
+		int configuredLoadThreads;
+		try {
+			// note that the load thread count defaults to -1 (compute based on processor number)
+			configuredLoadThreads = loadThreadCountProp == null ? -1 : Integer.parseInt(loadThreadCountProp);
+		} catch (NumberFormatException e) {
+			configuredLoadThreads = -1;
+		}
+		loadThreadCount = configuredLoadThreads <= 0 ? Runtime.getRuntime().availableProcessors() : configuredLoadThreads;
 
 		// we need to set the install path as soon as possible so we can determine
 		// the absolute location of install relative URLs
@@ -231,6 +279,10 @@ public class Storage {
 		if (!this.osgiLocation.isReadOnly()) {
 			this.childRoot.mkdirs();
 		}
+		// an existing journal is always replayed; journalEnabled only controls if new changes are journaled
+		this.journal = this.osgiLocation.isReadOnly() ? null : new StorageJournal(FRAMEWORK_INFO_JOURNAL);
+		this.journalEnabled = this.journal != null && Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_STORAGE_JOURNAL));
+		this.resolutionCache = !this.osgiLocation.isReadOnly() && Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_RESOLVER_CACHE)) ? loadResolutionCache() : null;
 		Location parent = this.osgiLocation.getParentLocation();
 		parentRoot = parent == null ? null : new File(parent.getURL().getPath());
 
@@ -240,44 +292,87 @@ public class Storage {
 			container.getConfiguration().setConfiguration(Constants.FRAMEWORK_STORAGE, childRoot.getParentFile().getAbsolutePath());
 		}
 
-		InputStream info = getInfoInputStream();
-		DataInputStream data = info == null ? null : new DataInputStream(new BufferedInputStream(info));
-		try {
-			Map<Long, Generation> generations;
+		// a journal entry which fails to apply ends the journal; the framework data is then
+		// loaded again from the snapshot with only the entries before the failed entry
+		List<byte[]> journalEntries = null;
+		int replayCount = 0;
+		PermissionData loadedPermissionData;
+		EquinoxContainerAdaptor loadedAdaptor;
+		ModuleDatabase loadedDatabase;
+		ModuleContainer loadedContainer;
+		while (true) {
+			int replayed = replayCount;
+			InputStream info = getInfoInputStream();
+			DataInputStream data = info == null ? null : new DataInputStream(new BufferedInputStream(info));
 			try {
-				generations = loadGenerations(data, cachedInfo);
-			} catch (IllegalArgumentException e) {
-				equinoxContainer.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "The persistent format for the framework data has changed.  The framework will be reinitialized: " + e.getMessage(), null); //$NON-NLS-1$
-				generations = new HashMap<>(0);
-				data = null;
-				cleanOSGiStorage(osgiLocation, childRoot);
-			}
-			this.permissionData = loadPermissionData(data);
-			this.securityAdmin = new SecurityAdmin(null, this.permissionData);
-			this.adaptor = new EquinoxContainerAdaptor(equinoxContainer, this, generations);
-			this.moduleDatabase = new ModuleDatabase(this.adaptor);
-			this.moduleContainer = new ModuleContainer(this.adaptor, this.moduleDatabase);
-			if (data != null) {
+				Map<Long, Generation> generations;
 				try {
-					moduleDatabase.load(data);
-					lastSavedTimestamp = moduleDatabase.getTimestamp();
+					generations = loadGenerations(data, cachedInfo, Collections.<Long, Generation> emptyMap());
 				} catch (IllegalArgumentException e) {
-					equinoxContainer.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Incompatible version.  Starting with empty framework.", e); //$NON-NLS-1$
-					// Clean up the cache.
-					// No need to clean up the database. Nothing got loaded.
+					equinoxContainer.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "The persistent format for the framework data has changed.  The framework will be reinitialized: " + e.getMessage(), null); //$NON-NLS-1$
+					generations = new HashMap<>(0);
+					data = null;
 					cleanOSGiStorage(osgiLocation, childRoot);
-					// should free up the generations map
-					generations.clear();
 				}
-			}
-		} finally {
-			if (data != null) {
-				try {
-					data.close();
-				} catch (IOException e) {
-					// just move on
+				loadedPermissionData = loadPermissionData(data);
+				loadedAdaptor = new EquinoxContainerAdaptor(equinoxContainer, this, generations);
+				loadedDatabase = new ModuleDatabase(loadedAdaptor);
+				loadedContainer = new ModuleContainer(loadedAdaptor, loadedDatabase);
+				if (data != null) {
+					try {
+						loadedDatabase.load(data);
+						lastSavedTimestamp = loadedDatabase.getTimestamp();
+						if (journal != null) {
+							if (journalEntries == null) {
+								journalEntries = readJournal(loadedDatabase.getTimestamp());
+								replayCount = replayed = journalEntries.size();
+							}
+							replayed = replayJournal(journalEntries.subList(0, replayCount), loadedDatabase, loadedContainer, generations, cachedInfo);
+						}
+						savedGenerations = getCurrentGenerations(loadedContainer);
+					} catch (IllegalArgumentException e) {
+						equinoxContainer.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Incompatible version.  Starting with empty framework.", e); //$NON-NLS-1$
+						// Clean up the cache.
+						// No need to clean up the database. Nothing got loaded.
+						cleanOSGiStorage(osgiLocation, childRoot);
+						// should free up the generations map
+						generations.clear();
+					}
+				}
+			} finally {
+				if (data != null) {
+					try {
+						data.close();
+					} catch (IOException e) {
+						// just move on
+					}
 				}
 			}
+			if (replayed == replayCount) {
+				break;
+			}
+			// an entry failed to apply after the database got changed by it; start over
+			replayCount = replayed;
+		}
+		this.permissionData = loadedPermissionData;
+		this.securityAdmin = new SecurityAdmin(null, this.permissionData);
+		this.adaptor = loadedAdaptor;
+		this.moduleDatabase = loadedDatabase;
+		this.moduleContainer = loadedContainer;
+		if (journalEntries != null && !journalEntries.isEmpty()) {
+			if (replayCount < journalEntries.size() || !journalEnabled) {
+				// the journal got cut short or journaling got disabled; the next save
+				// writes a snapshot with the replayed changes and discards the journal
+				journal.invalidate();
+				lastSavedTimestamp = -1;
+			}
+			if (getConfiguration().getDebug().DEBUG_STORAGE) {
+				Debug.println("Replayed " + replayCount + " of " + journalEntries.size() + " framework data journal entries"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		if (journalEnabled && journal.isValid()) {
+			journalLength = journal.getLength();
+			journalSnapshotSize = journal.getSnapshotSize();
 		}
 	}
 
@@ -330,16 +425,38 @@ public class Storage {
 	private void refreshStaleBundles() throws BundleException {
 		Collection<Module> needsRefresh = new ArrayList<>(0);
 
-		// First uninstall any modules that had their content changed or deleted
+		// First uninstall any modules that had their content changed or deleted;
+		// checking the content is done in parallel since it may hit a slow file system
+		List<Module> modules = new ArrayList<>();
+		List<Callable<Boolean>> checks = new ArrayList<>();
 		for (Module module : moduleContainer.getModules()) {
 			if (module.getId() == Constants.SYSTEM_BUNDLE_ID)
 				continue;
 			ModuleRevision revision = module.getCurrentRevision();
-			Generation generation = (Generation) revision.getRevisionInfo();
-			if (needsDiscarding(generation)) {
+			final Generation generation = (Generation) revision.getRevisionInfo();
+			modules.add(module);
+			checks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return needsDiscarding(generation);
+				}
+			});
+		}
+		List<Boolean> discard;
+		try {
+			discard = invokeAll(checks);
+		} catch (IOException e) {
+			throw new BundleException("Error checking the installed bundles.", e); //$NON-NLS-1$
+		} finally {
+			// the load tasks are done
+			shutdownLoadPool();
+		}
+		for (int i = 0; i < modules.size(); i++) {
+			if (discard.get(i).booleanValue()) {
+				Module module = modules.get(i);
 				needsRefresh.add(module);
 				moduleContainer.uninstall(module);
-				generation.delete();
+				((Generation) module.getCurrentRevision().getRevisionInfo()).delete();
 			}
 		}
 		// Next check if we need to refresh Multi-Release Jar bundles
@@ -565,6 +682,63 @@ public class Storage {
 		return osgiLocation.isReadOnly();
 	}
 
+	/**
+	 * Returns the cache of resolution results or {@code null} if resolution results are not cached.
+	 * @return the resolution cache or {@code null}
+	 */
+	public ModuleResolutionCache getResolutionCache() {
+		return resolutionCache;
+	}
+
+	private ModuleResolutionCache loadResolutionCache() {
+		ModuleResolutionCache cache = new ModuleResolutionCache();
+		try {
+			StorageManager childStorageManager = getChildStorageManager();
+			try {
+				InputStream in = childStorageManager.getInputStream(RESOLUTION_CACHE);
+				if (in != null) {
+					DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+					try {
+						cache.load(data);
+					} finally {
+						data.close();
+					}
+				}
+			} finally {
+				childStorageManager.close();
+			}
+		} catch (IOException e) {
+			// start with an empty cache; the results are computed again by the resolver
+			if (getConfiguration().getDebug().DEBUG_STORAGE) {
+				Debug.println("Error reading " + RESOLUTION_CACHE + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return cache;
+	}
+
+	private void saveResolutionCache() throws IOException {
+		if (resolutionCache == null || !resolutionCache.isDirty()) {
+			return;
+		}
+		synchronized (this.writeMonitor) {
+			StorageManager childStorageManager = getChildStorageManager();
+			ManagedOutputStream mos = null;
+			boolean success = false;
+			try {
+				mos = childStorageManager.getOutputStream(RESOLUTION_CACHE);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(mos));
+				resolutionCache.store(out);
+				out.close();
+				success = true;
+			} finally {
+				if (!success && mos != null) {
+					mos.abort();
+				}
+				childStorageManager.close();
+			}
+		}
+	}
+
 	public URLConnection getContentConnection(Module module, String bundleLocation, final InputStream in) throws IOException {
 		List<StorageHookFactory<?, ?, ?>> storageHooks = getConfiguration().getHookRegistry().getStorageHookFactories();
 		for (StorageHookFactory<?, ?, ?> storageHook : storageHooks) {
@@ -677,16 +851,7 @@ public class Storage {
 			} catch (IOException e) {
 				// ignore
 			}
-			if (origin != null) {
-				// Check that the existing location is visible from the origin module
-				Bundle bundle = origin.getBundle();
-				BundleContext context = bundle == null ? null : bundle.getBundleContext();
-				if (context != null && context.getBundle(existingLocation.getId()) == null) {
-					Bundle b = existingLocation.getBundle();
-					throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation, new Object[] {b.getSymbolicName(), b.getVersion(), bundleLocation}), BundleException.REJECTED_BY_HOOK);
-				}
-			}
-			return (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
+			return getExistingGeneration(origin, existingLocation, bundleLocation);
 		}
 
 		boolean isReference = in instanceof ReferenceInputStream;
@@ -725,25 +890,233 @@ public class Storage {
 				generation.delete();
 				generation.getBundleInfo().delete();
 			}
-			if (t instanceof SecurityException) {
-				// TODO hack from ModuleContainer
-				// if the cause is a bundle exception then throw that
-				if (t.getCause() instanceof BundleException) {
-					throw (BundleException) t.getCause();
+			throw getInstallException(t);
+		} finally {
+			if (generation != null) {
+				generation.getBundleInfo().unlockGeneration(generation);
+			}
+		}
+	}
+
+	private Generation getExistingGeneration(Module origin, Module existingLocation, String bundleLocation) throws BundleException {
+		if (origin != null) {
+			// Check that the existing location is visible from the origin module
+			Bundle bundle = origin.getBundle();
+			BundleContext context = bundle == null ? null : bundle.getBundleContext();
+			if (context != null && context.getBundle(existingLocation.getId()) == null) {
+				Bundle b = existingLocation.getBundle();
+				throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation, new Object[] {b.getSymbolicName(), b.getVersion(), bundleLocation}), BundleException.REJECTED_BY_HOOK);
+			}
+		}
+		return (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
+	}
+
+	private static BundleException getInstallException(Throwable t) {
+		if (t instanceof SecurityException) {
+			// TODO hack from ModuleContainer
+			// if the cause is a bundle exception then throw that
+			if (t.getCause() instanceof BundleException) {
+				return (BundleException) t.getCause();
+			}
+			throw (SecurityException) t;
+		}
+		if (t instanceof BundleException) {
+			return (BundleException) t;
+		}
+		return new BundleException("Error occurred installing a bundle.", t); //$NON-NLS-1$
+	}
+
+	/**
+	 * Installs the bundles with the specified locations and contents.  The content of
+	 * each bundle is staged and its manifest is parsed in parallel before all the bundles
+	 * are installed into the module container in one operation.  This results in a
+	 * single update of the module database and a single save of the framework data.
+	 * <p>
+	 * If a bundle already exists at a location then the existing generation is returned for
+	 * that location.  If any bundle fails to install then none of the bundles are installed.
+	 * <p>
+	 * The collision hooks can only be consulted for installed bundles.  If bundles of the
+	 * batch have the same symbolic name and version then the staged bundles are installed
+	 * into the module container one at a time in the order of the locations, like
+	 * {@link #install(Module, String, URLConnection)} would.  In that case the bundles
+	 * installed before a bundle failed to install remain installed.
+	 * @param origin the module performing the install, may be {@code null}.
+	 * @param bundleLocations the locations of the bundles to install
+	 * @param contents the contents of the bundles to install
+	 * @return the new or existing generations in the order of the specified locations
+	 * @throws BundleException if some error occurs installing the bundles
+	 */
+	public List<Generation> install(Module origin, List<String> bundleLocations, List<URLConnection> contents) throws BundleException {
+		if (osgiLocation.isReadOnly()) {
+			throw new BundleException("The framework storage area is read only.", BundleException.INVALID_OPERATION); //$NON-NLS-1$
+		}
+		int size = bundleLocations.size();
+		if (contents.size() != size) {
+			throw new IllegalArgumentException("The number of locations and contents must be the same."); //$NON-NLS-1$
+		}
+		Generation[] results = new Generation[size];
+		// the index of each location to stage; a location specified more than once is only staged once
+		Map<String, Integer> stagedIndexes = new LinkedHashMap<>();
+		List<StagedInstall> staged = new ArrayList<>();
+		// the number of staged bundles installed one at a time
+		int installedCount = 0;
+		try {
+			List<Callable<StagedInstall>> tasks = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				String bundleLocation = bundleLocations.get(i);
+				if (stagedIndexes.containsKey(bundleLocation)) {
+					continue;
 				}
-				throw (SecurityException) t;
+				// Check if the bundle already exists at this location before doing the staging.
+				Module existingLocation = moduleContainer.getModule(bundleLocation);
+				if (existingLocation != null) {
+					results[i] = getExistingGeneration(origin, existingLocation, bundleLocation);
+					continue;
+				}
+				stagedIndexes.put(bundleLocation, i);
+				// assign the ids in the order of the locations; the generations are created and
+				// stay locked by this thread until the modules got installed into the container
+				Long nextID = moduleDatabase.getAndIncrementNextId();
+				StagedInstall install = new StagedInstall();
+				staged.add(install);
+				install.generation = new BundleInfo(this, nextID, bundleLocation, 0).createGeneration();
+				tasks.add(createStageInstallTask(install, contents.get(i)));
 			}
-			if (t instanceof BundleException) {
-				throw (BundleException) t;
+
+			ForkJoinPool pool = tasks.size() > 1 && loadThreadCount > 1 ? new ForkJoinPool(loadThreadCount) : null;
+			try {
+				invokeAll(pool, tasks);
+			} finally {
+				if (pool != null) {
+					pool.shutdown();
+				}
 			}
-			throw new BundleException("Error occurred installing a bundle.", t); //$NON-NLS-1$
+
+			List<String> locations = new ArrayList<>(staged.size());
+			List<ModuleRevisionBuilder> builders = new ArrayList<>(staged.size());
+			List<Object> generations = new ArrayList<>(staged.size());
+			for (StagedInstall install : staged) {
+				if (install.failure != null) {
+					throw install.failure;
+				}
+				locations.add(install.generation.getBundleInfo().getLocation());
+				builders.add(install.builder);
+				generations.add(install.generation);
+			}
+
+			List<Module> modules;
+			if (hasSameIdentity(builders)) {
+				// let the collision hooks decide about the duplicates within the batch
+				modules = new ArrayList<>(staged.size());
+				for (int i = 0; i < staged.size(); i++) {
+					modules.add(moduleContainer.install(origin, locations.get(i), builders.get(i), generations.get(i)));
+					installedCount++;
+				}
+			} else {
+				modules = moduleContainer.install(origin, locations, builders, generations);
+			}
+			for (int i = 0; i < staged.size(); i++) {
+				StagedInstall install = staged.get(i);
+				Module m = modules.get(i);
+				Generation result = install.generation;
+				if (m.getId() != install.generation.getBundleInfo().getBundleId()) {
+					// this revision is already installed. delete the generation
+					install.generation.delete();
+					result = (Generation) m.getCurrentRevision().getRevisionInfo();
+				}
+				results[stagedIndexes.get(locations.get(i)).intValue()] = result;
+			}
+		} catch (Throwable t) {
+			discard(staged.subList(installedCount, staged.size()));
+			throw getInstallException(t);
 		} finally {
-			if (generation != null) {
-				generation.getBundleInfo().unlockGeneration(generation);
+			for (StagedInstall install : staged) {
+				if (install.generation != null) {
+					install.generation.getBundleInfo().unlockGeneration(install.generation);
+				}
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (results[i] == null) {
+				results[i] = results[stagedIndexes.get(bundleLocations.get(i)).intValue()];
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Creates a task which stages the content of a bundle of a batch install and
+	 * prepares its generation.  The generation is locked by the installing thread
+	 * which keeps the lock until the generation got installed or discarded.
+	 */
+	private Callable<StagedInstall> createStageInstallTask(final StagedInstall install, final URLConnection content) {
+		return new Callable<StagedInstall>() {
+			@Override
+			public StagedInstall call() {
+				try {
+					InputStream in;
+					try {
+						in = content.getInputStream();
+					} catch (Throwable e) {
+						throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
+					}
+					install.isReference = in instanceof ReferenceInputStream;
+					install.staged = stageContent(in, content.getURL());
+					Generation generation = install.generation;
+					long bundleId = generation.getBundleInfo().getBundleId();
+					File contentFile = getContentFile(install.staged, install.isReference, bundleId, generation.getGenerationId());
+					generation.setContent(contentFile, install.isReference);
+					// Check that we can open the bundle file
+					generation.getBundleFile().open();
+					setStorageHooks(generation);
+
+					install.builder = getBuilder(generation);
+					install.builder.setId(bundleId);
+				} catch (Throwable t) {
+					install.failure = t;
+				}
+				return install;
+			}
+		};
+	}
+
+	private static boolean hasSameIdentity(List<ModuleRevisionBuilder> builders) {
+		Set<String> identities = new HashSet<>();
+		for (ModuleRevisionBuilder builder : builders) {
+			if (builder.getSymbolicName() != null && !identities.add(builder.getSymbolicName() + '_' + builder.getVersion())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void discard(List<StagedInstall> staged) {
+		for (StagedInstall install : staged) {
+			if (!install.isReference && install.staged != null) {
+				try {
+					delete(install.staged);
+				} catch (IOException e) {
+					// tried our best
+				}
+			}
+			if (install.generation != null) {
+				install.generation.delete();
+				install.generation.getBundleInfo().delete();
 			}
 		}
 	}
 
+	/**
+	 * The staged content, generation and builder of a bundle being installed by a batch install.
+	 */
+	private static final class StagedInstall {
+		boolean isReference;
+		File staged;
+		Generation generation;
+		ModuleRevisionBuilder builder;
+		Throwable failure;
+	}
+
 	private void setStorageHooks(Generation generation) throws BundleException {
 		if (generation.getBundleInfo().getBundleId() == 0) {
 			return; // ignore system bundle
@@ -1140,6 +1513,9 @@ public class Storage {
 			if (isDirectory) {
 				boolean strictPath = Boolean.parseBoolean(equinoxContainer.getConfiguration().getConfiguration(EquinoxConfiguration.PROPERTY_STRICT_BUNDLE_ENTRY_PATH, Boolean.FALSE.toString()));
 				result = new DirBundleFile(content, strictPath);
+			} else if (mappedBundleFiles && generation != null && !generation.isReference()) {
+				// only map files owned by the storage; a reference installed file may be replaced in place
+				result = new MappedZipBundleFile(content, generation, getConfiguration().getDebug());
 			} else {
 				result = new ZipBundleFile(content, generation, mruList, getConfiguration().getDebug());
 			}
@@ -1263,61 +1639,351 @@ public class Storage {
 		}
 	}
 
+	/**
+	 * Indicates that the data of a storage hook of a generation has changed without a change
+	 * to the module database.  This causes the next save to persist the storage
+	 * hook data even if the module database timestamp did not change.
+	 * @param generation the generation of the storage hook which changed
+	 */
+	public void storageHookDataChanged(Generation generation) {
+		storageHookDataChanged.add(generation);
+	}
+
 	void save0() throws IOException {
-		StorageManager childStorageManager = null;
-		ManagedOutputStream mos = null;
-		DataOutputStream out = null;
-		boolean success = false;
+		saveResolutionCache();
+		PendingSave pending = null;
+		List<Generation> hookDataChanged = Collections.emptyList();
 		moduleDatabase.readLock();
+		long lockStart = System.nanoTime();
 		try {
 			synchronized (this.saveMonitor) {
-				if (lastSavedTimestamp == moduleDatabase.getTimestamp())
+				hookDataChanged = new ArrayList<>(storageHookDataChanged);
+				storageHookDataChanged.removeAll(hookDataChanged);
+				if (lastSavedTimestamp == moduleDatabase.getTimestamp() && hookDataChanged.isEmpty())
 					return;
-				childStorageManager = getChildStorageManager();
-				mos = childStorageManager.getOutputStream(FRAMEWORK_INFO);
-				out = new DataOutputStream(new BufferedOutputStream(mos));
-				saveGenerations(out);
-				savePermissionData(out);
-				moduleDatabase.store(out, true);
+				// only encode the data while holding the lock; it is written after the lock is released
+				byte[] entry = createJournalEntry(hookDataChanged);
+				if (entry != null) {
+					pending = new PendingSave(moduleDatabase.getTimestamp(), entry, true, hookDataChanged);
+					journalLength += StorageJournal.ENTRY_HEADER_SIZE + entry.length;
+				} else {
+					pending = new PendingSave(moduleDatabase.getTimestamp(), createSnapshot(), false, hookDataChanged);
+					journalLength = journalEnabled ? StorageJournal.HEADER_SIZE : -1;
+					journalSnapshotSize = pending.data.length;
+				}
 				lastSavedTimestamp = moduleDatabase.getTimestamp();
-				success = true;
+				moduleDatabase.markPersisted();
+				savedGenerations = getCurrentGenerations();
+				pendingSaves.add(pending);
 			}
+		} catch (IOException e) {
+			storageHookDataChanged.addAll(hookDataChanged);
+			throw e;
+		} catch (RuntimeException e) {
+			storageHookDataChanged.addAll(hookDataChanged);
+			throw e;
 		} finally {
-			if (!success) {
-				if (mos != null) {
-					mos.abort();
-				}
+			moduleDatabase.readUnlock();
+			recordSaveLockTime(System.nanoTime() - lockStart, pending);
+		}
+		writePendingSaves();
+	}
+
+	/**
+	 * Encodes the changes since the last save as a journal entry.  Returns null if
+	 * the changes cannot be journaled or the journal has grown too large compared
+	 * to the snapshot, in which case a complete snapshot must be written.
+	 */
+	/* @GuardedBy("saveMonitor") */
+	private byte[] createJournalEntry(List<Generation> hookDataChanged) throws IOException {
+		if (!journalEnabled || journalLength < 0 || permissionData.isDirty()) {
+			return null;
+		}
+		Map<Long, Generation> current = getCurrentGenerations();
+		List<Generation> changed = new ArrayList<>();
+		for (Generation generation : current.values()) {
+			if (savedGenerations.get(generation.getBundleInfo().getBundleId()) != generation || hookDataChanged.contains(generation)) {
+				changed.add(generation);
 			}
-			if (out != null) {
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			// the timestamp of the state the entry applies to
+			out.writeLong(lastSavedTimestamp);
+			saveGenerations(out, changed);
+			if (!moduleDatabase.storeDelta(out)) {
+				return null;
+			}
+		} finally {
+			out.close();
+		}
+		// compact the journal into a new snapshot once it gets too large
+		if (journalLength + bytes.size() > journalSnapshotSize / 2) {
+			return null;
+		}
+		return bytes.toByteArray();
+	}
+
+	/* @GuardedBy("saveMonitor") */
+	private byte[] createSnapshot() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			saveGenerations(out, getCurrentGenerations().values());
+			savePermissionData(out);
+			moduleDatabase.store(out, true);
+		} finally {
+			out.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the pending saves in the order they got encoded.  No container lock
+	 * is held while writing.
+	 */
+	private void writePendingSaves() throws IOException {
+		synchronized (this.writeMonitor) {
+			PendingSave pending;
+			while ((pending = pollPendingSave()) != null) {
 				try {
-					out.close();
+					writePendingSave(pending);
 				} catch (IOException e) {
-					// tried our best
+					saveFailed(pending);
+					throw e;
+				} catch (RuntimeException e) {
+					saveFailed(pending);
+					throw e;
+				}
+			}
+		}
+	}
+
+	private PendingSave pollPendingSave() {
+		synchronized (this.saveMonitor) {
+			return pendingSaves.poll();
+		}
+	}
+
+	/* @GuardedBy("writeMonitor") */
+	private void writePendingSave(PendingSave pending) throws IOException {
+		if (pending.journalEntry && !journal.isValid()) {
+			// a previous write failed; the changes must be written by a snapshot
+			saveFailed(pending);
+			return;
+		}
+		StorageManager childStorageManager = getChildStorageManager();
+		try {
+			if (pending.journalEntry) {
+				journal.append(childStorageManager, pending.data);
+				if (getConfiguration().getDebug().DEBUG_STORAGE) {
+					Debug.println("Journaled " + pending.data.length + " bytes"); //$NON-NLS-1$ //$NON-NLS-2$
 				}
+				return;
 			}
-			if (childStorageManager != null) {
+			writeSnapshot(childStorageManager, pending);
+		} finally {
+			childStorageManager.close();
+		}
+	}
+
+	/**
+	 * Writes a snapshot.  When journaling is enabled the header of a new journal is
+	 * committed together with the snapshot; this checkpoint replaces the old journal.
+	 * Otherwise the old journal is discarded once the snapshot got committed.
+	 */
+	/* @GuardedBy("writeMonitor") */
+	private void writeSnapshot(StorageManager childStorageManager, PendingSave pending) throws IOException {
+		boolean startJournal = journalEnabled;
+		if (journal != null) {
+			journal.invalidate();
+		}
+		ManagedOutputStream[] streams = null;
+		boolean success = false;
+		try {
+			streams = startJournal ? childStorageManager.getOutputStreamSet(new String[] {FRAMEWORK_INFO, FRAMEWORK_INFO_JOURNAL}) : new ManagedOutputStream[] {childStorageManager.getOutputStream(FRAMEWORK_INFO)};
+			streams[0].write(pending.data);
+			if (startJournal) {
+				journal.writeHeader(streams[1], pending.timestamp, pending.data.length);
+			}
+			for (ManagedOutputStream stream : streams) {
+				stream.close();
+			}
+			success = true;
+		} finally {
+			if (!success && streams != null) {
+				// aborting one stream of a set aborts the whole set
+				streams[0].abort();
+			}
+		}
+		if (startJournal) {
+			journal.started(pending.data.length);
+		} else if (journal != null) {
+			try {
+				journal.discard(childStorageManager);
+			} catch (IOException e) {
+				// the snapshot is saved; the old journal no longer applies to it and is ignored
+				getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Error discarding the framework data journal.", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Forces the next save to write a complete snapshot after a pending save failed to be written.
+	 */
+	private void saveFailed(PendingSave pending) {
+		synchronized (this.saveMonitor) {
+			lastSavedTimestamp = -1;
+			journalLength = -1;
+			storageHookDataChanged.addAll(pending.hookDataChanged);
+		}
+		if (journal != null) {
+			journal.invalidate();
+		}
+	}
+
+	private void recordSaveLockTime(long lockTime, PendingSave pending) {
+		if (pending == null) {
+			return;
+		}
+		saveCount.incrementAndGet();
+		saveLockTime.addAndGet(lockTime);
+		long max;
+		do {
+			max = maxSaveLockTime.get();
+		} while (lockTime > max && !maxSaveLockTime.compareAndSet(max, lockTime));
+		if (getConfiguration().getDebug().DEBUG_STORAGE) {
+			Debug.println("Held the module database lock for " + TimeUnit.NANOSECONDS.toMillis(lockTime) + "ms to encode " + pending.data.length + " bytes for a " + (pending.journalEntry ? "journal entry" : "snapshot")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+	}
+
+	/**
+	 * Returns the number of saves which encoded framework data.
+	 * @return the number of saves
+	 */
+	public long getSaveCount() {
+		return saveCount.get();
+	}
+
+	/**
+	 * Returns the total time in nanoseconds the module database lock was held
+	 * by saves to encode framework data.
+	 * @return the total lock hold time in nanoseconds
+	 */
+	public long getSaveLockTime() {
+		return saveLockTime.get();
+	}
+
+	/**
+	 * Returns the longest time in nanoseconds the module database lock was held
+	 * by a single save.
+	 * @return the maximum lock hold time in nanoseconds
+	 */
+	public long getMaxSaveLockTime() {
+		return maxSaveLockTime.get();
+	}
+
+	/**
+	 * Framework data which got encoded while holding the module database lock
+	 * and is waiting to be written.
+	 */
+	private static final class PendingSave {
+		final long timestamp;
+		final byte[] data;
+		final boolean journalEntry;
+		final List<Generation> hookDataChanged;
+
+		PendingSave(long timestamp, byte[] data, boolean journalEntry, List<Generation> hookDataChanged) {
+			this.timestamp = timestamp;
+			this.data = data;
+			this.journalEntry = journalEntry;
+			this.hookDataChanged = hookDataChanged;
+		}
+	}
+
+	/**
+	 * Reads the journal entries for the loaded snapshot.  A journal which cannot be
+	 * read is ignored; the next save writes a new snapshot.
+	 */
+	private List<byte[]> readJournal(long snapshotTimestamp) {
+		try {
+			StorageManager childStorageManager = getChildStorageManager();
+			try {
+				return journal.read(childStorageManager, snapshotTimestamp);
+			} finally {
 				childStorageManager.close();
 			}
-			moduleDatabase.readUnlock();
+		} catch (IOException e) {
+			journal.invalidate();
+			getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Error reading the framework data journal.", e); //$NON-NLS-1$
+			return Collections.emptyList();
 		}
 	}
 
-	private void savePermissionData(DataOutputStream out) throws IOException {
-		permissionData.savePermissionData(out);
+	/**
+	 * Applies the changes from the journal entries to the loaded snapshot.  An entry
+	 * which cannot be applied ends the journal; it and all the following entries are
+	 * skipped.  The database may have been changed by the failed entry, the caller
+	 * must load the snapshot again and only replay the entries which got applied.
+	 * @return the number of entries which got applied
+	 */
+	private int replayJournal(List<byte[]> entries, ModuleDatabase database, ModuleContainer container, Map<Long, Generation> generations, String[] cachedInfo) {
+		int replayed = 0;
+		for (byte[] entry : entries) {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+			try {
+				if (in.readLong() != database.getTimestamp()) {
+					// the entry does not apply to the current state; the journal ends here
+					break;
+				}
+				Map<Long, Generation> existing = new HashMap<>();
+				for (Module module : container.getModules()) {
+					ModuleRevision revision = module.getCurrentRevision();
+					if (revision != null && revision.getRevisionInfo() != null) {
+						existing.put(module.getId(), (Generation) revision.getRevisionInfo());
+					}
+				}
+				generations.putAll(loadGenerations(in, cachedInfo, existing));
+				database.loadDelta(in);
+			} catch (IOException e) {
+				getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Error replaying the framework data journal.  The remaining journal entries are skipped.", e); //$NON-NLS-1$
+				break;
+			} catch (RuntimeException e) {
+				getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, "Error replaying the framework data journal.  The remaining journal entries are skipped.", e); //$NON-NLS-1$
+				break;
+			}
+			replayed++;
+		}
+		if (replayed > 0) {
+			lastSavedTimestamp = database.getTimestamp();
+		}
+		return replayed;
 	}
 
-	private void saveGenerations(DataOutputStream out) throws IOException {
-		List<Module> modules = moduleContainer.getModules();
-		List<Generation> generations = new ArrayList<>();
-		for (Module module : modules) {
+	private Map<Long, Generation> getCurrentGenerations() {
+		return getCurrentGenerations(moduleContainer);
+	}
+
+	private static Map<Long, Generation> getCurrentGenerations(ModuleContainer container) {
+		Map<Long, Generation> generations = new LinkedHashMap<>();
+		for (Module module : container.getModules()) {
 			ModuleRevision revision = module.getCurrentRevision();
 			if (revision != null) {
 				Generation generation = (Generation) revision.getRevisionInfo();
 				if (generation != null) {
-					generations.add(generation);
+					generations.put(module.getId(), generation);
 				}
 			}
 		}
+		return generations;
+	}
+
+	private void savePermissionData(DataOutputStream out) throws IOException {
+		permissionData.savePermissionData(out);
+	}
+
+	private void saveGenerations(DataOutputStream out, Collection<Generation> generations) throws IOException {
 		out.writeInt(VERSION);
 
 		out.writeUTF(runtimeVersion.toString());
@@ -1370,7 +2036,7 @@ public class Storage {
 			out.writeBoolean(generation.isMRJar());
 		}
 
-		saveStorageHookData(out, generations);
+		saveStorageHookData(out, new ArrayList<>(generations));
 	}
 
 	private void saveLongString(DataOutputStream out, String value) throws IOException {
@@ -1421,7 +2087,12 @@ public class Storage {
 		}
 	}
 
-	private Map<Long, Generation> loadGenerations(DataInputStream in, String[] cachedInfo) throws IOException {
+	/**
+	 * Loads the generations.  A generation with the same bundle id and generation id as a
+	 * generation of the existing generations is not restored again, only its storage hook
+	 * data is reloaded.  The returned map only contains the newly restored generations.
+	 */
+	private Map<Long, Generation> loadGenerations(DataInputStream in, String[] cachedInfo, Map<Long, Generation> existing) throws IOException {
 		if (in == null) {
 			return new HashMap<>(0);
 		}
@@ -1491,9 +2162,12 @@ public class Storage {
 				}
 			}
 
-			BundleInfo info = new BundleInfo(this, infoId, infoLocation, nextGenId);
-			Generation generation = info.restoreGeneration(generationId, content, isDirectory, isReference, hasPackageInfo, cachedHeaders, lastModified, isMRJar);
-			result.put(infoId, generation);
+			Generation generation = existing.get(infoId);
+			if (generation == null || generation.getGenerationId() != generationId) {
+				BundleInfo info = new BundleInfo(this, infoId, infoLocation, nextGenId);
+				generation = info.restoreGeneration(generationId, content, isDirectory, isReference, hasPackageInfo, cachedHeaders, lastModified, isMRJar);
+				result.put(infoId, generation);
+			}
 			generations.add(generation);
 		}
 
@@ -1503,7 +2177,8 @@ public class Storage {
 
 	private void loadStorageHookData(List<Generation> generations, DataInputStream in) throws IOException {
 		List<StorageHookFactory<?, ?, ?>> factories = new ArrayList<>(getConfiguration().getHookRegistry().getStorageHookFactories());
-		Map<Generation, List<StorageHook<?, ?>>> hookMap = new HashMap<>();
+		// the data of each factory is decoded by a separate task; the hooks are merged in the order of the tasks
+		List<Callable<List<StorageHook<?, ?>>>> tasks = new ArrayList<>();
 		int numFactories = in.readInt();
 		for (int i = 0; i < numFactories; i++) {
 			String factoryName = in.readUTF();
@@ -1522,37 +2197,11 @@ public class Storage {
 			byte[] bytes = new byte[dataSize];
 			in.readFully(bytes);
 			if (factory != null) {
-				DataInputStream temp = new DataInputStream(new ByteArrayInputStream(bytes));
-				try {
-					if (factory.isCompatibleWith(version)) {
-						Object loadContext = factory.createLoadContext(version);
-						for (Generation generation : generations) {
-							if (generation.getBundleInfo().getBundleId() == 0) {
-								continue; // ignore system bundle
-							}
-							StorageHook<Object, Object> hook = factory.createStorageHookAndValidateFactoryClass(generation);
-							if (hook != null) {
-								hook.load(loadContext, temp);
-								getHooks(hookMap, generation).add(hook);
-							}
-						}
-					} else {
-						// recover by reinitializing the hook
-						for (Generation generation : generations) {
-							if (generation.getBundleInfo().getBundleId() == 0) {
-								continue; // ignore system bundle
-							}
-							StorageHook<Object, Object> hook = factory.createStorageHookAndValidateFactoryClass(generation);
-							if (hook != null) {
-								hook.initialize(generation.getHeaders());
-								getHooks(hookMap, generation).add(hook);
-							}
-						}
-					}
-				} catch (BundleException e) {
-					throw new IOException(e);
-				} finally {
-					temp.close();
+				if (factory.isCompatibleWith(version)) {
+					tasks.add(createLoadHooksTask(factory, version, bytes, generations));
+				} else {
+					// recover by reinitializing the hook
+					addInitializeHooksTasks(factory, generations, tasks);
 				}
 			}
 		}
@@ -1561,24 +2210,134 @@ public class Storage {
 			@SuppressWarnings("unchecked")
 			StorageHookFactory<Object, Object, StorageHook<Object, Object>> next = (StorageHookFactory<Object, Object, StorageHook<Object, Object>>) iFactories.next();
 			// recover by reinitializing the hook
-			for (Generation generation : generations) {
-				if (generation.getBundleInfo().getBundleId() == 0) {
-					continue; // ignore system bundle
+			addInitializeHooksTasks(next, generations, tasks);
+		}
+		Map<Generation, List<StorageHook<?, ?>>> hookMap = new HashMap<>();
+		for (List<StorageHook<?, ?>> hooks : invokeAll(tasks)) {
+			for (StorageHook<?, ?> hook : hooks) {
+				getHooks(hookMap, hook.getGeneration()).add(hook);
+			}
+		}
+		// now set the hooks to the generations
+		for (Generation generation : generations) {
+			generation.setStorageHooks(Collections.unmodifiableList(getHooks(hookMap, generation)), false);
+		}
+	}
+
+	private Callable<List<StorageHook<?, ?>>> createLoadHooksTask(final StorageHookFactory<Object, Object, StorageHook<Object, Object>> factory, final int version, final byte[] bytes, final List<Generation> generations) {
+		return new Callable<List<StorageHook<?, ?>>>() {
+			@Override
+			public List<StorageHook<?, ?>> call() throws IOException {
+				List<StorageHook<?, ?>> hooks = new ArrayList<>(generations.size());
+				DataInputStream temp = new DataInputStream(new ByteArrayInputStream(bytes));
+				try {
+					Object loadContext = factory.createLoadContext(version);
+					for (Generation generation : generations) {
+						if (generation.getBundleInfo().getBundleId() == 0) {
+							continue; // ignore system bundle
+						}
+						StorageHook<Object, Object> hook = factory.createStorageHookAndValidateFactoryClass(generation);
+						if (hook != null) {
+							hook.load(loadContext, temp);
+							hooks.add(hook);
+						}
+					}
+				} finally {
+					temp.close();
 				}
-				StorageHook<Object, Object> hook = next.createStorageHookAndValidateFactoryClass(generation);
-				if (hook != null) {
+				return hooks;
+			}
+		};
+	}
+
+	private void addInitializeHooksTasks(final StorageHookFactory<Object, Object, StorageHook<Object, Object>> factory, List<Generation> generations, List<Callable<List<StorageHook<?, ?>>>> tasks) {
+		// initializing reads the headers of each generation; use a task for each generation
+		for (final Generation generation : generations) {
+			if (generation.getBundleInfo().getBundleId() == 0) {
+				continue; // ignore system bundle
+			}
+			tasks.add(new Callable<List<StorageHook<?, ?>>>() {
+				@Override
+				public List<StorageHook<?, ?>> call() throws IOException {
+					StorageHook<Object, Object> hook = factory.createStorageHookAndValidateFactoryClass(generation);
+					if (hook == null) {
+						return Collections.emptyList();
+					}
 					try {
 						hook.initialize(generation.getHeaders());
-						getHooks(hookMap, generation).add(hook);
 					} catch (BundleException e) {
 						throw new IOException(e);
 					}
+					return Collections.<StorageHook<?, ?>> singletonList(hook);
 				}
+			});
+		}
+	}
+
+	/**
+	 * Runs the tasks used while loading the storage.  If more than one load thread
+	 * is configured then the tasks run in parallel on a fork/join pool.  The results
+	 * are returned in the order of the tasks regardless of the order the tasks complete.
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+		return invokeAll(tasks.size() > 1 ? getLoadPool() : null, tasks);
+	}
+
+	private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+		List<T> results = new ArrayList<>(tasks.size());
+		if (pool == null) {
+			for (Callable<T> task : tasks) {
+				results.add(call(task));
 			}
+			return results;
 		}
-		// now set the hooks to the generations
-		for (Generation generation : generations) {
-			generation.setStorageHooks(Collections.unmodifiableList(getHooks(hookMap, generation)), false);
+		for (Future<T> future : pool.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted loading the framework data."); //$NON-NLS-1$
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IOException(cause);
+			}
+		}
+		return results;
+	}
+
+	private static <T> T call(Callable<T> task) throws IOException {
+		try {
+			return task.call();
+		} catch (IOException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	private ForkJoinPool getLoadPool() {
+		synchronized (this.loadPoolMonitor) {
+			if (loadPool == null && loadThreadCount > 1) {
+				loadPool = new ForkJoinPool(loadThreadCount);
+			}
+			return loadPool;
+		}
+	}
+
+	private void shutdownLoadPool() {
+		synchronized (this.loadPoolMonitor) {
+			if (loadPool != null) {
+				loadPool.shutdown();
+				loadPool = null;
+			}
 		}
 	}
 
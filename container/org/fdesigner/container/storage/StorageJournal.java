@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.storage;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.fdesigner.supplement.storagemanager.StorageManager;
+
+/**
+ * An append only journal of the changes made to the framework data since
+ * the last complete snapshot of the framework data got written to the
+ * framework.info file.
+ * <p>
+ * The journal is a file managed by the storage manager of the framework data.
+ * A new journal is started by writing its header together with the snapshot it
+ * applies to as one managed output stream set.  The old journal is only discarded
+ * once the snapshot and the new journal got committed.  The header identifies the
+ * snapshot by the timestamp of the module database when the snapshot got written.
+ * The header is followed by entries which are appended in place to the version of
+ * the journal currently in use by the storage manager.  Each entry is prefixed with
+ * its length and a checksum.  An entry which is incomplete or fails the checksum,
+ * for example because the process got terminated while appending it, ends the
+ * journal.  Such an entry is skipped when reading and overwritten by the next append.
+ * <p>
+ * This class is not thread safe.  Callers must ensure synchronization.
+ */
+final class StorageJournal {
+	private static final int MAGIC = 0x4651524A;
+	private static final int JOURNAL_VERSION = 1;
+	// magic, version, snapshot timestamp and snapshot size
+	static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+	// entry length and checksum
+	static final int ENTRY_HEADER_SIZE = 4 + 8;
+
+	private final String managedFile;
+	// the length of the valid content of the journal file; -1 if the journal is not valid
+	private long length = -1;
+	private long snapshotSize;
+
+	StorageJournal(String managedFile) {
+		this.managedFile = managedFile;
+	}
+
+	/**
+	 * Returns the name of the managed file of the journal.
+	 */
+	String getManagedFile() {
+		return managedFile;
+	}
+
+	/**
+	 * Returns true if the journal is valid for the last snapshot and entries
+	 * may be appended.
+	 */
+	boolean isValid() {
+		return length >= 0;
+	}
+
+	/**
+	 * Marks the journal as no longer valid for the last snapshot.  A new snapshot
+	 * must be written together with a new journal before more entries can be appended.
+	 */
+	void invalidate() {
+		length = -1;
+	}
+
+	/**
+	 * Returns the length of the journal in bytes.
+	 */
+	long getLength() {
+		return length < 0 ? 0 : length;
+	}
+
+	/**
+	 * Returns the size in bytes of the snapshot the journal applies to.
+	 */
+	long getSnapshotSize() {
+		return snapshotSize;
+	}
+
+	/**
+	 * Reads the entries of the journal.  If the journal does not exist or does
+	 * not apply to the snapshot with the specified timestamp then no entries are
+	 * returned and the journal is not valid.
+	 * @param storageManager the open storage manager of the framework data
+	 * @param snapshotTimestamp the module database timestamp of the loaded snapshot
+	 * @return the entries of the journal in the order they got appended
+	 * @throws IOException if an error occurs reading the journal
+	 */
+	List<byte[]> read(StorageManager storageManager, long snapshotTimestamp) throws IOException {
+		length = -1;
+		List<byte[]> entries = new ArrayList<>();
+		File file = storageManager.lookup(managedFile, false);
+		if (file == null || !file.isFile()) {
+			return entries;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			long fileLength = raf.length();
+			if (fileLength < HEADER_SIZE || raf.readInt() != MAGIC || raf.readInt() != JOURNAL_VERSION || raf.readLong() != snapshotTimestamp) {
+				return entries;
+			}
+			snapshotSize = raf.readLong();
+			long validLength = HEADER_SIZE;
+			CRC32 checksum = new CRC32();
+			try {
+				while (validLength + ENTRY_HEADER_SIZE <= fileLength) {
+					int entryLength = raf.readInt();
+					long entryChecksum = raf.readLong();
+					if (entryLength < 0 || validLength + ENTRY_HEADER_SIZE + entryLength > fileLength) {
+						break;
+					}
+					byte[] entry = new byte[entryLength];
+					raf.readFully(entry);
+					checksum.reset();
+					checksum.update(entry, 0, entryLength);
+					if (checksum.getValue() != entryChecksum) {
+						break;
+					}
+					entries.add(entry);
+					validLength += ENTRY_HEADER_SIZE + entryLength;
+				}
+			} catch (EOFException e) {
+				// incomplete entry; the journal ends with the last complete entry
+			}
+			length = validLength;
+			return entries;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes the header of a new journal for a snapshot.  The output stream must be
+	 * part of the managed output stream set which writes the snapshot.  The journal
+	 * may only be {@link #started(long) started} once the set got committed.
+	 * @param out the managed output stream of the journal
+	 * @param snapshotTimestamp the module database timestamp of the snapshot
+	 * @param size the size in bytes of the snapshot
+	 * @throws IOException if an error occurs writing the header
+	 */
+	void writeHeader(OutputStream out, long snapshotTimestamp, long size) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(JOURNAL_VERSION);
+		data.writeLong(snapshotTimestamp);
+		data.writeLong(size);
+		data.flush();
+	}
+
+	/**
+	 * Starts appending entries to the journal whose header got committed together
+	 * with the snapshot.
+	 * @param size the size in bytes of the snapshot
+	 */
+	void started(long size) {
+		snapshotSize = size;
+		length = HEADER_SIZE;
+	}
+
+	/**
+	 * Appends an entry to the journal.  The entry is durably written when this method returns.
+	 * @param storageManager the open storage manager of the framework data
+	 * @param entry the entry
+	 * @throws IOException if an error occurs writing the journal
+	 */
+	void append(StorageManager storageManager, byte[] entry) throws IOException {
+		if (length < 0) {
+			throw new IOException("The journal is not valid: " + managedFile); //$NON-NLS-1$
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(entry, 0, entry.length);
+		long start = length;
+		// invalidate until the entry is written; a failed append requires a new snapshot
+		length = -1;
+		File file = storageManager.lookup(managedFile, false);
+		if (file == null) {
+			throw new IOException("The journal is not managed: " + managedFile); //$NON-NLS-1$
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+		try {
+			raf.seek(start);
+			raf.writeInt(entry.length);
+			raf.writeLong(checksum.getValue());
+			raf.write(entry);
+			// drop any incomplete entry left over from a previous append
+			raf.setLength(raf.getFilePointer());
+			raf.getFD().sync();
+		} finally {
+			raf.close();
+		}
+		length = start + ENTRY_HEADER_SIZE + entry.length;
+	}
+
+	/**
+	 * Discards the journal.  Must only be called once a snapshot which contains
+	 * all the journaled changes got committed.
+	 * @param storageManager the open storage manager of the framework data
+	 * @throws IOException if an error occurs removing the journal from the storage manager
+	 */
+	void discard(StorageManager storageManager) throws IOException {
+		length = -1;
+		if (storageManager.lookup(managedFile, false) != null) {
+			storageManager.remove(managedFile);
+		}
+	}
+}
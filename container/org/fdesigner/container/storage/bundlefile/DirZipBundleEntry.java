@@ -30,13 +30,13 @@ public class DirZipBundleEntry extends BundleEntry {
 	/**
 	 * ZipBundleFile for this entry.
 	 */
-	private ZipBundleFile bundleFile;
+	private CloseableBundleFile<?> bundleFile;
 	/**
 	 * The name for this entry
 	 */
 	String name;
 
-	public DirZipBundleEntry(ZipBundleFile bundleFile, String name) {
+	public DirZipBundleEntry(CloseableBundleFile<?> bundleFile, String name) {
 		this.name = (name.length() > 0 && name.charAt(0) == '/') ? name.substring(1) : name;
 		this.bundleFile = bundleFile;
 	}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.storage.bundlefile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * A BundleEntry represented by an entry of a MappedZipBundleFile.
+ */
+public class MappedZipBundleEntry extends BundleEntry {
+	/**
+	 * The index containing this entry.
+	 */
+	final MappedZipBundleFile.Index index;
+
+	/**
+	 * The position of this entry in the index.
+	 */
+	final int entry;
+
+	/**
+	 * The BundleFile for this entry.
+	 */
+	protected final MappedZipBundleFile bundleFile;
+
+	MappedZipBundleEntry(MappedZipBundleFile.Index index, int entry, MappedZipBundleFile bundleFile) {
+		this.index = index;
+		this.entry = entry;
+		this.bundleFile = bundleFile;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return bundleFile.getInputStream(this);
+	}
+
+	/**
+	 * Reads the content of the entry directly from the mapped file.
+	 */
+	@Override
+	public byte[] getBytes() throws IOException {
+		return index.getBytes(entry);
+	}
+
+	@Override
+	public long getSize() {
+		return index.sizes[entry];
+	}
+
+	@Override
+	public String getName() {
+		return index.names[entry];
+	}
+
+	@Override
+	public long getTime() {
+		return index.getTime(entry);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public URL getLocalURL() {
+		try {
+			return new URL("jar:" + bundleFile.basefile.toURL() + "!/" + getName()); //$NON-NLS-1$//$NON-NLS-2$
+		} catch (MalformedURLException e) {
+			//This can not happen.
+			return null;
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public URL getFileURL() {
+		try {
+			File file = bundleFile.getFile(getName(), false);
+			if (file != null)
+				return file.toURL();
+		} catch (MalformedURLException e) {
+			//This can not happen.
+		}
+		return null;
+	}
+}
@@ -0,0 +1,483 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.container.storage.bundlefile;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.fdesigner.container.internal.debug.Debug;
+import org.fdesigner.container.storage.BundleInfo;
+import org.fdesigner.supplement.internal.messages.Msg;
+import org.fdesigner.supplement.util.NLS;
+
+/**
+ * A BundleFile that memory maps a zip file and reads the central
+ * directory of the zip file into a compact index of entry names.
+ * <p>
+ * The file is mapped once when the bundle file is opened.  No file handle
+ * is held open after the mapping is established, so this bundle file is not
+ * managed by the MRUBundleFileList.  Stored entries are read directly from
+ * the mapped file without copying; deflated entries are inflated from the
+ * mapped file.
+ * <p>
+ * Only zip files smaller than 2GB which do not require the zip64 format
+ * are supported.  A corrupt or truncated zip file results in a {@link ZipException}.
+ * <p>
+ * The mapping cannot be released explicitly without invalidating the entry data
+ * handed out to readers, it is released once it is no longer referenced.  Until
+ * then the file stays locked on some platforms, and the file must not be replaced
+ * in place because accessing a truncated mapping crashes the VM.  For this reason
+ * only zip files copied into the framework storage are mapped; the storage never
+ * modifies a bundle file in place.
+ */
+public class MappedZipBundleFile extends CloseableBundleFile<MappedZipBundleEntry> {
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_HEADER_SIG = 0x06054b50;
+	private static final int END_HEADER_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	static final int METHOD_STORED = 0;
+	static final int METHOD_DEFLATED = 8;
+
+	/**
+	 * The index of the mapped zip file
+	 */
+	volatile Index index;
+
+	public MappedZipBundleFile(File basefile, BundleInfo.Generation generation, Debug debug) throws IOException {
+		// the mapped file does not hold a file handle open; no need to use the MRUBundleFileList
+		super(basefile, generation, null, debug);
+		if (!BundleFile.secureAction.exists(basefile))
+			throw new IOException(NLS.bind(Msg.ADAPTER_FILEEXIST_EXCEPTION, basefile));
+	}
+
+	@Override
+	protected void doOpen() throws IOException {
+		ByteBuffer mapped;
+		FileInputStream in = BundleFile.secureAction.getFileInputStream(basefile);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new ZipException("Zip file is too large to be mapped: " + basefile); //$NON-NLS-1$
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} finally {
+			// the mapping remains valid after the channel is closed
+			in.close();
+		}
+		index = new Index(mapped.order(ByteOrder.LITTLE_ENDIAN), basefile);
+		if (debug.DEBUG_BUNDLE_FILE)
+			Debug.println("Mapped zip file " + basefile + " with " + index.names.length + " entries"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	* Returns the index of the entry for the bundle file. Must be called while holding the open lock.
+	* @param current the current index
+	* @param path the path to an entry
+	* @return the index of the entry or -1 if the entry does not exist
+	*/
+	private static int getEntryIndex(Index current, String path) {
+		if (path.length() > 0 && path.charAt(0) == '/')
+			path = path.substring(1);
+		int entry = current.find(path);
+		if (entry < 0 && path.length() > 0 && path.charAt(path.length() - 1) != '/') {
+			// like ZipFile.getEntry also look for a directory entry with the same name
+			entry = current.find(path + '/');
+		} else if (entry >= 0 && current.sizes[entry] == 0 && !current.isDirectory(entry)) {
+			// work around the directory bug see bug 83542
+			int dirEntry = current.find(path + '/');
+			if (dirEntry >= 0)
+				entry = dirEntry;
+		}
+		return entry;
+	}
+
+	@Override
+	protected BundleEntry findEntry(String path) {
+		Index current = index;
+		int entry = getEntryIndex(current, path);
+		if (entry < 0) {
+			if (path.length() == 0 || path.charAt(path.length() - 1) == '/') {
+				// this is a directory request lets see if any entries exist in this directory
+				if (current.containsDir(path))
+					return new DirZipBundleEntry(this, path);
+			}
+			return null;
+		}
+		return new MappedZipBundleEntry(current, entry, this);
+	}
+
+	@Override
+	public boolean containsDir(String dir) {
+		Index current = index;
+		if (current == null || dir == null) {
+			// let the super class open the bundle file
+			return super.containsDir(dir);
+		}
+		return current.containsDir(dir);
+	}
+
+	@Override
+	protected void doClose() throws IOException {
+		// nothing to close; the mapping is released once it is no longer referenced.
+		// Unmapping here would crash readers still holding a slice of the mapping.
+	}
+
+	@Override
+	protected void postClose() {
+		index = null;
+	}
+
+	@Override
+	protected InputStream doGetInputStream(MappedZipBundleEntry entry) throws IOException {
+		return entry.index.getInputStream(entry.entry);
+	}
+
+	@Override
+	protected Iterable<String> getPaths() {
+		return Arrays.asList(index.names);
+	}
+
+	/**
+	 * The index of the entries of a mapped zip file.  Entry names are kept in an
+	 * open addressed hash table which maps a name to the position of the entry
+	 * in the parallel arrays holding the entry data.
+	 */
+	static final class Index {
+		final ByteBuffer buffer;
+		final String[] names;
+		final int[] methods;
+		final int[] dosTimes;
+		final int[] compressedSizes;
+		final int[] sizes;
+		final int[] offsets;
+		/* the position of the entry data; lazily computed from the local header */
+		private final int[] dataOffsets;
+		/* open addressed table of entry positions + 1; zero marks an empty slot */
+		private final int[] table;
+		/* all directories which contain at least one entry */
+		private final Set<String> dirs = new HashSet<>();
+
+		Index(ByteBuffer buffer, File basefile) throws IOException {
+			this.buffer = buffer;
+			int end = findEndHeader(buffer);
+			if (end < 0)
+				throw new ZipException("Zip end header not found: " + basefile); //$NON-NLS-1$
+			int total = buffer.getShort(end + 10) & 0xFFFF;
+			long centralSize = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+			long centralOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+			if (total == 0xFFFF || centralSize == 0xFFFFFFFFL || centralOffset == 0xFFFFFFFFL || centralOffset + centralSize > end)
+				throw new ZipException("Unsupported zip64 or invalid central directory: " + basefile); //$NON-NLS-1$
+
+			names = new String[total];
+			methods = new int[total];
+			dosTimes = new int[total];
+			compressedSizes = new int[total];
+			sizes = new int[total];
+			offsets = new int[total];
+			dataOffsets = new int[total];
+			Arrays.fill(dataOffsets, -1);
+			int tableSize = Integer.highestOneBit(Math.max(total, 1) * 2) << 1;
+			table = new int[tableSize];
+
+			int pos = (int) centralOffset;
+			int centralEnd = (int) (centralOffset + centralSize);
+			for (int i = 0; i < total; i++) {
+				if (centralEnd - pos < CENTRAL_HEADER_SIZE || buffer.getInt(pos) != CENTRAL_HEADER_SIG)
+					throw new ZipException("Invalid central directory header: " + basefile); //$NON-NLS-1$
+				methods[i] = buffer.getShort(pos + 10) & 0xFFFF;
+				dosTimes[i] = buffer.getInt(pos + 12);
+				compressedSizes[i] = checkSize(buffer.getInt(pos + 20), basefile);
+				sizes[i] = checkSize(buffer.getInt(pos + 24), basefile);
+				int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+				int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+				int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+				offsets[i] = checkSize(buffer.getInt(pos + 42), basefile);
+				if ((long) CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength > centralEnd - pos)
+					throw new ZipException("Invalid central directory header: " + basefile); //$NON-NLS-1$
+				byte[] nameBytes = new byte[nameLength];
+				ByteBuffer nameBuffer = buffer.duplicate();
+				nameBuffer.position(pos + CENTRAL_HEADER_SIZE);
+				nameBuffer.get(nameBytes);
+				names[i] = new String(nameBytes, StandardCharsets.UTF_8);
+				put(names[i], i);
+				addDirs(names[i]);
+				pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+			}
+		}
+
+		private static int checkSize(int size, File basefile) throws ZipException {
+			if (size < 0)
+				throw new ZipException("Unsupported zip64 entry: " + basefile); //$NON-NLS-1$
+			return size;
+		}
+
+		private static int findEndHeader(ByteBuffer buffer) {
+			int last = buffer.limit() - END_HEADER_SIZE;
+			int first = Math.max(0, last - MAX_COMMENT_SIZE);
+			for (int pos = last; pos >= first; pos--) {
+				if (buffer.getInt(pos) == END_HEADER_SIG)
+					return pos;
+			}
+			return -1;
+		}
+
+		private void put(String name, int entry) {
+			int mask = table.length - 1;
+			int slot = hash(name) & mask;
+			while (table[slot] != 0) {
+				if (names[table[slot] - 1].equals(name)) {
+					// duplicate entry; the first one wins like ZipFile
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = entry + 1;
+		}
+
+		private void addDirs(String name) {
+			int slash = name.indexOf('/');
+			while (slash >= 0) {
+				dirs.add(name.substring(0, slash + 1));
+				slash = name.indexOf('/', slash + 1);
+			}
+		}
+
+		private static int hash(String name) {
+			int h = name.hashCode();
+			return h ^ (h >>> 16);
+		}
+
+		int find(String name) {
+			int mask = table.length - 1;
+			int slot = hash(name) & mask;
+			int entry;
+			while ((entry = table[slot]) != 0) {
+				if (names[entry - 1].equals(name))
+					return entry - 1;
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		boolean isDirectory(int entry) {
+			return names[entry].endsWith("/"); //$NON-NLS-1$
+		}
+
+		boolean containsDir(String dir) {
+			if (dir.length() == 0)
+				return true;
+			if (dir.charAt(0) == '/') {
+				if (dir.length() == 1)
+					return true;
+				dir = dir.substring(1);
+			}
+			if (dir.length() > 0 && dir.charAt(dir.length() - 1) != '/')
+				dir = dir + '/';
+			return dirs.contains(dir);
+		}
+
+		long getTime(int entry) {
+			int dosTime = dosTimes[entry];
+			@SuppressWarnings("deprecation")
+			long time = new Date(((dosTime >> 25) & 0x7f) + 80, ((dosTime >> 21) & 0x0f) - 1, (dosTime >> 16) & 0x1f, (dosTime >> 11) & 0x1f, (dosTime >> 5) & 0x3f, (dosTime << 1) & 0x3e).getTime();
+			return time;
+		}
+
+		/**
+		 * Returns a read only slice of the mapped file containing the raw data of the entry.
+		 */
+		ByteBuffer getData(int entry) throws IOException {
+			int dataOffset = dataOffsets[entry];
+			if (dataOffset < 0) {
+				int offset = offsets[entry];
+				if (buffer.limit() - offset < LOCAL_HEADER_SIZE || buffer.getInt(offset) != LOCAL_HEADER_SIG)
+					throw new ZipException("Invalid local header: " + names[entry]); //$NON-NLS-1$
+				int nameLength = buffer.getShort(offset + 26) & 0xFFFF;
+				int extraLength = buffer.getShort(offset + 28) & 0xFFFF;
+				if ((long) offset + LOCAL_HEADER_SIZE + nameLength + extraLength > buffer.limit())
+					throw new ZipException("Invalid local header: " + names[entry]); //$NON-NLS-1$
+				dataOffset = offset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+				dataOffsets[entry] = dataOffset;
+			}
+			if (compressedSizes[entry] > buffer.limit() - dataOffset)
+				throw new ZipException("Truncated zip entry: " + names[entry]); //$NON-NLS-1$
+			ByteBuffer data = buffer.duplicate();
+			data.position(dataOffset);
+			data.limit(dataOffset + compressedSizes[entry]);
+			return data.slice();
+		}
+
+		InputStream getInputStream(int entry) throws IOException {
+			ByteBuffer data = getData(entry);
+			switch (methods[entry]) {
+				case METHOD_STORED :
+					return new ByteBufferInputStream(data);
+				case METHOD_DEFLATED :
+					return new MappedInflaterInputStream(new ByteBufferInputStream(data), sizes[entry]);
+				default :
+					throw new ZipException("Unsupported compression method " + methods[entry] + ": " + names[entry]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		byte[] getBytes(int entry) throws IOException {
+			ByteBuffer data = getData(entry);
+			byte[] result = new byte[sizes[entry]];
+			switch (methods[entry]) {
+				case METHOD_STORED :
+					data.get(result);
+					return result;
+				case METHOD_DEFLATED :
+					byte[] compressed = new byte[data.remaining()];
+					data.get(compressed);
+					Inflater inflater = new Inflater(true);
+					try {
+						inflater.setInput(compressed);
+						boolean dummy = false;
+						int read = 0;
+						while (read < result.length) {
+							int n = inflater.inflate(result, read, result.length - read);
+							if (n == 0) {
+								if (dummy || !inflater.needsInput())
+									throw new EOFException("Unexpected end of zip entry: " + names[entry]); //$NON-NLS-1$
+								// the nowrap option may require an extra dummy byte of input
+								inflater.setInput(new byte[1]);
+								dummy = true;
+							}
+							read += n;
+						}
+					} catch (DataFormatException e) {
+						throw new ZipException(e.getMessage());
+					} finally {
+						inflater.end();
+					}
+					return result;
+				default :
+					throw new ZipException("Unsupported compression method " + methods[entry] + ": " + names[entry]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	/**
+	 * An input stream which reads from a slice of the mapped file.
+	 */
+	static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer data;
+
+		ByteBufferInputStream(ByteBuffer data) {
+			this.data = data;
+		}
+
+		@Override
+		public int read() {
+			return data.hasRemaining() ? data.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+			int remaining = data.remaining();
+			if (remaining == 0)
+				return -1;
+			len = Math.min(len, remaining);
+			data.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, data.remaining()));
+			data.position(data.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return data.remaining();
+		}
+	}
+
+	/**
+	 * An inflater input stream which releases its inflater on close and
+	 * supplies the extra dummy byte required when using the nowrap option.
+	 */
+	static final class MappedInflaterInputStream extends InflaterInputStream {
+		private final int size;
+		private int read = 0;
+		private boolean eof = false;
+		private boolean closed = false;
+
+		MappedInflaterInputStream(InputStream in, int size) {
+			super(in, new Inflater(true), Math.max(Math.min(size, BundleEntry.BUF_SIZE), 64));
+			this.size = size;
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof)
+				throw new EOFException("Unexpected end of zip entry"); //$NON-NLS-1$
+			len = in.read(buf, 0, buf.length);
+			if (len == -1) {
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+			inf.setInput(buf, 0, len);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int length) throws IOException {
+			int n = super.read(b, off, length);
+			if (n > 0)
+				read += n;
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (closed)
+				return 0;
+			return Math.max(0, size - read);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				inf.end();
+				super.close();
+			}
+		}
+	}
+}
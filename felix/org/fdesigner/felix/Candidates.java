@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -84,6 +85,10 @@ class Candidates
 
     private final OpenHashMapSet<Requirement, Capability> m_delta;
     private final AtomicBoolean m_candidateSelectorsUnmodifiable;
+    // The candidate selectors which are not shared with a copy of this object;
+    // null if this object never got copied and is not a copy.  Copies share
+    // the candidate selectors and only copy a selector before modifying it.
+    private Set<CandidateSelector> m_ownedSelectors;
 
     /**
      * Private copy constructor used by the copy() method.
@@ -106,6 +111,7 @@ class Candidates
         m_populateResultCache = populateResultCache;
         m_subtitutableMap = substitutableMap;
         m_delta = delta;
+        m_ownedSelectors = newSelectorSet();
     }
 
     /**
@@ -370,7 +376,7 @@ class Candidates
             {
                 for (Requirement dependent : dependents)
                 {
-                    CandidateSelector candidates = m_candidateMap.get(dependent);
+                    CandidateSelector candidates = getModifiableCandidates(dependent);
                     if (candidates != null)
                     {
                         candidates:
@@ -734,7 +740,7 @@ class Candidates
 
     public void removeFirstCandidate(Requirement req)
     {
-        CandidateSelector candidates = m_candidateMap.get(req);
+        CandidateSelector candidates = getModifiableCandidates(req);
         // Remove the conflicting candidate.
         Capability cap = candidates.removeCurrentCandidate();
         if (candidates.isEmpty())
@@ -744,6 +750,7 @@ class Candidates
         // Update the delta with the removed capability
         CopyOnWriteSet<Capability> capPath = m_delta.getOrCompute(req);
         capPath.add(cap);
+        m_session.getLogger().logBacktrack(req);
     }
 
     public CandidateSelector clearMultipleCardinalityCandidates(Requirement req, Collection<Capability> caps)
@@ -754,7 +761,7 @@ class Candidates
         List<Capability> remaining = new ArrayList<Capability>(candidates.getRemainingCandidates());
         remaining.removeAll(caps);
         candidates = new CandidateSelector(remaining, m_candidateSelectorsUnmodifiable);
-        m_candidateMap.put(req, candidates);
+        putCandidates(req, candidates);
         return candidates;
     }
 
@@ -1145,7 +1152,7 @@ class Candidates
     }
 
     private CandidateSelector removeCandidate(Requirement req, Capability cap) {
-        CandidateSelector candidates = m_candidateMap.get(req);
+        CandidateSelector candidates = getModifiableCandidates(req);
         candidates.remove(cap);
         return candidates;
     }
@@ -1158,15 +1165,49 @@ class Candidates
      */
     public Candidates copy()
     {
-        return new Candidates(
+        Candidates copy = new Candidates(
                 m_session,
                 m_candidateSelectorsUnmodifiable,
                 m_dependentMap,
-                m_candidateMap.deepClone(),
+                (OpenHashMapList) m_candidateMap.clone(),
                 m_allWrappedHosts,
                 m_populateResultCache,
                 m_subtitutableMap,
                 m_delta.deepClone());
+        // the candidate selectors are now shared with the copy
+        m_ownedSelectors = newSelectorSet();
+        return copy;
+    }
+
+    private static Set<CandidateSelector> newSelectorSet()
+    {
+        return Collections.newSetFromMap(new IdentityHashMap<CandidateSelector, Boolean>());
+    }
+
+    /**
+     * Returns the candidate selector for the requirement which may be modified
+     * by this object.  A selector which is shared with a copy of this object
+     * is copied first.
+     */
+    private CandidateSelector getModifiableCandidates(Requirement req)
+    {
+        CandidateSelector candidates = m_candidateMap.get(req);
+        if (candidates != null && m_ownedSelectors != null && !m_ownedSelectors.contains(candidates))
+        {
+            candidates = candidates.copy();
+            m_candidateMap.put(req, candidates);
+            m_ownedSelectors.add(candidates);
+        }
+        return candidates;
+    }
+
+    private void putCandidates(Requirement req, CandidateSelector candidates)
+    {
+        m_candidateMap.put(req, candidates);
+        if (m_ownedSelectors != null)
+        {
+            m_ownedSelectors.add(candidates);
+        }
     }
 
     public void dump(ResolveContext rc)
@@ -18,6 +18,7 @@
  */
 package org.fdesigner.felix;
 
+import org.fdesigner.framework.resource.Requirement;
 import org.fdesigner.framework.resource.Resource;
 
 /**
@@ -46,6 +47,11 @@ public class Logger
     public static final int LOG_INFO = 3;
     public static final int LOG_DEBUG = 4;
 
+    // The phases of a resolve operation reported to logResolvePhase
+    public static final String PHASE_CANDIDATES = "candidates";
+    public static final String PHASE_CONSISTENCY = "consistency";
+    public static final String PHASE_WIRES = "wires";
+
     private int m_logLevel = 1;
 
     public Logger(int i)
@@ -131,4 +137,39 @@ public class Logger
     {
         // do nothing by default
     }
+
+    /**
+     * Called when the resolver checks the consistency of a candidate permutation.
+     */
+    public void logCheckedPermutation()
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called when the resolver checks the uses constraints of the package space of a resource.
+     */
+    public void logUsesConstraintCheck(Resource resource)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called when the resolver backtracks by removing the current candidate
+     * of a requirement to create a new candidate permutation.
+     */
+    public void logBacktrack(Requirement requirement)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called when the resolver finished a phase of a resolve operation.
+     * @param phase one of the PHASE_ constants
+     * @param nanos the time spent in the phase in nanoseconds
+     */
+    public void logResolvePhase(String phase, long nanos)
+    {
+        // do nothing by default
+    }
 }
@@ -58,6 +58,7 @@ public class ResolverImpl implements Resolver
     {
         // Holds the resolve context for this session
         private final ResolveContext m_resolveContext;
+        private final Logger m_logger;
         private final Collection<Resource> m_mandatoryResources;
         private final Collection<Resource> m_optionalResources;
         private final Resource m_dynamicHost;
@@ -90,12 +91,18 @@ public class ResolverImpl implements Resolver
         private final Set<Requirement> m_mutated = new HashSet<Requirement>();
         private final Set<Requirement> m_sub_mutated = new HashSet<Requirement>();
         private final ConcurrentMap<String, List<String>> m_usesCache = new ConcurrentHashMap<String, List<String>>();
+        // The wire candidates and package spaces of the last checked permutation.
+        // The package space of a resource is reused for the next permutation if
+        // the wire candidates of the resource and of all resources it can reach
+        // through its wire candidates did not change.
+        private Map<Resource, List<WireCandidate>> m_lastWireCandidates = Collections.emptyMap();
+        private Map<Resource, Packages> m_lastPackages = Collections.emptyMap();
         private ResolutionError m_currentError;
         volatile private CancellationException m_isCancelled = null;
 
-        static ResolveSession createSession(ResolveContext resolveContext, Executor executor, Resource dynamicHost, Requirement dynamicReq, List<Capability> dynamicCandidates)
+        static ResolveSession createSession(ResolveContext resolveContext, Logger logger, Executor executor, Resource dynamicHost, Requirement dynamicReq, List<Capability> dynamicCandidates)
         {
-            ResolveSession session = new ResolveSession(resolveContext, executor, dynamicHost, dynamicReq, dynamicCandidates);
+            ResolveSession session = new ResolveSession(resolveContext, logger, executor, dynamicHost, dynamicReq, dynamicCandidates);
             // call onCancel first
             session.getContext().onCancel(session);
             // now gather the mandatory and optional resources
@@ -103,9 +110,10 @@ public class ResolverImpl implements Resolver
             return session;
         }
 
-        private ResolveSession(ResolveContext resolveContext, Executor executor, Resource dynamicHost, Requirement dynamicReq, List<Capability> dynamicCandidates)
+        private ResolveSession(ResolveContext resolveContext, Logger logger, Executor executor, Resource dynamicHost, Requirement dynamicReq, List<Capability> dynamicCandidates)
         {
             m_resolveContext = resolveContext;
+            m_logger = logger;
             m_executor = executor;
             m_dynamicHost = dynamicHost;
             m_dynamicReq = dynamicReq;
@@ -136,6 +144,11 @@ public class ResolverImpl implements Resolver
             return m_resolveContext;
         }
 
+        Logger getLogger()
+        {
+            return m_logger;
+        }
+
         ConcurrentMap<String, List<String>> getUsesCache() {
             return m_usesCache;
         }
@@ -269,6 +282,19 @@ public class ResolverImpl implements Resolver
             return m_executor;
         }
 
+        Map<Resource, List<WireCandidate>> getLastWireCandidates() {
+            return m_lastWireCandidates;
+        }
+
+        Map<Resource, Packages> getLastPackages() {
+            return m_lastPackages;
+        }
+
+        void setLastPackageSpaces(Map<Resource, List<WireCandidate>> wireCandidates, Map<Resource, Packages> packages) {
+            m_lastWireCandidates = wireCandidates;
+            m_lastPackages = packages;
+        }
+
         ResolutionError getCurrentError() {
             return m_currentError;
         }
@@ -417,7 +443,7 @@ public class ResolverImpl implements Resolver
 
     public Map<Resource, List<Wire>> resolve(ResolveContext rc, Executor executor) throws ResolutionException
     {
-        ResolveSession session = ResolveSession.createSession(rc, executor, null, null, null);
+        ResolveSession session = ResolveSession.createSession(rc, m_logger, executor, null, null, null);
         return doResolve(session);
     }
 
@@ -429,13 +455,17 @@ public class ResolverImpl implements Resolver
             retry = false;
             try
             {
+                long start = System.nanoTime();
                 getInitialCandidates(session);
+                m_logger.logResolvePhase(Logger.PHASE_CANDIDATES, System.nanoTime() - start);
                 if (session.getCurrentError() != null) {
                     throw session.getCurrentError().toException();
                 }
 
                 Map<Resource, ResolutionError> faultyResources = new HashMap<Resource, ResolutionError>();
+                start = System.nanoTime();
                 Candidates allCandidates = findValidCandidates(session, faultyResources);
+                m_logger.logResolvePhase(Logger.PHASE_CONSISTENCY, System.nanoTime() - start);
                 session.checkForCancel();
 
                 // If there is a resolve exception, then determine if an
@@ -467,6 +497,7 @@ public class ResolverImpl implements Resolver
                 // resolve, so populate the wire map.
                 else
                 {
+                    start = System.nanoTime();
                     if (session.getMultipleCardCandidates() != null)
                     {
                         // Candidates for multiple cardinality requirements were
@@ -492,6 +523,7 @@ public class ResolverImpl implements Resolver
                             }
                         }
                     }
+                    m_logger.logResolvePhase(Logger.PHASE_WIRES, System.nanoTime() - start);
                 }
             }
             finally
@@ -568,6 +600,7 @@ public class ResolverImpl implements Resolver
             }
 
 //allCandidates.dump();
+            m_logger.logCheckedPermutation();
 
             Map<Resource, ResolutionError> currentFaultyResources = new HashMap<Resource, ResolutionError>();
 
@@ -668,7 +701,7 @@ public class ResolverImpl implements Resolver
                         "Matching candidate does not provide a package name.");
                 }
             }
-            ResolveSession session = ResolveSession.createSession(context,  new DumbExecutor(), host, dynamicRequirement, matches);
+            ResolveSession session = ResolveSession.createSession(context, m_logger, new DumbExecutor(), host, dynamicRequirement, matches);
             return doResolve(session);
         }
 
@@ -1162,9 +1195,21 @@ public class ResolverImpl implements Resolver
             executor.await();
         }
 
-        // Parallel get all exported packages
+        // Only compute the package spaces which may differ from the last permutation,
+        // the package spaces of all other resources are reused
+        final Set<Resource> staleResources = getStaleResources(session, allWireCandidates);
         final OpenHashMap<Resource, Packages> allPackages = new OpenHashMap<Resource, Packages>(allCandidates.getNbResources());
-        for (final Resource resource : allWireCandidates.keySet())
+        Map<Resource, Packages> lastPackages = session.getLastPackages();
+        for (Resource resource : allWireCandidates.keySet())
+        {
+            if (!staleResources.contains(resource))
+            {
+                allPackages.put(resource, lastPackages.get(resource));
+            }
+        }
+
+        // Parallel get all exported packages
+        for (final Resource resource : staleResources)
         {
             final Packages packages = new Packages(resource);
             allPackages.put(resource, packages);
@@ -1180,7 +1225,7 @@ public class ResolverImpl implements Resolver
         executor.await();
 
         // Parallel compute package lists
-        for (final Resource resource : allWireCandidates.keySet())
+        for (final Resource resource : staleResources)
         {
             executor.execute(new Runnable()
             {
@@ -1196,10 +1241,9 @@ public class ResolverImpl implements Resolver
         // First, sequentially compute packages for resources
         // that have required packages, so that all recursive
         // calls can be done without threading problems
-        for (Map.Entry<Resource, Packages> entry : allPackages.fast())
+        for (Resource resource : staleResources)
         {
-            final Resource resource = entry.getKey();
-            final Packages packages = entry.getValue();
+            Packages packages = allPackages.get(resource);
             if (!packages.m_requiredPkgs.isEmpty())
             {
                 getPackageSourcesInternal(session, allPackages, resource, packages);
@@ -1207,10 +1251,9 @@ public class ResolverImpl implements Resolver
         }
         // Next, for all remaining resources, we can compute them
         // in parallel, as they won't refer to other resource packages
-        for (Map.Entry<Resource, Packages> entry : allPackages.fast())
+        for (final Resource resource : staleResources)
         {
-            final Resource resource = entry.getKey();
-            final Packages packages = entry.getValue();
+            final Packages packages = allPackages.get(resource);
             if (packages.m_sources.isEmpty())
             {
                 executor.execute(new Runnable()
@@ -1225,7 +1268,7 @@ public class ResolverImpl implements Resolver
         executor.await();
 
         // Parallel compute uses
-        for (final Resource resource : allWireCandidates.keySet())
+        for (final Resource resource : staleResources)
         {
             executor.execute(new Runnable()
             {
@@ -1237,9 +1280,82 @@ public class ResolverImpl implements Resolver
         }
         executor.await();
 
+        session.setLastPackageSpaces(allWireCandidates, allPackages);
         return allPackages;
     }
 
+    /**
+     * Returns the resources whose package space must be computed for the current
+     * permutation.  These are the resources without a package space from the last
+     * permutation, the resources whose wire candidates changed and all resources
+     * which reach one of those through their wire candidates, since the package
+     * space of a resource only depends on the resources it can reach.
+     */
+    private static Set<Resource> getStaleResources(
+            ResolveSession session,
+            Map<Resource, List<WireCandidate>> allWireCandidates)
+    {
+        Map<Resource, List<WireCandidate>> lastWireCandidates = session.getLastWireCandidates();
+        Map<Resource, Packages> lastPackages = session.getLastPackages();
+        Map<Resource, List<Resource>> dependents = new HashMap<Resource, List<Resource>>(allWireCandidates.size());
+        Set<Resource> stale = new HashSet<Resource>();
+        LinkedList<Resource> queue = new LinkedList<Resource>();
+        for (Map.Entry<Resource, List<WireCandidate>> entry : allWireCandidates.entrySet())
+        {
+            Resource resource = entry.getKey();
+            for (WireCandidate w : entry.getValue())
+            {
+                Resource provider = w.capability.getResource();
+                List<Resource> providerDependents = dependents.get(provider);
+                if (providerDependents == null)
+                {
+                    providerDependents = new ArrayList<Resource>();
+                    dependents.put(provider, providerDependents);
+                }
+                providerDependents.add(resource);
+            }
+            if (!lastPackages.containsKey(resource)
+                || !isSameWireCandidates(entry.getValue(), lastWireCandidates.get(resource)))
+            {
+                stale.add(resource);
+                queue.add(resource);
+            }
+        }
+        while (!queue.isEmpty())
+        {
+            List<Resource> resourceDependents = dependents.get(queue.removeFirst());
+            if (resourceDependents != null)
+            {
+                for (Resource dependent : resourceDependents)
+                {
+                    if (stale.add(dependent))
+                    {
+                        queue.add(dependent);
+                    }
+                }
+            }
+        }
+        return stale;
+    }
+
+    private static boolean isSameWireCandidates(List<WireCandidate> current, List<WireCandidate> last)
+    {
+        if (last == null || current.size() != last.size())
+        {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++)
+        {
+            WireCandidate c = current.get(i);
+            WireCandidate l = last.get(i);
+            if (!c.requirement.equals(l.requirement) || !c.capability.equals(l.capability))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static List<String> parseUses(String s) {
         int nb = 1;
         int l = s.length();
@@ -1307,6 +1423,7 @@ public class ResolverImpl implements Resolver
         {
             return cache instanceof ResolutionError ? (ResolutionError) cache : null;
         }
+        m_logger.logUsesConstraintCheck(resource);
 
         Packages pkgs = resourcePkgMap.get(resource);
 
@@ -41,6 +41,7 @@ import org.fdesigner.container.Module;
 import org.fdesigner.container.ModuleRevision;
 import org.fdesigner.container.framework.util.FilePath;
 import org.fdesigner.container.internal.debug.Debug;
+import org.fdesigner.container.internal.framework.BundleContextImpl;
 import org.fdesigner.container.internal.framework.EquinoxConfiguration;
 import org.fdesigner.container.internal.framework.EquinoxContainer;
 import org.fdesigner.container.internal.location.EquinoxLocations;
@@ -999,20 +1000,24 @@ public class EclipseStarter {
 	}
 
 	private static void installBundles(InitialBundle[] initialBundles, Bundle[] curInitBundles, List<Bundle> startBundles, List<Bundle> lazyActivationBundles, List<Bundle> toRefresh) {
+		Map<String, Bundle> batchInstalled = installBundleBatch(initialBundles, curInitBundles);
 		for (InitialBundle initialBundle : initialBundles) {
 			Bundle osgiBundle = getBundleByLocation(initialBundle.locationString, curInitBundles);
 			try {
 				// don't need to install if it is already installed
 				if (osgiBundle == null) {
-					InputStream in = LocationHelper.getStream(initialBundle.location);
-					try {
-						osgiBundle = context.installBundle(initialBundle.locationString, in);
-					}catch (BundleException e) {
-						if (e.getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
-							continue;
-							// TODO should attempt to lookup the existing bundle
+					osgiBundle = batchInstalled.get(initialBundle.locationString);
+					if (osgiBundle == null) {
+						InputStream in = LocationHelper.getStream(initialBundle.location);
+						try {
+							osgiBundle = context.installBundle(initialBundle.locationString, in);
+						} catch (BundleException e) {
+							if (e.getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
+								continue;
+								// TODO should attempt to lookup the existing bundle
+							}
+							throw e;
 						}
-						throw e;
 					}
 					// only check for lazy activation header if this is a newly installed bundle and is not marked for persistent start
 					if (!initialBundle.start && hasLazyActivationPolicy(osgiBundle)) {
@@ -1038,6 +1043,54 @@ public class EclipseStarter {
 		}
 	}
 
+	/**
+	 * Installs the initial bundles which are not installed yet with one batch install.
+	 * The content of the bundles is staged in parallel and the framework data is only
+	 * updated once.  If the batch fails then no bundle is installed by the batch and
+	 * the bundles are installed one at a time so that a bundle which fails to install
+	 * does not prevent the other bundles from being installed.
+	 * @return the bundles installed by the batch keyed by location
+	 */
+	private static Map<String, Bundle> installBundleBatch(InitialBundle[] initialBundles, Bundle[] curInitBundles) {
+		Map<String, Bundle> installed = new HashMap<>();
+		if (!(context instanceof BundleContextImpl)) {
+			return installed;
+		}
+		List<InitialBundle> toInstall = new ArrayList<>();
+		List<String> locations = new ArrayList<>();
+		for (InitialBundle initialBundle : initialBundles) {
+			if (getBundleByLocation(initialBundle.locationString, curInitBundles) == null && !locations.contains(initialBundle.locationString)) {
+				toInstall.add(initialBundle);
+				locations.add(initialBundle.locationString);
+			}
+		}
+		if (toInstall.size() < 2) {
+			return installed;
+		}
+		List<InputStream> inputs = new ArrayList<>(toInstall.size());
+		try {
+			for (InitialBundle initialBundle : toInstall) {
+				inputs.add(LocationHelper.getStream(initialBundle.location));
+			}
+			List<Bundle> bundles = ((BundleContextImpl) context).installBundles(locations, inputs);
+			for (int i = 0; i < locations.size(); i++) {
+				installed.put(locations.get(i), bundles.get(i));
+			}
+		} catch (BundleException | IOException e) {
+			if (debug)
+				Debug.println("Failed to install the initial bundles in a batch, installing them one at a time: " + e.getMessage()); //$NON-NLS-1$
+		} finally {
+			for (InputStream in : inputs) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+		return installed;
+	}
+
 	@SuppressWarnings("deprecation")
 	private static boolean hasLazyActivationPolicy(Bundle target) {
 		// check the bundle manifest to see if it defines a lazy activation policy
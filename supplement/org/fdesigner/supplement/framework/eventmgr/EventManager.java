@@ -16,8 +16,12 @@ package org.fdesigner.supplement.framework.eventmgr;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is the central class for the Event Manager. Each
@@ -110,6 +114,13 @@ public class EventManager {
 	 */
 	private EventThread<?, ?, ?> thread;
 
+	/**
+	 * EventThreadPool for asynchronous dispatch of events if more than one
+	 * thread is used.
+	 * Access to this field must be protected by a synchronized region.
+	 */
+	private EventThreadPool pool;
+
 	/** 
 	 * Once closed, an attempt to create a new EventThread will result in an 
 	 * IllegalStateException. 
@@ -126,6 +137,11 @@ public class EventManager {
 	 */
 	protected final ThreadGroup threadGroup;
 
+	/**
+	 * The maximum number of threads used for asynchronous event delivery
+	 */
+	private final int threadCount;
+
 	/**
 	 * EventManager constructor. An EventManager object is responsible for
 	 * the delivery of events to listeners via an EventDispatcher.
@@ -157,10 +173,34 @@ public class EventManager {
 	 * @since 3.4
 	 */
 	public EventManager(String threadName, ThreadGroup threadGroup) {
+		this(threadName, threadGroup, 1);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 * <p>
+	 * If the thread count is greater than one then asynchronous events are
+	 * delivered by a pool of threads.  The events of a listener are still
+	 * delivered in the order they were dispatched but different listeners
+	 * may receive their events concurrently and in a different order.
+	 * A slow listener then only delays the delivery of its own events.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param threadCount The maximum number of threads used for asynchronous
+	 * event delivery.
+	 * @since 3.16
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int threadCount) {
 		thread = null;
+		pool = null;
 		closed = false;
 		this.threadName = threadName;
 		this.threadGroup = threadGroup;
+		this.threadCount = threadCount;
 	}
 
 	/**
@@ -179,9 +219,103 @@ public class EventManager {
 			thread.close();
 			thread = null;
 		}
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
 		closed = true;
 	}
 
+	/**
+	 * Waits until the events which were dispatched asynchronously before this
+	 * method got called have been delivered to their listeners.
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return false if the timeout elapsed before the events got delivered
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws IllegalStateException if this EventManager is closed
+	 * @since 3.16
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		EventThreadPool currentPool = getEventThreadPool();
+		if (currentPool != null) {
+			return currentPool.flush(timeout, unit);
+		}
+		EventDispatcher<Object, Object, CountDownLatch> dispatcher = new EventDispatcher<Object, Object, CountDownLatch>() {
+			@Override
+			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushedSignal) {
+				// Signal that we have flushed all events
+				flushedSignal.countDown();
+			}
+		};
+		ListenerQueue<Object, Object, CountDownLatch> queue = new ListenerQueue<>(this);
+		queue.queueListeners(Collections.<Object, Object> singletonMap(dispatcher, dispatcher).entrySet(), dispatcher);
+		CountDownLatch flushedSignal = new CountDownLatch(1);
+		queue.dispatchEventAsynchronous(0, flushedSignal);
+		return flushedSignal.await(timeout, unit);
+	}
+
+	/**
+	 * Returns the number of events which are queued for asynchronous delivery
+	 * to a listener.  If the events are delivered by a single thread then an event
+	 * is counted once for all its listeners.
+	 * @return the number of queued events
+	 * @since 3.16
+	 */
+	public synchronized int getQueueDepth() {
+		if (pool != null) {
+			return pool.getQueueDepth();
+		}
+		return thread == null ? 0 : thread.getQueueDepth();
+	}
+
+	/**
+	 * Returns the maximum number of events which were queued for asynchronous
+	 * delivery at the same time.
+	 * @return the maximum number of queued events
+	 * @see #getQueueDepth()
+	 * @since 3.16
+	 */
+	public synchronized int getMaxQueueDepth() {
+		if (pool != null) {
+			return pool.getMaxQueueDepth();
+		}
+		return thread == null ? 0 : thread.getMaxQueueDepth();
+	}
+
+	/**
+	 * Returns the asynchronous delivery statistics of each listener.  The statistics
+	 * are only collected if the events are delivered by more than one thread.
+	 * @return a snapshot of the statistics by listener
+	 * @since 3.16
+	 */
+	public synchronized Map<Object, ListenerStatistics> getListenerStatistics() {
+		if (pool != null) {
+			return pool.getListenerStatistics();
+		}
+		return new HashMap<>();
+	}
+
+	/**
+	 * Returns the EventThreadPool to use for dispatching events asynchronously for
+	 * this EventManager or <code>null</code> if a single EventThread is used.
+	 *
+	 * @return EventThreadPool to use for dispatching events asynchronously for
+	 * this EventManager.
+	 */
+	synchronized EventThreadPool getEventThreadPool() {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		if (threadCount <= 1) {
+			return null;
+		}
+		if (pool == null) {
+			pool = new EventThreadPool(threadGroup, threadName, threadCount);
+		}
+		return pool;
+	}
+
 	/**
 	 * Returns the EventThread to use for dispatching events asynchronously for
 	 * this EventManager.
@@ -289,6 +423,10 @@ public class EventManager {
 		private Queued<K, V, E> tail;
 		/** if false the thread must terminate */
 		private volatile boolean running;
+		/** number of items in the event queue */
+		private int queueDepth;
+		/** maximum number of items in the event queue */
+		private int maxQueueDepth;
 
 		/**
 		 * Constructor for the event thread. 
@@ -382,6 +520,9 @@ public class EventManager {
 				tail.next = item;
 				tail = item;
 			}
+			if (++queueDepth > maxQueueDepth) {
+				maxQueueDepth = queueDepth;
+			}
 
 			notify();
 		}
@@ -412,8 +553,17 @@ public class EventManager {
 			if (head == null) {
 				tail = null;
 			}
+			queueDepth--;
 
 			return item;
 		}
+
+		synchronized int getQueueDepth() {
+			return queueDepth;
+		}
+
+		synchronized int getMaxQueueDepth() {
+			return maxQueueDepth;
+		}
 	}
 }
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.supplement.framework.eventmgr;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This package private class is used for asynchronously dispatching events
+ * with a bounded pool of threads.  Each listener has its own queue of events.
+ * The events of a listener are delivered in the order they got posted, one at
+ * a time.  Events for different listeners are delivered concurrently.  After
+ * delivering an event to a listener the pool moves on to the next queued
+ * listener so a slow listener only delays its own events.
+ */
+class EventThreadPool {
+	/**
+	 * The items which are placed on the queue of a listener.
+	 */
+	private static class Queued {
+		final Map.Entry<?, ?> listener;
+		final EventDispatcher<?, ?, ?> dispatcher;
+		final int action;
+		final Object object;
+		final long queuedTime;
+		/** run instead of dispatching an event if not null */
+		final Runnable marker;
+
+		Queued(Map.Entry<?, ?> listener, EventDispatcher<?, ?, ?> dispatcher, int action, Object object) {
+			this.listener = listener;
+			this.dispatcher = dispatcher;
+			this.action = action;
+			this.object = object;
+			this.queuedTime = System.nanoTime();
+			this.marker = null;
+		}
+
+		Queued(Runnable marker) {
+			this.listener = null;
+			this.dispatcher = null;
+			this.action = 0;
+			this.object = null;
+			this.queuedTime = System.nanoTime();
+			this.marker = marker;
+		}
+	}
+
+	/**
+	 * The queue and the statistics of a listener.  Must not reference the
+	 * listener once its queue is empty.
+	 */
+	private class ListenerState implements Runnable {
+		/* @GuardedBy("EventThreadPool.this") */
+		final LinkedList<Queued> pending = new LinkedList<>();
+		/* @GuardedBy("EventThreadPool.this") */
+		boolean scheduled = false;
+		/* @GuardedBy("EventThreadPool.this") */
+		long deliveredCount = 0;
+		/* @GuardedBy("EventThreadPool.this") */
+		long totalLatency = 0;
+		/* @GuardedBy("EventThreadPool.this") */
+		long maxLatency = 0;
+
+		@Override
+		public void run() {
+			Queued item;
+			synchronized (EventThreadPool.this) {
+				item = pending.poll();
+				if (item == null) {
+					scheduled = false;
+					return;
+				}
+			}
+			if (item.marker != null) {
+				item.marker.run();
+			} else {
+				dispatch(item);
+			}
+			long latency = System.nanoTime() - item.queuedTime;
+			synchronized (EventThreadPool.this) {
+				if (item.marker == null) {
+					queueDepth--;
+					deliveredCount++;
+					totalLatency += latency;
+					maxLatency = Math.max(maxLatency, latency);
+				}
+				if (pending.isEmpty()) {
+					scheduled = false;
+				} else {
+					// requeue to give other listeners a chance
+					schedule(this);
+				}
+			}
+		}
+	}
+
+	private final ThreadPoolExecutor executor;
+	/* @GuardedBy("this") */
+	private final Map<Object, ListenerState> listenerStates = new WeakHashMap<>();
+	/* @GuardedBy("this") */
+	private int queueDepth = 0;
+	/* @GuardedBy("this") */
+	private int maxQueueDepth = 0;
+
+	/**
+	 * Constructor for the event thread pool.
+	 * @param threadGroup the thread group of the pool threads
+	 * @param threadName the name prefix of the pool threads
+	 * @param threadCount the maximum number of pool threads
+	 */
+	EventThreadPool(final ThreadGroup threadGroup, final String threadName, int threadCount) {
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private int nextThreadNumber = 0;
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final String name;
+				synchronized (this) {
+					name = (threadName == null ? "EventManagerThread" : threadName) + " - " + nextThreadNumber++; //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				@SuppressWarnings("removal")
+				Thread thread = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+					@Override
+					public Thread run() {
+						Thread t = new Thread(threadGroup, r, name);
+						t.setDaemon(true); /* Mark thread as daemon thread */
+						return t;
+					}
+				});
+				return thread;
+			}
+		};
+		executor = new ThreadPoolExecutor(threadCount, threadCount, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Stop the pool threads.  Events which are not delivered yet are discarded.
+	 */
+	synchronized void close() {
+		executor.shutdownNow();
+		listenerStates.clear();
+		queueDepth = 0;
+	}
+
+	/**
+	 * Queues an event for each listener of each listener list.
+	 * @param queue the listener lists and their dispatchers
+	 * @param action action for this event
+	 * @param object object for this event
+	 */
+	synchronized <K, V, E> void postEvents(Map<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> queue, int action, E object) {
+		if (executor.isShutdown()) {
+			throw new IllegalStateException();
+		}
+		for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) {
+			for (Map.Entry<K, V> listener : entry.getKey()) {
+				ListenerState state = listenerStates.get(listener.getKey());
+				if (state == null) {
+					state = new ListenerState();
+					listenerStates.put(listener.getKey(), state);
+				}
+				state.pending.add(new Queued(listener, entry.getValue(), action, object));
+				queueDepth++;
+				if (!state.scheduled) {
+					state.scheduled = true;
+					schedule(state);
+				}
+			}
+		}
+		maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+	}
+
+	/* @GuardedBy("this") */
+	private void schedule(ListenerState state) {
+		try {
+			executor.execute(state);
+		} catch (RejectedExecutionException e) {
+			// closed; the remaining events are discarded
+			state.scheduled = false;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V, E> void dispatch(Queued item) {
+		EventManager.dispatchEvent(Collections.singleton((Map.Entry<K, V>) item.listener), (EventDispatcher<K, V, E>) item.dispatcher, item.action, (E) item.object);
+	}
+
+	/**
+	 * Waits until the events which got posted before calling this method have
+	 * been delivered.
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return false if the timeout elapsed before the events got delivered
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		CountDownLatch flushed;
+		synchronized (this) {
+			List<ListenerState> busy = new ArrayList<>();
+			for (ListenerState state : listenerStates.values()) {
+				if (state.scheduled) {
+					busy.add(state);
+				}
+			}
+			flushed = new CountDownLatch(busy.size());
+			final CountDownLatch signal = flushed;
+			Runnable marker = new Runnable() {
+				@Override
+				public void run() {
+					signal.countDown();
+				}
+			};
+			for (ListenerState state : busy) {
+				state.pending.add(new Queued(marker));
+			}
+		}
+		return flushed.await(timeout, unit);
+	}
+
+	synchronized int getQueueDepth() {
+		return queueDepth;
+	}
+
+	synchronized int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	synchronized Map<Object, ListenerStatistics> getListenerStatistics() {
+		Map<Object, ListenerStatistics> result = new HashMap<>();
+		for (Map.Entry<Object, ListenerState> entry : listenerStates.entrySet()) {
+			ListenerState state = entry.getValue();
+			int pending = 0;
+			for (Queued item : state.pending) {
+				if (item.marker == null) {
+					pending++;
+				}
+			}
+			result.put(entry.getKey(), new ListenerStatistics(state.deliveredCount, state.totalLatency, state.maxLatency, pending));
+		}
+		return result;
+	}
+}
@@ -25,7 +25,9 @@ import org.fdesigner.supplement.framework.eventmgr.EventManager.EventThread;
  * events to those listeners. A ListenerQueue object is associated with a
  * specific EventManager object. ListenerQueue objects constructed with the same
  * EventManager object will get in-order delivery of events when
- * using asynchronous delivery. No delivery order is guaranteed for synchronous
+ * using asynchronous delivery. If the EventManager delivers events with more than
+ * one thread then in-order delivery is only guaranteed for the events of each
+ * listener. No delivery order is guaranteed for synchronous
  * delivery to avoid any potential deadly embraces.
  *
  * <p>ListenerQueue objects are created as necessary to build a list of listeners
@@ -124,6 +126,12 @@ public class ListenerQueue<K, V, E> {
 		synchronized (this) {
 			readOnly = true;
 		}
+		EventThreadPool pool = manager.getEventThreadPool();
+		if (pool != null) {
+			/* the pool keeps the order of the events for each listener */
+			pool.postEvents(queue, eventAction, eventObject);
+			return;
+		}
 		EventThread<K, V, E> eventThread = manager.getEventThread();
 		synchronized (eventThread) { /* synchronize on the EventThread to ensure no interleaving of posting to the event thread */
 			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
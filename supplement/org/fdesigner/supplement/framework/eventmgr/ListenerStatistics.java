@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 WeControlTheFuture.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     WeControlTheFuture - initial API and implementation
+ *******************************************************************************/
+
+package org.fdesigner.supplement.framework.eventmgr;
+
+/**
+ * A snapshot of the asynchronous event delivery statistics of a listener.
+ * The latency of an event is the time from queuing the event for
+ * asynchronous delivery until the listener returned from handling the event.
+ * @see EventManager#getListenerStatistics()
+ * @since 3.16
+ * @noinstantiate This class is not intended to be instantiated by clients.
+ */
+public final class ListenerStatistics {
+	private final long deliveredCount;
+	private final long totalLatency;
+	private final long maxLatency;
+	private final int queueDepth;
+
+	ListenerStatistics(long deliveredCount, long totalLatency, long maxLatency, int queueDepth) {
+		this.deliveredCount = deliveredCount;
+		this.totalLatency = totalLatency;
+		this.maxLatency = maxLatency;
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * Returns the number of events delivered to the listener.
+	 * @return the number of delivered events
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount;
+	}
+
+	/**
+	 * Returns the average latency of the events delivered to the listener in nanoseconds.
+	 * @return the average latency
+	 */
+	public long getAverageLatency() {
+		return deliveredCount == 0 ? 0 : totalLatency / deliveredCount;
+	}
+
+	/**
+	 * Returns the maximum latency of the events delivered to the listener in nanoseconds.
+	 * @return the maximum latency
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	/**
+	 * Returns the number of events queued for the listener which are not delivered yet.
+	 * @return the number of queued events
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	@Override
+	public String toString() {
+		return "delivered=" + deliveredCount + " averageLatency=" + getAverageLatency() + " maxLatency=" + maxLatency + " queueDepth=" + queueDepth; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
@@ -136,7 +136,10 @@ public class Msg extends NLS {
 	public static String ModuleContainer_NameCollision;
 	public static String ModuleContainer_NameCollisionWithLocation;
 	public static String ModuleContainer_NegativeStartLevelError;
+	public static String ModuleContainer_SlowestStops;
 	public static String ModuleContainer_StateLockError;
+	public static String ModuleContainer_StopTimeout;
+	public static String ModuleContainer_StopTimedOut;
 	public static String ModuleContainer_SystemNotActiveError;
 	public static String ModuleContainer_SystemStartLevelError;
 